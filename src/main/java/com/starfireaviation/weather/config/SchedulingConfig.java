@@ -0,0 +1,119 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.config;
+
+import com.starfireaviation.weather.service.MetarHistoryService;
+import com.starfireaviation.weather.service.TafService;
+import com.starfireaviation.weather.service.WeatherService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+
+/**
+ * Registers the weather refresh jobs at the intervals configured in {@link WeatherProperties}.
+ *
+ * Implementing SchedulingConfigurer makes Spring Boot back off from its task scheduler, and the registrar would
+ * otherwise fall back to a single thread shared by every job. The jobs get their own scheduler instead, with a thread
+ * per job, virtual when weather.virtual-threads is set.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    /**
+     * Interval between METAR history purges.
+     */
+    private static final Duration HISTORY_PURGE_INTERVAL = Duration.ofHours(1);
+
+    /**
+     * Number of scheduled jobs.
+     */
+    private static final int JOBS = 3;
+
+    /**
+     * WeatherService.
+     */
+    private final WeatherService weatherService;
+
+    /**
+     * TafService.
+     */
+    private final TafService tafService;
+
+    /**
+     * MetarHistoryService.
+     */
+    private final MetarHistoryService metarHistoryService;
+
+    /**
+     * WeatherProperties.
+     */
+    private final WeatherProperties weatherProperties;
+
+    /**
+     * Initializes an instance of <code>SchedulingConfig</code>.
+     *
+     * @param service WeatherService
+     * @param forecasts TafService
+     * @param history MetarHistoryService
+     * @param props WeatherProperties
+     */
+    public SchedulingConfig(final WeatherService service, final TafService forecasts,
+                            final MetarHistoryService history, final WeatherProperties props) {
+        weatherService = service;
+        tafService = forecasts;
+        metarHistoryService = history;
+        weatherProperties = props;
+    }
+
+    /**
+     * Registers the refresh jobs. The first refresh runs as soon as the scheduler starts.
+     *
+     * @param taskRegistrar ScheduledTaskRegistrar
+     */
+    @Override
+    public void configureTasks(final ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(taskScheduler());
+        taskRegistrar.addFixedDelayTask(weatherService::updateWeather,
+                weatherProperties.getMetarRefreshInterval().toMillis());
+        taskRegistrar.addFixedDelayTask(tafService::updateTAFs, weatherProperties.getTafRefreshInterval().toMillis());
+        taskRegistrar.addFixedDelayTask(metarHistoryService::purge, HISTORY_PURGE_INTERVAL.toMillis());
+    }
+
+    /**
+     * Scheduler of the refresh jobs, with at least one thread per job.
+     *
+     * @return ThreadPoolTaskScheduler
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(JOBS, weatherProperties.getSchedulerPoolSize()));
+        if (weatherProperties.isVirtualThreads()) {
+            scheduler.setThreadFactory(Thread.ofVirtual().name("scheduling-", 0).factory());
+        } else {
+            scheduler.setThreadFactory(Thread.ofPlatform().name("scheduling-", 0).daemon().factory());
+        }
+        return scheduler;
+    }
+
+}
@@ -17,17 +17,47 @@
 package com.starfireaviation.weather.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.starfireaviation.weather.service.MetarArchive;
+import com.starfireaviation.weather.service.MetarFeedParser;
+import com.starfireaviation.weather.service.MetarHistoryService;
+import com.starfireaviation.weather.model.MetarObservationRepository;
+import com.starfireaviation.weather.model.WeatherProductRepository;
+import com.starfireaviation.weather.service.AviationWeatherClient;
+import com.starfireaviation.weather.service.AlertRuleEngine;
+import com.starfireaviation.weather.service.MetarChangeDetector;
+import com.starfireaviation.weather.service.MetarFeedHealthIndicator;
+import com.starfireaviation.weather.service.MetarEventBus;
+import com.starfireaviation.weather.service.MetarStore;
+import com.starfireaviation.weather.service.MetarStreamService;
+import com.starfireaviation.weather.service.StationRegistry;
+import com.starfireaviation.weather.service.TafFeedParser;
+import com.starfireaviation.weather.service.TafService;
+import com.starfireaviation.weather.service.TafStore;
+import com.starfireaviation.weather.service.JacksonProductCodec;
+import com.starfireaviation.weather.service.ProductCodec;
+import com.starfireaviation.weather.service.ProductCodecs;
+import com.starfireaviation.weather.service.RenderedMetarCache;
+import com.starfireaviation.weather.service.WeatherProductService;
+import com.starfireaviation.weather.service.WeatherMetrics;
+import com.starfireaviation.weather.service.WeatherService;
 import com.starfireaviation.weather.util.SSLUtilities;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
 
 @Slf4j
 @Configuration
@@ -64,6 +94,290 @@ public class ServiceConfig {
         return new SSLUtilities();
     }
 
+    /**
+     * MetarStore.
+     *
+     * @param props WeatherProperties
+     * @return MetarStore
+     */
+    @Bean
+    public MetarStore metarStore(final WeatherProperties props) {
+        return new MetarStore(props.getGridCellDegrees());
+    }
+
+    /**
+     * RenderedMetarCache.
+     *
+     * @param mapper ObjectMapper
+     * @return RenderedMetarCache
+     */
+    @Bean
+    public RenderedMetarCache renderedMetarCache(final ObjectMapper mapper) {
+        return new RenderedMetarCache(mapper);
+    }
+
+    /**
+     * MetarStreamService, registered as a listener of the MetarStore.
+     *
+     * @param store MetarStore
+     * @param renderCache RenderedMetarCache
+     * @param props WeatherProperties
+     * @return MetarStreamService
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MetarStreamService metarStreamService(final MetarStore store, final RenderedMetarCache renderCache,
+                                                 final WeatherProperties props) {
+        final MetarStreamService streamService = new MetarStreamService(store, renderCache, props);
+        store.addListener((previous, published) -> streamService.publish(published));
+        return streamService;
+    }
+
+    /**
+     * MetarEventBus, registered as a listener of the MetarStore. Change events are logged.
+     *
+     * @param store MetarStore
+     * @param props WeatherProperties
+     * @return MetarEventBus
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MetarEventBus metarEventBus(final MetarStore store, final WeatherProperties props) {
+        final MetarEventBus eventBus = new MetarEventBus(
+                new MetarChangeDetector(props.getCeilingThresholds(), props.getVisibilityThresholds()),
+                props.getEventQueueCapacity());
+        store.addListener(eventBus);
+        eventBus.subscribe("log", event -> log.info(String.format("%s %s: %s -> %s", event.getType(),
+                event.getIcao(), event.getFrom(), event.getTo())));
+        return eventBus;
+    }
+
+    /**
+     * AlertRuleEngine, registered as a listener of the MetarStore.
+     *
+     * @param store MetarStore
+     * @param props WeatherProperties
+     * @return AlertRuleEngine
+     */
+    @Bean
+    public AlertRuleEngine alertRuleEngine(final MetarStore store, final WeatherProperties props) {
+        final AlertRuleEngine engine = new AlertRuleEngine(store, props.getMaxAlertRules(),
+                props.getAlertHistorySize());
+        store.addListener(engine);
+        return engine;
+    }
+
+    /**
+     * MetarFeedParser.
+     *
+     * @param mapper ObjectMapper
+     * @return MetarFeedParser
+     */
+    @Bean
+    public MetarFeedParser metarFeedParser(final ObjectMapper mapper) {
+        return new MetarFeedParser(mapper.getFactory());
+    }
+
+    /**
+     * ProductCodecs.
+     *
+     * @param props WeatherProperties
+     * @return ProductCodecs
+     */
+    @Bean
+    public ProductCodecs productCodecs(final WeatherProperties props) {
+        final ProductCodec json = new JacksonProductCodec(JacksonProductCodec.JSON, new ObjectMapper());
+        final ProductCodec smile = new JacksonProductCodec(JacksonProductCodec.SMILE,
+                new ObjectMapper(new SmileFactory()));
+        ProductCodec primary = smile;
+        if ("json".equalsIgnoreCase(props.getProductCodec())) {
+            primary = json;
+        } else if (!"smile".equalsIgnoreCase(props.getProductCodec())) {
+            log.warn(String.format("Unknown product codec [%s]; using smile", props.getProductCodec()));
+        }
+        return new ProductCodecs(primary, json, List.of(json, smile));
+    }
+
+    /**
+     * WeatherProductService.
+     *
+     * @param codecs ProductCodecs
+     * @param repository WeatherProductRepository
+     * @param transactionTemplate TransactionTemplate
+     * @return WeatherProductService
+     */
+    @Bean
+    public WeatherProductService weatherProductService(final ProductCodecs codecs,
+                                                       final WeatherProductRepository repository,
+                                                       final TransactionTemplate transactionTemplate) {
+        return new WeatherProductService(codecs, repository, transactionTemplate);
+    }
+
+    /**
+     * AviationWeatherClient.
+     *
+     * @param restTemplate RestTemplate
+     * @param sslUtilities SSLUtilities
+     * @return AviationWeatherClient
+     */
+    @Bean
+    public AviationWeatherClient aviationWeatherClient(final RestTemplate restTemplate,
+                                                       final SSLUtilities sslUtilities) {
+        return new AviationWeatherClient(restTemplate, sslUtilities);
+    }
+
+    /**
+     * WeatherService.
+     *
+     * @param client AviationWeatherClient
+     * @param props WeatherProperties
+     * @param productService WeatherProductService
+     * @param store MetarStore
+     * @param parser MetarFeedParser
+     * @param registry StationRegistry
+     * @param history MetarHistoryService
+     * @param metrics WeatherMetrics
+     * @return WeatherService
+     */
+    @Bean
+    @SuppressWarnings("checkstyle:parameternumber")
+    public WeatherService weatherService(final AviationWeatherClient client,
+                                         final WeatherProperties props,
+                                         final WeatherProductService productService,
+                                         final MetarStore store,
+                                         final MetarFeedParser parser,
+                                         final StationRegistry registry,
+                                         final MetarHistoryService history,
+                                         final WeatherMetrics metrics) {
+        return new WeatherService(client, props, productService, store, parser, registry, history, metrics);
+    }
+
+    /**
+     * WeatherMetrics, registered as a listener of the MetarStore for the per-station data age gauges.
+     *
+     * @param meterRegistry MeterRegistry
+     * @param store MetarStore
+     * @param renderCache RenderedMetarCache
+     * @return WeatherMetrics
+     */
+    @Bean
+    public WeatherMetrics weatherMetrics(final MeterRegistry meterRegistry, final MetarStore store,
+                                         final RenderedMetarCache renderCache) {
+        final WeatherMetrics metrics = new WeatherMetrics(meterRegistry, store, renderCache);
+        store.addListener(metrics);
+        return metrics;
+    }
+
+    /**
+     * Health of the METAR feed, reported as "metarFeed" by the health endpoint.
+     *
+     * @param metrics WeatherMetrics
+     * @param store MetarStore
+     * @param props WeatherProperties
+     * @return MetarFeedHealthIndicator
+     */
+    @Bean
+    public MetarFeedHealthIndicator metarFeedHealthIndicator(final WeatherMetrics metrics, final MetarStore store,
+                                                             final WeatherProperties props) {
+        return new MetarFeedHealthIndicator(metrics, store, props.getStaleAfter());
+    }
+
+    /**
+     * MetarHistoryService.
+     *
+     * @param mapper ObjectMapper
+     * @param repository MetarObservationRepository
+     * @param transactionTemplate TransactionTemplate
+     * @param props WeatherProperties
+     * @param archive MetarArchive
+     * @return MetarHistoryService
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MetarHistoryService metarHistoryService(final ObjectMapper mapper,
+                                                   final MetarObservationRepository repository,
+                                                   final TransactionTemplate transactionTemplate,
+                                                   final WeatherProperties props,
+                                                   final MetarArchive archive) {
+        return new MetarHistoryService(mapper, repository, transactionTemplate, props.getHistoryRetention(),
+                archive, historyWriterThreads(props));
+    }
+
+    /**
+     * Thread factory of the METAR history writer: virtual when weather.virtual-threads is set.
+     *
+     * @param props WeatherProperties
+     * @return ThreadFactory
+     */
+    private static ThreadFactory historyWriterThreads(final WeatherProperties props) {
+        if (props.isVirtualThreads()) {
+            return Thread.ofVirtual().name("metar-history").factory();
+        }
+        return Thread.ofPlatform().name("metar-history").daemon().factory();
+    }
+
+    /**
+     * MetarArchive.
+     *
+     * @param props WeatherProperties
+     * @return MetarArchive
+     */
+    @Bean
+    public MetarArchive metarArchive(final WeatherProperties props) {
+        return new MetarArchive(Path.of(props.getArchiveDirectory()), props.getArchiveMaxMappedSegments());
+    }
+
+    /**
+     * TafStore.
+     *
+     * @return TafStore
+     */
+    @Bean
+    public TafStore tafStore() {
+        return new TafStore();
+    }
+
+    /**
+     * TafFeedParser.
+     *
+     * @param mapper ObjectMapper
+     * @return TafFeedParser
+     */
+    @Bean
+    public TafFeedParser tafFeedParser(final ObjectMapper mapper) {
+        return new TafFeedParser(mapper.getFactory());
+    }
+
+    /**
+     * TafService.
+     *
+     * @param client AviationWeatherClient
+     * @param props WeatherProperties
+     * @param productService WeatherProductService
+     * @param store TafStore
+     * @param parser TafFeedParser
+     * @param registry StationRegistry
+     * @return TafService
+     */
+    @Bean
+    public TafService tafService(final AviationWeatherClient client,
+                                 final WeatherProperties props,
+                                 final WeatherProductService productService,
+                                 final TafStore store,
+                                 final TafFeedParser parser,
+                                 final StationRegistry registry) {
+        return new TafService(client, props, productService, store, parser, registry);
+    }
+
+    /**
+     * StationRegistry.
+     *
+     * @param props WeatherProperties
+     * @param resourceLoader ResourceLoader
+     * @return StationRegistry
+     */
+    @Bean
+    public StationRegistry stationRegistry(final WeatherProperties props, final ResourceLoader resourceLoader) {
+        return new StationRegistry(props, resourceLoader);
+    }
+
     /**
      * Creates a rest template with default timeout settings. The bean definition will be updated to accept timeout
      * parameters once those are part of the Customer settings.
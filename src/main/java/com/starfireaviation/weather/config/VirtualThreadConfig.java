@@ -0,0 +1,56 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread execution mode, enabled by weather.virtual-threads.
+ *
+ * Tomcat hands each request to a new virtual thread instead of its bounded worker pool, so requests blocked on the
+ * database no longer hold one of a fixed number of platform threads. The refresh jobs run on virtual threads too, so
+ * that their feed fetches, parsing and repository calls do; their scheduler is built by {@link SchedulingConfig}. Feed
+ * tiles are already fetched on virtual threads in either mode.
+ *
+ * Code that may block while holding a monitor stays off virtual threads in either mode: METAR stream frames are written
+ * by {@link com.starfireaviation.weather.service.MetarStreamService} on platform threads, since
+ * ResponseBodyEmitter.send is synchronized.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "weather", name = "virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Runs Tomcat request processing on virtual threads.
+     *
+     * @return TomcatProtocolHandlerCustomizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory()));
+    }
+
+}
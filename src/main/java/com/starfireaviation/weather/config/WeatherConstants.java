@@ -90,4 +90,59 @@ public class WeatherConstants {
      * Raw Observation.
      */
     public static final String RAW_OBSERVATION = "rawOb";
+
+    /**
+     * Wind Gust.
+     */
+    public static final String WIND_GUST = "wgst";
+
+    /**
+     * Weather.
+     */
+    public static final String WEATHER = "wxString";
+
+    /**
+     * Issue Time.
+     */
+    public static final String ISSUE_TIME = "issueTime";
+
+    /**
+     * Valid Time From.
+     */
+    public static final String VALID_TIME_FROM = "validTimeFrom";
+
+    /**
+     * Valid Time To.
+     */
+    public static final String VALID_TIME_TO = "validTimeTo";
+
+    /**
+     * Raw TAF.
+     */
+    public static final String RAW_TAF = "rawTAF";
+
+    /**
+     * Forecast Time From.
+     */
+    public static final String FORECAST_TIME_FROM = "fcstTimeFrom";
+
+    /**
+     * Forecast Time To.
+     */
+    public static final String FORECAST_TIME_TO = "fcstTimeTo";
+
+    /**
+     * Forecast Change.
+     */
+    public static final String FORECAST_CHANGE = "fcstChange";
+
+    /**
+     * Probability.
+     */
+    public static final String PROBABILITY = "prob";
+
+    /**
+     * Report type, METAR or SPECI.
+     */
+    public static final String REPORT_TYPE = "data";
 }
@@ -20,6 +20,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Weather Service Properties.
  */
@@ -28,8 +32,298 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties("weather")
 public class WeatherProperties {
 
+    /**
+     * Default METAR refresh interval, in minutes.
+     */
+    private static final int DEFAULT_METAR_REFRESH_MINUTES = 5;
+
+    /**
+     * Default staleness limit, in minutes.
+     */
+    private static final int DEFAULT_STALE_AFTER_MINUTES = 15;
+
+    /**
+     * Default spatial index cell size, in degrees.
+     */
+    private static final double DEFAULT_GRID_CELL_DEGREES = 0.5;
+
+    /**
+     * Default TAF refresh interval, in minutes.
+     */
+    private static final int DEFAULT_TAF_REFRESH_MINUTES = 15;
+
+    /**
+     * Default METAR history retention, in days.
+     */
+    private static final int DEFAULT_HISTORY_RETENTION_DAYS = 7;
+
+    /**
+     * Default largest tile side, in degrees.
+     */
+    private static final double DEFAULT_TILE_DEGREES = 5.0;
+
+    /**
+     * Default number of refresh job threads: one per scheduled job.
+     */
+    private static final int DEFAULT_SCHEDULER_POOL_SIZE = 3;
+
+    /**
+     * Default number of feed requests in flight at once.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 8;
+
+    /**
+     * Default number of pending updates per stream subscriber.
+     */
+    private static final int DEFAULT_STREAM_QUEUE_CAPACITY = 256;
+
+    /**
+     * Default largest number of stream subscribers.
+     */
+    private static final int DEFAULT_STREAM_MAX_SUBSCRIBERS = 1000;
+
+    /**
+     * Default number of archive segments kept mapped.
+     */
+    private static final int DEFAULT_ARCHIVE_MAX_MAPPED_SEGMENTS = 8192;
+
+    /**
+     * Default longest wait for a write to a stream subscriber, in seconds.
+     */
+    private static final int DEFAULT_STREAM_WRITE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Default stream heartbeat interval, in seconds.
+     */
+    private static final int DEFAULT_STREAM_HEARTBEAT_SECONDS = 15;
+
+    /**
+     * Default stream lifetime, in minutes.
+     */
+    private static final int DEFAULT_STREAM_TIMEOUT_MINUTES = 30;
+
+    /**
+     * Lower limit of MVFR ceiling, in feet.
+     */
+    private static final int IFR_CEILING_FEET = 1000;
+
+    /**
+     * Lower limit of IFR ceiling, in feet.
+     */
+    private static final int LIFR_CEILING_FEET = 500;
+
+    /**
+     * Upper limit of MVFR ceiling, in feet.
+     */
+    private static final int MVFR_CEILING_FEET = 3000;
+
+    /**
+     * Lower limit of IFR visibility, in statute miles.
+     */
+    private static final double LIFR_VISIBILITY_MILES = 1.0;
+
+    /**
+     * Lower limit of MVFR visibility, in statute miles.
+     */
+    private static final double IFR_VISIBILITY_MILES = 3.0;
+
+    /**
+     * Upper limit of MVFR visibility, in statute miles.
+     */
+    private static final double MVFR_VISIBILITY_MILES = 5.0;
+
+    /**
+     * Default number of pending change events per consumer.
+     */
+    private static final int DEFAULT_EVENT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Default largest number of alert rules.
+     */
+    private static final int DEFAULT_MAX_ALERT_RULES = 10000;
+
+    /**
+     * Default number of fired alerts kept.
+     */
+    private static final int DEFAULT_ALERT_HISTORY_SIZE = 1000;
+
     /**
      * atlanta-icao-codes.
      */
     private String atlantaIcaoCodes;
+
+    /**
+     * station-file. Resource location of the station metadata file (icao,name,elevation_ft,latitude,longitude).
+     */
+    private String stationFile = "classpath:stations.csv";
+
+    /**
+     * grid-cell-degrees. Cell size of the station spatial index.
+     */
+    private double gridCellDegrees = DEFAULT_GRID_CELL_DEGREES;
+
+    /**
+     * metar-refresh-interval. Delay between the end of one METAR refresh and the start of the next.
+     */
+    private Duration metarRefreshInterval = Duration.ofMinutes(DEFAULT_METAR_REFRESH_MINUTES);
+
+    /**
+     * stale-after. The METAR feed is reported down when no ingest cycle has completed for this long.
+     */
+    private Duration staleAfter = Duration.ofMinutes(DEFAULT_STALE_AFTER_MINUTES);
+
+    /**
+     * metar-feed-url. MetarJSON endpoint; density and bbox query parameters are appended per tile.
+     */
+    private String metarFeedUrl = "https://www.aviationweather.gov/cgi-bin/json/MetarJSON.php";
+
+    /**
+     * taf-refresh-interval. Delay between the end of one TAF refresh and the start of the next.
+     */
+    private Duration tafRefreshInterval = Duration.ofMinutes(DEFAULT_TAF_REFRESH_MINUTES);
+
+    /**
+     * taf-feed-url. TafJSON endpoint; density and bbox query parameters are appended per tile.
+     */
+    private String tafFeedUrl = "https://www.aviationweather.gov/cgi-bin/json/TafJSON.php";
+
+    /**
+     * scheduler-pool-size. Threads running the METAR refresh, the TAF refresh and the history purge. The jobs are
+     * registered through a SchedulingConfigurer, so Spring Boot's spring.task.scheduling pool does not apply; the
+     * pool is never smaller than the number of jobs, so a slow METAR cycle cannot delay the other jobs.
+     */
+    private int schedulerPoolSize = DEFAULT_SCHEDULER_POOL_SIZE;
+
+    /**
+     * history-retention. How long METAR observations are kept in the history.
+     */
+    private Duration historyRetention = Duration.ofDays(DEFAULT_HISTORY_RETENTION_DAYS);
+
+    /**
+     * archive-directory. Local directory holding the memory-mapped long-term METAR archive.
+     */
+    private String archiveDirectory = "archive";
+
+    /**
+     * archive-max-mapped-segments. Station-month archive segments kept memory-mapped; well under vm.max_map_count.
+     */
+    private int archiveMaxMappedSegments = DEFAULT_ARCHIVE_MAX_MAPPED_SEGMENTS;
+
+    /**
+     * product-codec. Format of newly stored weather product values: smile (compact binary) or json.
+     */
+    private String productCodec = "smile";
+
+    /**
+     * stream-queue-capacity. Pending updates per stream subscriber; a subscriber that falls further behind is
+     * disconnected.
+     */
+    private int streamQueueCapacity = DEFAULT_STREAM_QUEUE_CAPACITY;
+
+    /**
+     * stream-max-subscribers. Largest number of concurrent stream subscribers.
+     */
+    private int streamMaxSubscribers = DEFAULT_STREAM_MAX_SUBSCRIBERS;
+
+    /**
+     * stream-write-timeout. Longest wait for a write to a stream subscriber; a client that does not read for this
+     * long is disconnected.
+     */
+    private Duration streamWriteTimeout = Duration.ofSeconds(DEFAULT_STREAM_WRITE_TIMEOUT_SECONDS);
+
+    /**
+     * stream-heartbeat. Idle interval after which a stream sends a keep-alive comment.
+     */
+    private Duration streamHeartbeat = Duration.ofSeconds(DEFAULT_STREAM_HEARTBEAT_SECONDS);
+
+    /**
+     * stream-timeout. Lifetime of a stream; clients reconnect and receive their current observations again.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(DEFAULT_STREAM_TIMEOUT_MINUTES);
+
+    /**
+     * ceiling-thresholds. Ceilings, in feet, whose crossing raises a change event; the flight category limits.
+     */
+    private List<Integer> ceilingThresholds =
+            new ArrayList<>(List.of(LIFR_CEILING_FEET, IFR_CEILING_FEET, MVFR_CEILING_FEET));
+
+    /**
+     * visibility-thresholds. Visibilities, in statute miles, whose crossing raises a change event; the flight
+     * category limits.
+     */
+    private List<Double> visibilityThresholds =
+            new ArrayList<>(List.of(LIFR_VISIBILITY_MILES, IFR_VISIBILITY_MILES, MVFR_VISIBILITY_MILES));
+
+    /**
+     * event-queue-capacity. Pending change events per consumer; further events are dropped for that consumer.
+     */
+    private int eventQueueCapacity = DEFAULT_EVENT_QUEUE_CAPACITY;
+
+    /**
+     * max-alert-rules. Largest number of alert rules that may be defined.
+     */
+    private int maxAlertRules = DEFAULT_MAX_ALERT_RULES;
+
+    /**
+     * alert-history-size. Number of fired alerts kept for the alerts endpoint.
+     */
+    private int alertHistorySize = DEFAULT_ALERT_HISTORY_SIZE;
+
+    /**
+     * regions. Areas whose weather is ingested.
+     */
+    private List<Region> regions =
+            new ArrayList<>(List.of(new Region("atlanta", "-85.6898,30.1588,-80.8209,35.1475")));
+
+    /**
+     * tile-degrees. Regions larger than this on either side are split into tiles that are fetched concurrently.
+     */
+    private double tileDegrees = DEFAULT_TILE_DEGREES;
+
+    /**
+     * max-concurrent-fetches. Upper bound on feed requests in flight at once.
+     */
+    private int maxConcurrentFetches = DEFAULT_MAX_CONCURRENT_FETCHES;
+
+    /**
+     * virtual-threads. Runs request handling, the refresh jobs and history writes on virtual threads instead of
+     * platform thread pools.
+     */
+    private boolean virtualThreads;
+
+    /**
+     * Ingest region.
+     */
+    @Getter
+    @Setter
+    public static class Region {
+
+        /**
+         * Name.
+         */
+        private String name;
+
+        /**
+         * Bounding box: minLon,minLat,maxLon,maxLat in decimal degrees.
+         */
+        private String bbox;
+
+        /**
+         * Initializes an instance of <code>Region</code>.
+         */
+        public Region() {
+            // Bound from configuration
+        }
+
+        /**
+         * Initializes an instance of <code>Region</code>.
+         *
+         * @param regionName name
+         * @param boundingBox minLon,minLat,maxLon,maxLat
+         */
+        public Region(final String regionName, final String boundingBox) {
+            name = regionName;
+            bbox = boundingBox;
+        }
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.controller;
+
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.Alert;
+import com.starfireaviation.weather.model.AlertRule;
+import com.starfireaviation.weather.service.AlertRuleEngine;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Alert rule and alert endpoints.
+ */
+@RestController
+@RequestMapping("/alerts")
+public class AlertController {
+
+    /**
+     * AlertRuleEngine.
+     */
+    private final AlertRuleEngine alertRuleEngine;
+
+    /**
+     * Initializes an instance of <code>AlertController</code>.
+     *
+     * @param engine AlertRuleEngine
+     */
+    public AlertController(final AlertRuleEngine engine) {
+        alertRuleEngine = engine;
+    }
+
+    /**
+     * Retrieves recently fired alerts, newest first.
+     *
+     * @param station station identifier, every station if omitted
+     * @param since ISO-8601 instant; only alerts fired at or after it are returned
+     * @return list of Alert
+     * @throws InvalidPayloadException when the time is not valid
+     */
+    @GetMapping
+    public List<Alert> getAlerts(@RequestParam(value = "station", required = false) final String station,
+                                 @RequestParam(value = "since", required = false) final String since)
+            throws InvalidPayloadException {
+        Instant time = null;
+        if (since != null) {
+            try {
+                time = Instant.parse(since);
+            } catch (DateTimeParseException e) {
+                throw new InvalidPayloadException(String.format("Invalid time [%s]", since));
+            }
+        }
+        return alertRuleEngine.getAlerts(normalize(station), time);
+    }
+
+    /**
+     * Retrieves the alerts of the rules the current observations meet.
+     *
+     * @param station station identifier, every station if omitted
+     * @return list of Alert
+     */
+    @GetMapping("/active")
+    public List<Alert> getActiveAlerts(@RequestParam(value = "station", required = false) final String station) {
+        return alertRuleEngine.getActiveAlerts(normalize(station));
+    }
+
+    /**
+     * Retrieves every alert rule.
+     *
+     * @return list of AlertRule
+     */
+    @GetMapping("/rules")
+    public List<AlertRule> getRules() {
+        return alertRuleEngine.getRules();
+    }
+
+    /**
+     * Creates an alert rule. It is evaluated against the station's current observation right away.
+     *
+     * @param rule AlertRule
+     * @return created AlertRule, with its ID
+     * @throws InvalidPayloadException when the rule is not valid
+     */
+    @PostMapping("/rules")
+    @ResponseStatus(HttpStatus.CREATED)
+    public AlertRule addRule(@RequestBody final AlertRule rule) throws InvalidPayloadException {
+        return alertRuleEngine.addRule(rule);
+    }
+
+    /**
+     * Deletes an alert rule.
+     *
+     * @param id rule ID
+     * @throws ResourceNotFoundException when there is no such rule
+     */
+    @DeleteMapping("/rules/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void removeRule(@PathVariable("id") final String id) throws ResourceNotFoundException {
+        alertRuleEngine.removeRule(id);
+    }
+
+    /**
+     * Normalizes an optional station identifier.
+     *
+     * @param station station identifier, or null
+     * @return upper case identifier, or null
+     */
+    private static String normalize(final String station) {
+        if (station == null) {
+            return null;
+        }
+        return station.trim().toUpperCase(Locale.ROOT);
+    }
+
+}
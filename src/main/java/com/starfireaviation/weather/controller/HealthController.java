@@ -16,7 +16,11 @@
 
 package com.starfireaviation.weather.controller;
 
+import com.starfireaviation.weather.service.MetarFeedHealthIndicator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,12 +31,29 @@ import org.springframework.web.bind.annotation.RestController;
 public class HealthController {
 
     /**
-     * Endpoint to test application.
+     * METAR feed health.
+     */
+    private final MetarFeedHealthIndicator metarFeedHealth;
+
+    /**
+     * Initializes an instance of <code>HealthController</code>.
+     *
+     * @param feedHealth MetarFeedHealthIndicator
+     */
+    public HealthController(final MetarFeedHealthIndicator feedHealth) {
+        metarFeedHealth = feedHealth;
+    }
+
+    /**
+     * Endpoint to test application. Answers 503 when the METAR feed is stale; details are on /actuator/health.
      *
-     * @return success
+     * @return OK, or STALE
      */
     @GetMapping()
-    public String health() {
-        return "OK";
+    public ResponseEntity<String> health() {
+        if (Status.UP.equals(metarFeedHealth.health().getStatus())) {
+            return ResponseEntity.ok("OK");
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("STALE");
     }
 }
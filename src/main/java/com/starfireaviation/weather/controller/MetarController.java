@@ -0,0 +1,272 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.controller;
+
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.ArchiveSummary;
+import com.starfireaviation.weather.exception.ServiceUnavailableException;
+import com.starfireaviation.weather.service.MetarProjection;
+import com.starfireaviation.weather.service.MetarStreamService;
+import com.starfireaviation.weather.service.RenderedMetarCache;
+import com.starfireaviation.weather.service.WeatherService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * METAR query endpoints.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/metar")
+public class MetarController {
+
+    /**
+     * Number of values in a bounding box.
+     */
+    private static final int BBOX_VALUES = 4;
+
+    /**
+     * Index of the western edge in a bounding box.
+     */
+    private static final int BBOX_MIN_LON = 0;
+
+    /**
+     * Index of the southern edge in a bounding box.
+     */
+    private static final int BBOX_MIN_LAT = 1;
+
+    /**
+     * Index of the eastern edge in a bounding box.
+     */
+    private static final int BBOX_MAX_LON = 2;
+
+    /**
+     * Index of the northern edge in a bounding box.
+     */
+    private static final int BBOX_MAX_LAT = 3;
+
+    /**
+     * WeatherService.
+     */
+    private final WeatherService weatherService;
+
+    /**
+     * Rendered single-station responses.
+     */
+    private final RenderedMetarCache renderedMetarCache;
+
+    /**
+     * METAR update stream.
+     */
+    private final MetarStreamService metarStreamService;
+
+    /**
+     * Initializes an instance of <code>MetarController</code>.
+     *
+     * @param service WeatherService
+     * @param renderCache RenderedMetarCache
+     * @param streamService MetarStreamService
+     */
+    public MetarController(final WeatherService service, final RenderedMetarCache renderCache,
+                           final MetarStreamService streamService) {
+        weatherService = service;
+        renderedMetarCache = renderCache;
+        metarStreamService = streamService;
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of METARs for a list of stations or a bounding box. The current observations
+     * are sent first, then each changed observation as a "metar" event.
+     *
+     * @param stations comma separated station identifiers
+     * @param bbox minLon,minLat,maxLon,maxLat in decimal degrees
+     * @return text/event-stream response
+     * @throws InvalidPayloadException when neither valid stations nor a valid box is given
+     * @throws ServiceUnavailableException when the subscriber limit is reached
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<ResponseBodyEmitter> streamMETARs(
+            @RequestParam(value = "stations", required = false) final List<String> stations,
+            @RequestParam(value = "bbox", required = false) final List<Double> bbox)
+            throws InvalidPayloadException, ServiceUnavailableException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header("Cache-Control", "no-cache")
+                .body(metarStreamService.subscribe(stations, bbox));
+    }
+
+    /**
+     * Retrieves the current METARs for every station inside a bounding box.
+     *
+     * @param bbox minLon,minLat,maxLon,maxLat in decimal degrees
+     * @param data attributes to be returned, all if omitted
+     * @return list of METAR
+     * @throws InvalidPayloadException when the box is not valid
+     */
+    @GetMapping("/bbox")
+    public JsonSerializable getMETARsInBox(@RequestParam("bbox") final List<Double> bbox,
+                                           @RequestParam(value = "data", required = false) final List<String> data)
+            throws InvalidPayloadException {
+        if (bbox.size() != BBOX_VALUES || bbox.contains(null)) {
+            throw new InvalidPayloadException("Bounding box must be minLon,minLat,maxLon,maxLat");
+        }
+        return MetarProjection.compile(data).view(weatherService.getMETARsInBox(
+                bbox.get(BBOX_MIN_LAT), bbox.get(BBOX_MIN_LON), bbox.get(BBOX_MAX_LAT), bbox.get(BBOX_MAX_LON)));
+    }
+
+    /**
+     * Retrieves the current METARs for every station within a distance of a point, nearest first.
+     *
+     * @param lat latitude, in decimal degrees
+     * @param lon longitude, in decimal degrees
+     * @param nm radius, in nautical miles
+     * @param data attributes to be returned, all if omitted
+     * @return list of METAR
+     * @throws InvalidPayloadException when the point or radius is not valid
+     */
+    @GetMapping("/radius")
+    public JsonSerializable getMETARsWithin(@RequestParam("lat") final double lat,
+                                            @RequestParam("lon") final double lon,
+                                            @RequestParam("nm") final double nm,
+                                            @RequestParam(value = "data", required = false) final List<String> data)
+            throws InvalidPayloadException {
+        return MetarProjection.compile(data).view(weatherService.getMETARsWithin(lat, lon, nm));
+    }
+
+    /**
+     * Retrieves the current METARs of the stations nearest to a point or to a station, with their distance.
+     *
+     * @param lat latitude, in decimal degrees, when no station is given
+     * @param lon longitude, in decimal degrees, when no station is given
+     * @param station station identifier whose neighbours are wanted
+     * @param count number of stations
+     * @param data attributes to be returned, all if omitted
+     * @return list of METAR with distance_nm, nearest first
+     * @throws InvalidPayloadException when neither a valid point nor a known station is given
+     */
+    @GetMapping("/nearest")
+    public JsonSerializable getNearestMETARs(@RequestParam(value = "lat", required = false) final Double lat,
+                                             @RequestParam(value = "lon", required = false) final Double lon,
+                                             @RequestParam(value = "station", required = false) final String station,
+                                             @RequestParam(value = "count", defaultValue = "5") final int count,
+                                             @RequestParam(value = "data", required = false) final List<String> data)
+            throws InvalidPayloadException {
+        final MetarProjection projection = MetarProjection.compile(data);
+        if (station != null) {
+            return projection.viewNearby(
+                    weatherService.getNearestMETARs(station.trim().toUpperCase(Locale.ROOT), count));
+        }
+        if (lat == null || lon == null) {
+            throw new InvalidPayloadException("Either lat and lon or station must be provided");
+        }
+        return projection.viewNearby(weatherService.getNearestMETARs(lat, lon, count));
+    }
+
+    /**
+     * Retrieves the current METAR for a station. The response is served from pre-rendered bytes with a strong ETag
+     * and the observation time as Last-Modified; a matching If-None-Match or If-Modified-Since is answered with 304.
+     *
+     * @param icao station identifier
+     * @param data attributes to be returned, all if omitted
+     * @return METAR, or an empty 304 response
+     * @throws ResourceNotFoundException when the station has no observation
+     * @throws InvalidPayloadException when the station is not an accepted station
+     * @throws IOException when the METAR cannot be rendered
+     */
+    @GetMapping("/{icao}")
+    public ResponseEntity<byte[]> getMETAR(@PathVariable("icao") final String icao,
+                                           @RequestParam(value = "data", required = false) final List<String> data)
+            throws ResourceNotFoundException, InvalidPayloadException, IOException {
+        final RenderedMetarCache.RenderedMETAR rendered = renderedMetarCache.get(
+                weatherService.getCachedMETAR(icao.toUpperCase(Locale.ROOT)), MetarProjection.compile(data));
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(rendered.getEtag());
+        if (rendered.getLastModified() >= 0) {
+            response.lastModified(rendered.getLastModified());
+        }
+        return response.body(rendered.getBody());
+    }
+
+    /**
+     * Retrieves the observations of a station over the past hours, oldest first.
+     *
+     * @param icao station identifier
+     * @param hours length of the period, in hours
+     * @param data attributes to be returned, all if omitted
+     * @return list of METAR
+     * @throws InvalidPayloadException when the station or period is not valid
+     */
+    @GetMapping("/{icao}/history")
+    public JsonSerializable getMETARHistory(@PathVariable("icao") final String icao,
+                                            @RequestParam(value = "hours", defaultValue = "24") final int hours,
+                                            @RequestParam(value = "data", required = false) final List<String> data)
+            throws InvalidPayloadException {
+        return MetarProjection.compile(data).view(weatherService.getMETARHistory(icao.toUpperCase(Locale.ROOT),
+                hours));
+    }
+
+    /**
+     * Aggregates the archived observations of a station over the past days.
+     *
+     * @param icao station identifier
+     * @param days length of the period, in days
+     * @return ArchiveSummary
+     * @throws InvalidPayloadException when the station or period is not valid
+     * @throws IOException when the archive cannot be read
+     */
+    @GetMapping("/{icao}/summary")
+    public ArchiveSummary getMETARSummary(@PathVariable("icao") final String icao,
+                                          @RequestParam(value = "days", defaultValue = "30") final int days)
+            throws InvalidPayloadException, IOException {
+        return weatherService.getMETARSummary(icao.toUpperCase(Locale.ROOT), days);
+    }
+
+    /**
+     * Retrieves the current METARs for a list of stations. Stations without an observation are omitted.
+     *
+     * @param stations comma separated station identifiers
+     * @param data attributes to be returned, all if omitted
+     * @return list of METAR
+     * @throws InvalidPayloadException when a station is not an accepted station
+     */
+    @GetMapping
+    public JsonSerializable getMETARs(@RequestParam("stations") final List<String> stations,
+                                      @RequestParam(value = "data", required = false) final List<String> data)
+            throws InvalidPayloadException {
+        final List<String> icaoCodes = new ArrayList<>(stations.size());
+        for (final String station : stations) {
+            icaoCodes.add(station.trim().toUpperCase(Locale.ROOT));
+        }
+        return MetarProjection.compile(data).view(weatherService.getMETARs(icaoCodes));
+    }
+
+}
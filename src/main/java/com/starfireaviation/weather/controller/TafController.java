@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.controller;
+
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.ForecastPeriod;
+import com.starfireaviation.weather.model.TAF;
+import com.starfireaviation.weather.service.TafService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * TAF query endpoints.
+ */
+@RestController
+@RequestMapping("/taf")
+public class TafController {
+
+    /**
+     * TafService.
+     */
+    private final TafService tafService;
+
+    /**
+     * Initializes an instance of <code>TafController</code>.
+     *
+     * @param service TafService
+     */
+    public TafController(final TafService service) {
+        tafService = service;
+    }
+
+    /**
+     * Retrieves the current TAF for a station, with all of its periods.
+     *
+     * @param icao station identifier
+     * @return TAF
+     * @throws ResourceNotFoundException when the station has no forecast
+     * @throws InvalidPayloadException when the station is not an accepted station
+     */
+    @GetMapping("/{icao}")
+    public TAF getTAF(@PathVariable("icao") final String icao)
+            throws ResourceNotFoundException, InvalidPayloadException {
+        return tafService.getTAF(icao.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Retrieves the prevailing forecast period for a station at a given time.
+     *
+     * @param icao station identifier
+     * @param at ISO-8601 instant, e.g. 2022-10-08T18:00:00Z; now if omitted
+     * @return ForecastPeriod
+     * @throws ResourceNotFoundException when the station has no forecast covering the time
+     * @throws InvalidPayloadException when the station or time is not valid
+     */
+    @GetMapping("/{icao}/period")
+    public ForecastPeriod getForecastPeriod(@PathVariable("icao") final String icao,
+                                            @RequestParam(value = "at", required = false) final String at)
+            throws ResourceNotFoundException, InvalidPayloadException {
+        Instant time = Instant.now();
+        if (at != null) {
+            try {
+                time = Instant.parse(at);
+            } catch (DateTimeParseException e) {
+                throw new InvalidPayloadException(String.format("Invalid time [%s]", at));
+            }
+        }
+        return tafService.getForecastPeriod(icao.toUpperCase(Locale.ROOT), time);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+/**
+ * Alert fired when an observation starts to meet the conditions of an {@link AlertRule}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+public class Alert {
+
+    /**
+     * ID of the rule that fired.
+     */
+    @JsonProperty("rule_id")
+    private final String ruleId;
+
+    /**
+     * Name of the rule that fired.
+     */
+    @JsonProperty("rule_name")
+    private final String ruleName;
+
+    /**
+     * ICAO Code.
+     */
+    private final String icao;
+
+    /**
+     * Observation time of the observation that fired the rule.
+     */
+    private final String observed;
+
+    /**
+     * Conditions that held, e.g. ceiling_ft &lt; 1000.
+     */
+    private final String reason;
+
+    /**
+     * Raw text of the observation that fired the rule.
+     */
+    @JsonProperty("raw_text")
+    private final String rawText;
+
+    /**
+     * Time the alert fired.
+     */
+    private final String fired;
+
+    /**
+     * Initializes an instance of <code>Alert</code>.
+     *
+     * @param rule rule that fired
+     * @param observedAt observation time
+     * @param conditions conditions that held
+     * @param raw raw observation text
+     * @param firedAt time the alert fired
+     */
+    public Alert(final AlertRule rule, final String observedAt, final String conditions, final String raw,
+                 final String firedAt) {
+        ruleId = rule.getId();
+        ruleName = rule.getName();
+        icao = rule.getStation();
+        observed = observedAt;
+        reason = conditions;
+        rawText = raw;
+        fired = firedAt;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * User-defined weather minimums for a station, e.g. ceiling_ft &lt; 1000 or gust_kt &gt; 25 at KPDK.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+public class AlertRule {
+
+    /**
+     * Fire when any condition holds.
+     */
+    public static final String MATCH_ANY = "any";
+
+    /**
+     * Fire when every condition holds.
+     */
+    public static final String MATCH_ALL = "all";
+
+    /**
+     * Rule ID; assigned when the rule is created.
+     */
+    private String id;
+
+    /**
+     * Name.
+     */
+    private String name;
+
+    /**
+     * ICAO code of the station the rule watches.
+     */
+    private String station;
+
+    /**
+     * How conditions combine: any (default) or all.
+     */
+    private String match;
+
+    /**
+     * Conditions.
+     */
+    private List<Condition> conditions;
+
+    /**
+     * Comparison of one observed value against a limit.
+     */
+    @Getter
+    @Setter
+    public static class Condition {
+
+        /**
+         * Observed value: ceiling_ft, visibility_sm, wind_kt, gust_kt, temperature_c, dewpoint_c, spread_c or
+         * flight_category.
+         */
+        private String field;
+
+        /**
+         * Operator: &lt;, &lt;=, &gt;, &gt;=, == or !=.
+         */
+        private String op;
+
+        /**
+         * Limit; a number, or VFR, MVFR, IFR or LIFR for flight_category.
+         */
+        private String value;
+    }
+
+}
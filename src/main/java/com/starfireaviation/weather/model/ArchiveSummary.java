@@ -0,0 +1,117 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Aggregates of a station's archived observations over a time range.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+public class ArchiveSummary {
+
+    /**
+     * ICAO Code.
+     */
+    private String icao;
+
+    /**
+     * Start of the range.
+     */
+    private String from;
+
+    /**
+     * End of the range.
+     */
+    private String to;
+
+    /**
+     * Number of observations in the range.
+     */
+    private int observations;
+
+    /**
+     * Temperature, in degrees Celsius.
+     */
+    private ValueSummary temperature;
+
+    /**
+     * Dewpoint, in degrees Celsius.
+     */
+    private ValueSummary dewpoint;
+
+    /**
+     * Pressure, in millibars.
+     */
+    private ValueSummary pressure;
+
+    /**
+     * Number of observations per flight category.
+     */
+    @JsonProperty("flight_categories")
+    private Map<String, Integer> flightCategories;
+
+    /**
+     * Minimum, maximum and mean of a reported value.
+     */
+    @Getter
+    public static class ValueSummary {
+
+        /**
+         * Number of observations reporting the value.
+         */
+        private final int count;
+
+        /**
+         * Minimum.
+         */
+        private final double min;
+
+        /**
+         * Maximum.
+         */
+        private final double max;
+
+        /**
+         * Mean.
+         */
+        private final double mean;
+
+        /**
+         * Initializes an instance of <code>ValueSummary</code>.
+         *
+         * @param reported number of observations reporting the value
+         * @param minimum minimum
+         * @param maximum maximum
+         * @param average mean
+         */
+        public ValueSummary(final int reported, final double minimum, final double maximum, final double average) {
+            count = reported;
+            min = minimum;
+            max = maximum;
+            mean = average;
+        }
+    }
+
+}
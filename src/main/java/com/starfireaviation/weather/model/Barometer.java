@@ -40,11 +40,6 @@ public class Barometer implements Serializable {
      */
     private Double hg;
 
-    /**
-     * Kilopascals.
-     */
-    private Double kpa;
-
     /**
      * Millibars.
      */
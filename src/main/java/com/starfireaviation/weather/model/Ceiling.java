@@ -16,6 +16,7 @@
 
 package com.starfireaviation.weather.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
@@ -25,6 +26,7 @@ import java.io.Serializable;
 /**
  * Ceiling.
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Getter
 @Setter
 public class Ceiling implements Serializable {
@@ -62,22 +64,4 @@ public class Ceiling implements Serializable {
     @JsonProperty("base_feet_agl")
     private Double baseFeetAgl;
 
-    /**
-     * Meters AGL.
-     */
-    @JsonProperty("meters_agl")
-    private Double metersAgl;
-
-    /**
-     * Base Meters AGL.
-     */
-    @JsonProperty("base_meters_agl")
-    private Double baseMetersAgl;
-
-    /**
-     * Meters.
-     */
-    @JsonProperty("meters")
-    private Double meters;
-
 }
@@ -16,7 +16,6 @@
 
 package com.starfireaviation.weather.model;
 
-
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
@@ -43,12 +42,6 @@ public class Cloud implements Serializable {
     @JsonProperty("base_feet_agl")
     private Double baseFeetAgl;
 
-    /**
-     * Base Meters AGL.
-     */
-    @JsonProperty("base_meters_agl")
-    private Double baseMetersAgl;
-
     /**
      * Code.
      */
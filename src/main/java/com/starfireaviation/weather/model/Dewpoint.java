@@ -40,9 +40,4 @@ public class Dewpoint implements Serializable {
      */
     private Long celsius;
 
-    /**
-     * Fahrenheit.
-     */
-    private Long fahrenheit;
-
 }
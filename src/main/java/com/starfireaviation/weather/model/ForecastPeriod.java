@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A single period of a Terminal Aerodrome Forecast.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+public class ForecastPeriod implements Serializable {
+
+    /**
+     * FM change indicator.
+     */
+    public static final String FROM = "FM";
+
+    /**
+     * BECMG change indicator.
+     */
+    public static final String BECOMING = "BECMG";
+
+    /**
+     * TEMPO change indicator.
+     */
+    public static final String TEMPORARY = "TEMPO";
+
+    /**
+     * PROB change indicator.
+     */
+    public static final String PROBABILITY = "PROB";
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Change indicator (FM, BECMG, TEMPO or PROB); absent for the initial period.
+     */
+    private String change;
+
+    /**
+     * Probability percent of a PROB period.
+     */
+    private Integer probability;
+
+    /**
+     * Start of the period.
+     */
+    private String from;
+
+    /**
+     * End of the period.
+     */
+    private String to;
+
+    /**
+     * Wind.
+     */
+    private Wind wind;
+
+    /**
+     * Visibility.
+     */
+    private Visibility visibility;
+
+    /**
+     * Present weather, e.g. -RA BR.
+     */
+    private String weather;
+
+    /**
+     * list of Clouds.
+     */
+    private List<Cloud> clouds;
+
+    /**
+     * Checks if the period replaces the prevailing conditions, as opposed to describing temporary or probable
+     * deviations from them.
+     *
+     * @return true for the initial, FM and BECMG periods
+     */
+    @JsonIgnore
+    public boolean isPrevailing() {
+        return !TEMPORARY.equals(change) && !PROBABILITY.equals(change) && probability == null;
+    }
+
+}
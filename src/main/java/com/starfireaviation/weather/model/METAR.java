@@ -84,7 +84,7 @@ public class METAR {
     public static final String FLIGHT_CATEGORY = "flight_category";
 
     /**
-     * HUMIDITY_PERCENT.
+     * HUMIDITY_PERCENT. Derived from temperature and dewpoint; written only when requested.
      */
     public static final String HUMIDITY_PERCENT = "humidity_percent";
 
@@ -103,6 +103,36 @@ public class METAR {
      */
     public static final String WIND = "wind";
 
+    /**
+     * UNITS. Adds values converted to other units, and the relative humidity, to the selected attributes.
+     */
+    public static final String UNITS = "units";
+
+    /**
+     * LOCATION. Selects both LATITUDE and LONGITUDE.
+     */
+    public static final String LOCATION = "location";
+
+    /**
+     * LATITUDE.
+     */
+    public static final String LATITUDE = "latitude";
+
+    /**
+     * LONGITUDE.
+     */
+    public static final String LONGITUDE = "longitude";
+
+    /**
+     * REPORT_TYPE.
+     */
+    public static final String REPORT_TYPE = "report_type";
+
+    /**
+     * Report type of an unscheduled special observation.
+     */
+    public static final String SPECI = "SPECI";
+
     /**
      * Default SerialVersionUID.
      */
@@ -129,6 +159,12 @@ public class METAR {
     @JsonProperty("raw_text")
     private String rawText;
 
+    /**
+     * Report type, METAR or SPECI.
+     */
+    @JsonProperty(REPORT_TYPE)
+    private String reportType;
+
     /**
      * Barometer.
      */
@@ -160,12 +196,6 @@ public class METAR {
     @JsonProperty("flight_category")
     private String flightCategory;
 
-    /**
-     * Humidity Percent.
-     */
-    @JsonProperty("humidity_percent")
-    private String humidityPercent;
-
     /**
      * Temperature.
      */
@@ -181,4 +211,14 @@ public class METAR {
      */
     private Wind wind;
 
+    /**
+     * Station latitude, in decimal degrees.
+     */
+    private Double latitude;
+
+    /**
+     * Station longitude, in decimal degrees.
+     */
+    private Double longitude;
+
 }
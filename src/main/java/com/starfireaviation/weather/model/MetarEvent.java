@@ -0,0 +1,105 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * Change detected between two consecutive observations of a station.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+public class MetarEvent {
+
+    /**
+     * Event type.
+     */
+    public enum Type {
+
+        /**
+         * Flight category changed, e.g. VFR to IFR.
+         */
+        FLIGHT_CATEGORY_CHANGED,
+
+        /**
+         * Unscheduled special observation issued.
+         */
+        SPECI,
+
+        /**
+         * Ceiling crossed a threshold, in feet.
+         */
+        CEILING_THRESHOLD_CROSSED,
+
+        /**
+         * Visibility crossed a threshold, in statute miles.
+         */
+        VISIBILITY_THRESHOLD_CROSSED
+    }
+
+    /**
+     * Event type.
+     */
+    private final Type type;
+
+    /**
+     * ICAO Code.
+     */
+    private final String icao;
+
+    /**
+     * Observation time of the new observation.
+     */
+    private final String observed;
+
+    /**
+     * Previous value.
+     */
+    private final String from;
+
+    /**
+     * New value.
+     */
+    private final String to;
+
+    /**
+     * Threshold crossed, for threshold events.
+     */
+    private final Double threshold;
+
+    /**
+     * Initializes an instance of <code>MetarEvent</code>.
+     *
+     * @param eventType event type
+     * @param station ICAO code
+     * @param observedAt observation time of the new observation
+     * @param previous previous value, may be null
+     * @param current new value, may be null
+     * @param limit threshold crossed, may be null
+     */
+    public MetarEvent(final Type eventType, final String station, final String observedAt, final String previous,
+                      final String current, final Double limit) {
+        type = eventType;
+        icao = station;
+        observed = observedAt;
+        from = previous;
+        to = current;
+        threshold = limit;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A single historical METAR observation. Rows are only ever inserted, never updated, and are read by station and
+ * observation time range through the composite index.
+ */
+@Entity
+@Table(name = "METAR_OBSERVATION",
+        indexes = @Index(name = "IDX_METAR_OBSERVATION_STATION_TIME", columnList = "station, observed_at"))
+@Getter
+@Setter
+public class MetarObservation implements Serializable {
+
+    /**
+     * Station identifier length.
+     */
+    private static final int STATION_LENGTH = 10;
+
+    /**
+     * Maximum serialized observation length.
+     */
+    private static final int MAX_VALUE_LENGTH = 4000;
+
+    /**
+     * Number of IDs reserved per sequence call; matches the JDBC batch size so inserts can be batched.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "metar_observation_seq")
+    @SequenceGenerator(name = "metar_observation_seq", sequenceName = "METAR_OBSERVATION_SEQ",
+            allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * Station ICAO code.
+     */
+    @Column(name = "station", length = STATION_LENGTH, nullable = false, updatable = false)
+    private String station;
+
+    /**
+     * Observation time.
+     */
+    @Column(name = "observed_at", nullable = false, updatable = false)
+    private Date observedAt;
+
+    /**
+     * Serialized METAR.
+     */
+    @Column(name = "v", length = MAX_VALUE_LENGTH, nullable = false, updatable = false)
+    private String value;
+
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * MetarObservationRepository.
+ */
+public interface MetarObservationRepository extends Repository<MetarObservation, Long> {
+
+    /**
+     * Gets the observations of a station within a time range, oldest first. Observations sharing a time (corrected
+     * reports) are returned in the order they were recorded.
+     *
+     * @param station ICAO code
+     * @param from start of the range, inclusive
+     * @param to end of the range, inclusive
+     * @return list of MetarObservation
+     */
+    List<MetarObservation> findByStationAndObservedAtBetweenOrderByObservedAtAscIdAsc(String station, Date from,
+                                                                                       Date to);
+
+    /**
+     * Saves a batch of observations.
+     *
+     * @param observations MetarObservations
+     * @return saved MetarObservations
+     */
+    List<MetarObservation> saveAll(Iterable<MetarObservation> observations);
+
+    /**
+     * Deletes every observation older than a cutoff in a single statement.
+     *
+     * @param cutoff oldest observation time kept
+     * @return number of deleted observations
+     */
+    @Modifying
+    @Query("delete from MetarObservation o where o.observedAt < :cutoff")
+    int deleteObservedBefore(@Param("cutoff") Date cutoff);
+
+}
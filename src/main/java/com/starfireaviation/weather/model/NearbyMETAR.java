@@ -0,0 +1,57 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.Getter;
+
+/**
+ * METAR of a station near a requested point, with the station's distance from it.
+ */
+@Getter
+public class NearbyMETAR {
+
+    /**
+     * DISTANCE_NM.
+     */
+    public static final String DISTANCE_NM = "distance_nm";
+
+    /**
+     * METAR.
+     */
+    @JsonUnwrapped
+    private final METAR metar;
+
+    /**
+     * Distance from the requested point, in nautical miles.
+     */
+    @JsonProperty(DISTANCE_NM)
+    private final double distanceNm;
+
+    /**
+     * Initializes an instance of <code>NearbyMETAR</code>.
+     *
+     * @param observation METAR
+     * @param distance distance in nautical miles
+     */
+    public NearbyMETAR(final METAR observation, final double distance) {
+        metar = observation;
+        distanceNm = distance;
+    }
+
+}
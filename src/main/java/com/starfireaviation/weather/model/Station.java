@@ -0,0 +1,61 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Reporting station metadata.
+ */
+@Getter
+@Setter
+public class Station implements Serializable {
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ICAO Code.
+     */
+    private String icao;
+
+    /**
+     * Name.
+     */
+    private String name;
+
+    /**
+     * Elevation.
+     */
+    private Elevation elevation;
+
+    /**
+     * Latitude, in decimal degrees.
+     */
+    private Double latitude;
+
+    /**
+     * Longitude, in decimal degrees.
+     */
+    private Double longitude;
+
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Terminal Aerodrome Forecast.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+public class TAF implements Serializable {
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ICAO Code.
+     */
+    private String icao;
+
+    /**
+     * Name.
+     */
+    private String name;
+
+    /**
+     * Issued.
+     */
+    private String issued;
+
+    /**
+     * Start of the validity period.
+     */
+    @JsonProperty("valid_from")
+    private String validFrom;
+
+    /**
+     * End of the validity period.
+     */
+    @JsonProperty("valid_to")
+    private String validTo;
+
+    /**
+     * Raw Text.
+     */
+    @JsonProperty("raw_text")
+    private String rawText;
+
+    /**
+     * Station latitude, in decimal degrees.
+     */
+    private Double latitude;
+
+    /**
+     * Station longitude, in decimal degrees.
+     */
+    private Double longitude;
+
+    /**
+     * Forecast periods, in the order they appear in the forecast.
+     */
+    private List<ForecastPeriod> periods;
+
+}
@@ -40,9 +40,4 @@ public class Temperature implements Serializable {
      */
     private Long celsius;
 
-    /**
-     * Fahrenheit.
-     */
-    private Long fahrenheit;
-
 }
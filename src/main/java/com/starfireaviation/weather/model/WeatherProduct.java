@@ -27,6 +27,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import java.io.Serializable;
 import java.util.Date;
@@ -35,7 +37,7 @@ import java.util.Date;
  * WeatherProduct.
  */
 @Entity
-@Table(name = "WEATHER_PRODUCT")
+@Table(name = "WEATHER_PRODUCT", indexes = @Index(name = "IDX_WEATHER_PRODUCT_K", columnList = "k", unique = true))
 @JsonIgnoreProperties(
         value = {
                 "createdAt", "updatedAt"
@@ -51,9 +53,14 @@ public class WeatherProduct implements Serializable {
     private static final int ONE_HUNDRED = 100;
 
     /**
-     * Four Thousand.
+     * Maximum serialized product length; multi-period TAFs exceed the 4000 characters that suffice for a METAR.
      */
-    private static final int FOUR_THOUSAND = 4000;
+    private static final int MAX_VALUE_LENGTH = 16000;
+
+    /**
+     * Number of IDs reserved per sequence call; matches the JDBC batch size so inserts can be batched.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
 
     /**
      * Default SerialVersionUID.
@@ -64,7 +71,9 @@ public class WeatherProduct implements Serializable {
      * ID.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_product_seq")
+    @SequenceGenerator(name = "weather_product_seq", sequenceName = "WEATHER_PRODUCT_SEQ",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -88,11 +97,17 @@ public class WeatherProduct implements Serializable {
     private String key;
 
     /**
-     * Value.
+     * Legacy JSON value; only set on rows written before the binary column existed.
      */
-    @Column(name = "v", length = FOUR_THOUSAND)
+    @Column(name = "v", length = MAX_VALUE_LENGTH)
     private String value;
 
+    /**
+     * Encoded value, prefixed with the format id of the codec that wrote it.
+     */
+    @Column(name = "b", length = MAX_VALUE_LENGTH)
+    private byte[] binaryValue;
+
     /**
      * Initializes an instance of <code>WeatherProduct</code> with the default data.
      */
@@ -18,6 +18,8 @@ package com.starfireaviation.weather.model;
 
 import org.springframework.data.repository.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,6 +34,22 @@ public interface WeatherProductRepository extends Repository<WeatherProduct, Lon
      */
     Optional<WeatherProduct> findByKey(String key);
 
+    /**
+     * Gets all weather products whose key starts with the given prefix.
+     *
+     * @param prefix Key prefix
+     * @return list of WeatherProduct
+     */
+    List<WeatherProduct> findByKeyStartingWith(String prefix);
+
+    /**
+     * Gets the weather products for a set of keys.
+     *
+     * @param keys Keys
+     * @return list of WeatherProduct
+     */
+    List<WeatherProduct> findByKeyIn(Collection<String> keys);
+
     /**
      * Saves a weather product.
      *
@@ -40,4 +58,12 @@ public interface WeatherProductRepository extends Repository<WeatherProduct, Lon
      */
     WeatherProduct save(WeatherProduct weatherProduct);
 
+    /**
+     * Saves a batch of weather products.
+     *
+     * @param weatherProducts WeatherProducts
+     * @return saved WeatherProducts
+     */
+    List<WeatherProduct> saveAll(Iterable<WeatherProduct> weatherProducts);
+
 }
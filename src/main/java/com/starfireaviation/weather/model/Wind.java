@@ -53,34 +53,10 @@ public class Wind implements Serializable {
     @JsonProperty("speed_kts")
     private Integer speedKts;
 
-    /**
-     * Speed MPH.
-     */
-    @JsonProperty("speed_mph")
-    private Integer speedMph;
-
-    /**
-     * Speed MPS.
-     */
-    @JsonProperty("speed_mps")
-    private Integer speedMps;
-
     /**
      * Gust Kt.
      */
     @JsonProperty("gust_kt")
     private Integer gustKt;
 
-    /**
-     * Gust MPH.
-     */
-    @JsonProperty("gust_mph")
-    private Integer gustMph;
-
-    /**
-     * Gust MPS.
-     */
-    @JsonProperty("gust_mps")
-    private Integer gustMps;
-
 }
@@ -0,0 +1,729 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.Alert;
+import com.starfireaviation.weather.model.AlertRule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates user-defined {@link AlertRule}s against incoming observations.
+ *
+ * Rules are compiled once and indexed by station and by the fields their conditions test. When a station's
+ * observation is replaced, only the rules of that station that test a field whose value changed are evaluated, against
+ * both the previous and the new observation; a rule fires when the new observation meets it and the previous one did
+ * not. The index is immutable and replaced as a whole when rules are added or removed, so evaluation never locks.
+ * Rules are held in memory.
+ */
+@Slf4j
+public class AlertRuleEngine implements MetarStore.Listener {
+
+    /**
+     * Largest number of conditions per rule.
+     */
+    private static final int MAX_CONDITIONS = 10;
+
+    /**
+     * Flight categories, from best to worst.
+     */
+    private static final List<String> FLIGHT_CATEGORIES = List.of("VFR", "MVFR", "IFR", "LIFR");
+
+    /**
+     * Current observations.
+     */
+    private final MetarStore metarStore;
+
+    /**
+     * Largest number of rules.
+     */
+    private final int maxRules;
+
+    /**
+     * Number of fired alerts kept.
+     */
+    private final int historySize;
+
+    /**
+     * Rules by ID, in creation order. Guarded by this.
+     */
+    private final Map<String, CompiledRule> rules = new LinkedHashMap<>();
+
+    /**
+     * Rules by station and tested field.
+     */
+    private volatile Map<String, Map<Field, CompiledRule[]>> index = Collections.emptyMap();
+
+    /**
+     * Alerts of the rules currently met, by rule ID.
+     */
+    private final Map<String, Alert> active = new ConcurrentHashMap<>();
+
+    /**
+     * Recently fired alerts, newest first. Guarded by itself.
+     */
+    private final Deque<Alert> recent = new ArrayDeque<>();
+
+    /**
+     * Rule ID sequence.
+     */
+    private final AtomicLong ruleIds = new AtomicLong();
+
+    /**
+     * Evaluation pass counter, used to evaluate a rule once per observation.
+     */
+    private long pass;
+
+    /**
+     * Initializes an instance of <code>AlertRuleEngine</code>.
+     *
+     * @param store MetarStore
+     * @param ruleLimit largest number of rules
+     * @param alertHistory number of fired alerts kept
+     */
+    public AlertRuleEngine(final MetarStore store, final int ruleLimit, final int alertHistory) {
+        metarStore = store;
+        maxRules = ruleLimit;
+        historySize = alertHistory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void published(final List<CompactMETAR> previous, final List<CompactMETAR> published) {
+        final Map<String, Map<Field, CompiledRule[]>> rulesByStation = index;
+        if (rulesByStation.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < published.size(); i++) {
+            final CompactMETAR current = published.get(i);
+            final Map<Field, CompiledRule[]> byField = rulesByStation.get(current.getIcao());
+            if (byField != null) {
+                evaluate(byField, previous.get(i), current);
+            }
+        }
+    }
+
+    /**
+     * Adds a rule and evaluates it against the station's current observation.
+     *
+     * @param rule AlertRule; its ID is assigned
+     * @return created AlertRule
+     * @throws InvalidPayloadException when the rule is not valid or the rule limit is reached
+     */
+    public AlertRule addRule(final AlertRule rule) throws InvalidPayloadException {
+        final CompiledRule compiled = compile(rule);
+        synchronized (this) {
+            if (rules.size() >= maxRules) {
+                throw new InvalidPayloadException(String.format("At most %d alert rules may be defined", maxRules));
+            }
+            rule.setId(Long.toString(ruleIds.incrementAndGet()));
+            rules.put(rule.getId(), compiled);
+            rebuildIndex();
+        }
+        final CompactMETAR current = metarStore.get(rule.getStation());
+        if (current != null && compiled.matches(current)) {
+            fire(compiled, current);
+        }
+        return rule;
+    }
+
+    /**
+     * Removes a rule and its active alert.
+     *
+     * @param id rule ID
+     * @throws ResourceNotFoundException when there is no such rule
+     */
+    public void removeRule(final String id) throws ResourceNotFoundException {
+        synchronized (this) {
+            if (rules.remove(id) == null) {
+                throw new ResourceNotFoundException(String.format("Alert rule %s not found", id));
+            }
+            rebuildIndex();
+        }
+        active.remove(id);
+    }
+
+    /**
+     * Retrieves every rule.
+     *
+     * @return list of AlertRule, in creation order
+     */
+    public synchronized List<AlertRule> getRules() {
+        final List<AlertRule> list = new ArrayList<>(rules.size());
+        rules.values().forEach(compiled -> list.add(compiled.rule));
+        return list;
+    }
+
+    /**
+     * Retrieves the alerts of the rules currently met.
+     *
+     * @param station ICAO code, or null for every station
+     * @return list of Alert
+     */
+    public List<Alert> getActiveAlerts(final String station) {
+        final List<Alert> alerts = new ArrayList<>();
+        for (final Alert alert : active.values()) {
+            if (station == null || station.equals(alert.getIcao())) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Retrieves recently fired alerts, newest first.
+     *
+     * @param station ICAO code, or null for every station
+     * @param since earliest firing time, or null
+     * @return list of Alert
+     */
+    public List<Alert> getAlerts(final String station, final Instant since) {
+        final List<Alert> alerts = new ArrayList<>();
+        synchronized (recent) {
+            for (final Alert alert : recent) {
+                if (since != null && Instant.parse(alert.getFired()).isBefore(since)) {
+                    break;
+                }
+                if (station == null || station.equals(alert.getIcao())) {
+                    alerts.add(alert);
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Evaluates the rules of a station whose tested fields changed.
+     *
+     * @param byField rules of the station by tested field
+     * @param previous replaced observation, or null
+     * @param current new observation
+     */
+    private void evaluate(final Map<Field, CompiledRule[]> byField, final CompactMETAR previous,
+                          final CompactMETAR current) {
+        pass++;
+        for (final Map.Entry<Field, CompiledRule[]> entry : byField.entrySet()) {
+            final Field field = entry.getKey();
+            if (previous != null && Double.compare(field.value(previous), field.value(current)) == 0) {
+                continue;
+            }
+            for (final CompiledRule compiled : entry.getValue()) {
+                if (compiled.pass == pass) {
+                    continue;
+                }
+                compiled.pass = pass;
+                final boolean met = compiled.matches(current);
+                if (met && (previous == null || !compiled.matches(previous))) {
+                    fire(compiled, current);
+                } else if (!met) {
+                    active.remove(compiled.rule.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Fires a rule.
+     *
+     * @param compiled rule
+     * @param current observation that met it
+     */
+    private void fire(final CompiledRule compiled, final CompactMETAR current) {
+        final Alert alert = new Alert(compiled.rule, current.getObservedText(), compiled.reason(current),
+                current.getRawText(), Instant.now().toString());
+        active.put(compiled.rule.getId(), alert);
+        synchronized (recent) {
+            recent.addFirst(alert);
+            while (recent.size() > historySize) {
+                recent.removeLast();
+            }
+        }
+        log.info(String.format("Alert rule %s fired at %s: %s", compiled.rule.getId(), alert.getIcao(),
+                alert.getReason()));
+    }
+
+    /**
+     * Rebuilds the index from the rules. Called with this held.
+     */
+    private void rebuildIndex() {
+        final Map<String, Map<Field, List<CompiledRule>>> building = new HashMap<>();
+        for (final CompiledRule compiled : rules.values()) {
+            final Map<Field, List<CompiledRule>> byField =
+                    building.computeIfAbsent(compiled.rule.getStation(), station -> new EnumMap<>(Field.class));
+            for (final CompiledCondition condition : compiled.conditions) {
+                final List<CompiledRule> bucket = byField.computeIfAbsent(condition.field, f -> new ArrayList<>());
+                if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != compiled) {
+                    bucket.add(compiled);
+                }
+            }
+        }
+        final Map<String, Map<Field, CompiledRule[]>> next = new HashMap<>(building.size() * 2);
+        building.forEach((station, byField) -> {
+            final Map<Field, CompiledRule[]> fields = new EnumMap<>(Field.class);
+            byField.forEach((field, bucket) -> fields.put(field, bucket.toArray(new CompiledRule[0])));
+            next.put(station, fields);
+        });
+        index = next;
+    }
+
+    /**
+     * Validates and compiles a rule.
+     *
+     * @param rule AlertRule
+     * @return CompiledRule
+     * @throws InvalidPayloadException when the rule is not valid
+     */
+    private static CompiledRule compile(final AlertRule rule) throws InvalidPayloadException {
+        if (rule == null || rule.getStation() == null || rule.getStation().isBlank()) {
+            throw new InvalidPayloadException("Alert rule must name a station");
+        }
+        rule.setStation(rule.getStation().trim().toUpperCase(Locale.ROOT));
+        if (rule.getConditions() == null || rule.getConditions().isEmpty()
+                || rule.getConditions().size() > MAX_CONDITIONS) {
+            throw new InvalidPayloadException(String.format("Alert rule must have 1 to %d conditions",
+                    MAX_CONDITIONS));
+        }
+        boolean all = false;
+        if (AlertRule.MATCH_ALL.equalsIgnoreCase(rule.getMatch())) {
+            all = true;
+        } else if (rule.getMatch() != null && !AlertRule.MATCH_ANY.equalsIgnoreCase(rule.getMatch())) {
+            throw new InvalidPayloadException(String.format("Invalid match [%s]; use any or all", rule.getMatch()));
+        }
+        final CompiledCondition[] conditions = new CompiledCondition[rule.getConditions().size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = compile(rule.getConditions().get(i));
+        }
+        return new CompiledRule(rule, conditions, all);
+    }
+
+    /**
+     * Validates and compiles a condition.
+     *
+     * @param condition Condition
+     * @return CompiledCondition
+     * @throws InvalidPayloadException when the condition is not valid
+     */
+    private static CompiledCondition compile(final AlertRule.Condition condition) throws InvalidPayloadException {
+        if (condition == null || condition.getField() == null || condition.getOp() == null
+                || condition.getValue() == null) {
+            throw new InvalidPayloadException("Alert condition must have a field, op and value");
+        }
+        final Field field = Field.of(condition.getField());
+        final Operator op = Operator.of(condition.getOp());
+        if (field == null) {
+            throw new InvalidPayloadException(String.format("Unknown alert field [%s]", condition.getField()));
+        }
+        if (op == null) {
+            throw new InvalidPayloadException(String.format("Unknown alert operator [%s]", condition.getOp()));
+        }
+        final String value = condition.getValue().trim();
+        double limit = Double.NaN;
+        if (field == Field.FLIGHT_CATEGORY) {
+            final int category = FLIGHT_CATEGORIES.indexOf(value.toUpperCase(Locale.ROOT));
+            if (category >= 0) {
+                limit = category;
+            }
+        } else {
+            try {
+                limit = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                limit = Double.NaN;
+            }
+        }
+        if (Double.isNaN(limit)) {
+            throw new InvalidPayloadException(String.format("Invalid value [%s] for %s", value, field.name));
+        }
+        return new CompiledCondition(field, op, limit, field.name + " " + op.symbol + " " + value);
+    }
+
+    /**
+     * Observed value tested by a condition.
+     */
+    private enum Field {
+
+        /**
+         * Ceiling, in feet; unlimited when there is none.
+         */
+        CEILING("ceiling_ft") {
+            @Override
+            double value(final CompactMETAR metar) {
+                if (metar.getCeilingFeet() == CompactMETAR.MISSING) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                return metar.getCeilingFeet();
+            }
+        },
+
+        /**
+         * Visibility, in statute miles.
+         */
+        VISIBILITY("visibility_sm") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return metar.getVisibilityMiles();
+            }
+        },
+
+        /**
+         * Wind speed, in knots.
+         */
+        WIND("wind_kt") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return number(metar.getWindSpeedKt());
+            }
+        },
+
+        /**
+         * Wind gust, in knots.
+         */
+        GUST("gust_kt") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return number(metar.getWindGustKt());
+            }
+        },
+
+        /**
+         * Temperature, in degrees Celsius.
+         */
+        TEMPERATURE("temperature_c") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return number(metar.getTemperatureC());
+            }
+        },
+
+        /**
+         * Dewpoint, in degrees Celsius.
+         */
+        DEWPOINT("dewpoint_c") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return number(metar.getDewpointC());
+            }
+        },
+
+        /**
+         * Temperature and dewpoint spread, in degrees Celsius.
+         */
+        SPREAD("spread_c") {
+            @Override
+            double value(final CompactMETAR metar) {
+                return number(metar.getTemperatureC()) - number(metar.getDewpointC());
+            }
+        },
+
+        /**
+         * Flight category, 0 for VFR to 3 for LIFR.
+         */
+        FLIGHT_CATEGORY("flight_category") {
+            @Override
+            double value(final CompactMETAR metar) {
+                final int category = FLIGHT_CATEGORIES.indexOf(metar.getFlightCategory());
+                if (category < 0) {
+                    return Double.NaN;
+                }
+                return category;
+            }
+        };
+
+        /**
+         * Field name used in rules.
+         */
+        private final String name;
+
+        /**
+         * Initializes a Field.
+         *
+         * @param fieldName field name used in rules
+         */
+        Field(final String fieldName) {
+            name = fieldName;
+        }
+
+        /**
+         * Extracts the value from an observation.
+         *
+         * @param metar observation
+         * @return value, or NaN when missing
+         */
+        abstract double value(CompactMETAR metar);
+
+        /**
+         * Looks up a field by name.
+         *
+         * @param fieldName field name
+         * @return Field, or null
+         */
+        static Field of(final String fieldName) {
+            for (final Field field : values()) {
+                if (field.name.equalsIgnoreCase(fieldName.trim())) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Converts an optional int.
+         *
+         * @param value value or {@link CompactMETAR#MISSING}
+         * @return value, or NaN
+         */
+        private static double number(final int value) {
+            if (value == CompactMETAR.MISSING) {
+                return Double.NaN;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Comparison operator. Every comparison with a missing value is false.
+     */
+    private enum Operator {
+
+        /**
+         * Less than.
+         */
+        LT("<"),
+
+        /**
+         * Less than or equal.
+         */
+        LE("<="),
+
+        /**
+         * Greater than.
+         */
+        GT(">"),
+
+        /**
+         * Greater than or equal.
+         */
+        GE(">="),
+
+        /**
+         * Equal.
+         */
+        EQ("=="),
+
+        /**
+         * Not equal.
+         */
+        NE("!=");
+
+        /**
+         * Symbol used in rules.
+         */
+        private final String symbol;
+
+        /**
+         * Initializes an Operator.
+         *
+         * @param operatorSymbol symbol used in rules
+         */
+        Operator(final String operatorSymbol) {
+            symbol = operatorSymbol;
+        }
+
+        /**
+         * Applies the operator.
+         *
+         * @param value observed value
+         * @param limit limit
+         * @return result
+         */
+        boolean test(final double value, final double limit) {
+            if (Double.isNaN(value)) {
+                return false;
+            }
+            switch (this) {
+                case LT:
+                    return value < limit;
+                case LE:
+                    return value <= limit;
+                case GT:
+                    return value > limit;
+                case GE:
+                    return value >= limit;
+                case EQ:
+                    return value == limit;
+                default:
+                    return value != limit;
+            }
+        }
+
+        /**
+         * Looks up an operator by symbol.
+         *
+         * @param operatorSymbol symbol
+         * @return Operator, or null
+         */
+        static Operator of(final String operatorSymbol) {
+            for (final Operator op : values()) {
+                if (op.symbol.equals(operatorSymbol.trim())) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Compiled condition.
+     */
+    private static final class CompiledCondition {
+
+        /**
+         * Tested field.
+         */
+        private final Field field;
+
+        /**
+         * Operator.
+         */
+        private final Operator op;
+
+        /**
+         * Limit.
+         */
+        private final double limit;
+
+        /**
+         * Condition as written, for alert reasons.
+         */
+        private final String text;
+
+        /**
+         * Initializes an instance of <code>CompiledCondition</code>.
+         *
+         * @param testedField tested field
+         * @param operator operator
+         * @param value limit
+         * @param description condition as written
+         */
+        CompiledCondition(final Field testedField, final Operator operator, final double value,
+                          final String description) {
+            field = testedField;
+            op = operator;
+            limit = value;
+            text = description;
+        }
+
+        /**
+         * Tests an observation.
+         *
+         * @param metar observation
+         * @return true if the condition holds
+         */
+        boolean test(final CompactMETAR metar) {
+            return op.test(field.value(metar), limit);
+        }
+    }
+
+    /**
+     * Compiled rule.
+     */
+    private static final class CompiledRule {
+
+        /**
+         * Rule as defined.
+         */
+        private final AlertRule rule;
+
+        /**
+         * Conditions.
+         */
+        private final CompiledCondition[] conditions;
+
+        /**
+         * True if every condition must hold.
+         */
+        private final boolean all;
+
+        /**
+         * Last evaluation pass; only touched by the publishing thread.
+         */
+        private long pass;
+
+        /**
+         * Initializes an instance of <code>CompiledRule</code>.
+         *
+         * @param definition rule as defined
+         * @param compiledConditions conditions
+         * @param matchAll true if every condition must hold
+         */
+        CompiledRule(final AlertRule definition, final CompiledCondition[] compiledConditions,
+                     final boolean matchAll) {
+            rule = definition;
+            conditions = compiledConditions;
+            all = matchAll;
+        }
+
+        /**
+         * Tests an observation.
+         *
+         * @param metar observation
+         * @return true if the rule is met
+         */
+        boolean matches(final CompactMETAR metar) {
+            for (final CompiledCondition condition : conditions) {
+                if (condition.test(metar) != all) {
+                    return !all;
+                }
+            }
+            return all;
+        }
+
+        /**
+         * Describes the conditions that hold.
+         *
+         * @param metar observation
+         * @return conditions joined by "and"
+         */
+        String reason(final CompactMETAR metar) {
+            final StringJoiner joiner = new StringJoiner(" and ");
+            for (final CompiledCondition condition : conditions) {
+                if (condition.test(metar)) {
+                    joiner.add(condition.text);
+                }
+            }
+            return joiner.toString();
+        }
+    }
+
+}
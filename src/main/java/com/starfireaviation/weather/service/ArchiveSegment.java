@@ -0,0 +1,608 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One station-month of archived METARs in a memory-mapped, column-oriented file.
+ *
+ * Layout (little endian): a fixed header followed by one fixed-capacity block per column, so every value of a column
+ * is contiguous and a scan touches only the columns it reads.
+ * <pre>
+ * header   magic(int) version(short) pad(short) capacity(int) count(int) baseEpochSecond(long)
+ *          coverDictionary(16 x 4 ASCII) categoryDictionary(16 x 4 ASCII)
+ * minute   char[capacity]   minutes since baseEpochSecond (frame of reference)
+ * temp     short[capacity]  tenths of a degree Celsius
+ * dewpoint short[capacity]  tenths of a degree Celsius
+ * pressure short[capacity]  tenths of a millibar
+ * cover    byte[capacity]   cover dictionary code, 0 when absent
+ * base     char[capacity]   cloud base in hundreds of feet
+ * category byte[capacity]   flight category dictionary code, 0 when absent
+ * </pre>
+ * Rows are kept in observation order. A single writer appends; readers only see rows below the published count. A
+ * corrected report rewrites the last row in place, so the last row is written and read under a lock; every earlier
+ * row is immutable once published.
+ *
+ * A segment is unmapped when its last reference is released: the archive's segment cache holds one while the segment
+ * is cached, and every reader or writer holds one while it uses the segment.
+ */
+final class ArchiveSegment {
+
+    /**
+     * Quantized value meaning "not reported".
+     */
+    static final short ABSENT = Short.MIN_VALUE;
+
+    /**
+     * Cloud base meaning "not reported".
+     */
+    static final char NO_BASE = Character.MAX_VALUE;
+
+    /**
+     * File magic, "WXA1".
+     */
+    private static final int MAGIC = 0x31415857;
+
+    /**
+     * File format version.
+     */
+    private static final short VERSION = 1;
+
+    /**
+     * Entries per dictionary; code 0 is reserved for "absent".
+     */
+    private static final int DICTIONARY_SIZE = 16;
+
+    /**
+     * Bytes per dictionary entry.
+     */
+    private static final int CODE_LENGTH = 4;
+
+    /**
+     * Offset of the capacity in the header.
+     */
+    private static final int CAPACITY_OFFSET = 8;
+
+    /**
+     * Offset of the row count in the header.
+     */
+    private static final int COUNT_OFFSET = 12;
+
+    /**
+     * Offset of the base epoch second in the header.
+     */
+    private static final int BASE_OFFSET = 16;
+
+    /**
+     * Offset of the cover dictionary in the header.
+     */
+    private static final int COVER_DICTIONARY_OFFSET = 24;
+
+    /**
+     * Offset of the category dictionary in the header.
+     */
+    private static final int CATEGORY_DICTIONARY_OFFSET = COVER_DICTIONARY_OFFSET + DICTIONARY_SIZE * CODE_LENGTH;
+
+    /**
+     * Header length.
+     */
+    private static final int HEADER_LENGTH = CATEGORY_DICTIONARY_OFFSET + DICTIONARY_SIZE * CODE_LENGTH;
+
+    /**
+     * Bytes per row across all columns.
+     */
+    private static final int ROW_LENGTH = Character.BYTES + Short.BYTES * 3 + Byte.BYTES + Character.BYTES
+            + Byte.BYTES;
+
+    /**
+     * Seconds per minute.
+     */
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    /**
+     * Mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Maximum number of rows.
+     */
+    private final int capacity;
+
+    /**
+     * Start of the segment, in epoch seconds.
+     */
+    private final long baseEpochSecond;
+
+    /**
+     * Minute column offset.
+     */
+    private final int minuteColumn;
+
+    /**
+     * Temperature column offset.
+     */
+    private final int temperatureColumn;
+
+    /**
+     * Dewpoint column offset.
+     */
+    private final int dewpointColumn;
+
+    /**
+     * Pressure column offset.
+     */
+    private final int pressureColumn;
+
+    /**
+     * Cover column offset.
+     */
+    private final int coverColumn;
+
+    /**
+     * Cloud base column offset.
+     */
+    private final int baseColumn;
+
+    /**
+     * Category column offset.
+     */
+    private final int categoryColumn;
+
+    /**
+     * Decoded cover dictionary; index 0 is null.
+     */
+    private final String[] covers = new String[DICTIONARY_SIZE + 1];
+
+    /**
+     * Decoded category dictionary; index 0 is null.
+     */
+    private final String[] categories = new String[DICTIONARY_SIZE + 1];
+
+    /**
+     * Published row count.
+     */
+    private volatile int count;
+
+    /**
+     * References held; the mapping is released when this drops to zero.
+     */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    /**
+     * Guards the last row, the only row rewritten after it is published.
+     */
+    private final ReentrantLock lastRow = new ReentrantLock();
+
+    /**
+     * Initializes an instance of <code>ArchiveSegment</code>.
+     *
+     * @param mapped mapped file
+     */
+    private ArchiveSegment(final MappedByteBuffer mapped) {
+        buffer = mapped;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(Integer.BYTES) != VERSION) {
+            throw new IllegalStateException("Not a METAR archive segment");
+        }
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+        count = buffer.getInt(COUNT_OFFSET);
+        baseEpochSecond = buffer.getLong(BASE_OFFSET);
+        minuteColumn = HEADER_LENGTH;
+        temperatureColumn = minuteColumn + capacity * Character.BYTES;
+        dewpointColumn = temperatureColumn + capacity * Short.BYTES;
+        pressureColumn = dewpointColumn + capacity * Short.BYTES;
+        coverColumn = pressureColumn + capacity * Short.BYTES;
+        baseColumn = coverColumn + capacity;
+        categoryColumn = baseColumn + capacity * Character.BYTES;
+        readDictionary(COVER_DICTIONARY_OFFSET, covers);
+        readDictionary(CATEGORY_DICTIONARY_OFFSET, categories);
+    }
+
+    /**
+     * Opens an existing segment.
+     *
+     * @param file segment file
+     * @return ArchiveSegment, or null if the file does not exist
+     * @throws IOException when the file cannot be mapped
+     */
+    static ArchiveSegment open(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return map(file, false, 0, 0);
+    }
+
+    /**
+     * Opens a segment, creating it when it does not exist.
+     *
+     * @param file segment file
+     * @param newCapacity capacity of a new segment
+     * @param newBaseEpochSecond start of a new segment, in epoch seconds
+     * @return ArchiveSegment
+     * @throws IOException when the file cannot be created or mapped
+     */
+    static ArchiveSegment create(final Path file, final int newCapacity, final long newBaseEpochSecond)
+            throws IOException {
+        final boolean create = !Files.exists(file);
+        if (create) {
+            Files.createDirectories(file.getParent());
+        }
+        return map(file, create, newCapacity, newBaseEpochSecond);
+    }
+
+    /**
+     * Maps a segment file read-write, writing the header of a new segment.
+     *
+     * @param file segment file
+     * @param create whether the file is new
+     * @param newCapacity capacity of a new segment
+     * @param newBaseEpochSecond start of a new segment, in epoch seconds
+     * @return ArchiveSegment
+     * @throws IOException when the file cannot be mapped
+     */
+    private static ArchiveSegment map(final Path file, final boolean create, final int newCapacity,
+                                      final long newBaseEpochSecond) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (create) {
+                size = HEADER_LENGTH + (long) newCapacity * ROW_LENGTH;
+            }
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (create) {
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.putInt(0, MAGIC);
+                mapped.putShort(Integer.BYTES, VERSION);
+                mapped.putInt(CAPACITY_OFFSET, newCapacity);
+                mapped.putInt(COUNT_OFFSET, 0);
+                mapped.putLong(BASE_OFFSET, newBaseEpochSecond);
+            }
+            return new ArchiveSegment(mapped);
+        }
+    }
+
+    /**
+     * Number of rows.
+     *
+     * @return row count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Observation time of the last row.
+     *
+     * @return epoch seconds, or Long.MIN_VALUE when empty
+     */
+    long lastEpochSecond() {
+        if (count == 0) {
+            return Long.MIN_VALUE;
+        }
+        return epochSecond(count - 1);
+    }
+
+    /**
+     * Appends a row, or replaces the last row when it has the same observation time (a corrected report). Rows older
+     * than the last row are ignored.
+     *
+     * @param epochSecond observation time
+     * @param temperature tenths of a degree Celsius or ABSENT
+     * @param dewpoint tenths of a degree Celsius or ABSENT
+     * @param pressure tenths of a millibar or ABSENT
+     * @param cover cover code or null
+     * @param base cloud base in hundreds of feet or NO_BASE
+     * @param category flight category or null
+     * @return true if the row was stored
+     */
+    boolean append(final long epochSecond, final short temperature, final short dewpoint, final short pressure,
+                   final String cover, final char base, final String category) {
+        final long last = lastEpochSecond();
+        int row = count;
+        if (epochSecond == last) {
+            row = count - 1;
+        } else if (epochSecond < last || count >= capacity) {
+            return false;
+        }
+        final long minutes = (epochSecond - baseEpochSecond) / SECONDS_PER_MINUTE;
+        if (minutes < 0 || minutes > Character.MAX_VALUE) {
+            return false;
+        }
+        if (row < count) {
+            lastRow.lock();
+            try {
+                write(row, (char) minutes, temperature, dewpoint, pressure, cover, base, category);
+            } finally {
+                lastRow.unlock();
+            }
+            return true;
+        }
+        write(row, (char) minutes, temperature, dewpoint, pressure, cover, base, category);
+        buffer.putInt(COUNT_OFFSET, row + 1);
+        count = row + 1;
+        return true;
+    }
+
+    /**
+     * Writes the columns of a row.
+     *
+     * @param row row index
+     * @param minutes minutes since the segment start
+     * @param temperature tenths of a degree Celsius or ABSENT
+     * @param dewpoint tenths of a degree Celsius or ABSENT
+     * @param pressure tenths of a millibar or ABSENT
+     * @param cover cover code or null
+     * @param base cloud base in hundreds of feet or NO_BASE
+     * @param category flight category or null
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private void write(final int row, final char minutes, final short temperature, final short dewpoint,
+                       final short pressure, final String cover, final char base, final String category) {
+        buffer.putChar(minuteColumn + row * Character.BYTES, minutes);
+        buffer.putShort(temperatureColumn + row * Short.BYTES, temperature);
+        buffer.putShort(dewpointColumn + row * Short.BYTES, dewpoint);
+        buffer.putShort(pressureColumn + row * Short.BYTES, pressure);
+        buffer.put(coverColumn + row, code(cover, COVER_DICTIONARY_OFFSET, covers));
+        buffer.putChar(baseColumn + row * Character.BYTES, base);
+        buffer.put(categoryColumn + row, code(category, CATEGORY_DICTIONARY_OFFSET, categories));
+    }
+
+    /**
+     * Passes a published row to a visitor. The last row is read under the lock its corrections are written under, so
+     * a reader never sees a partly corrected row.
+     *
+     * @param row row index
+     * @param rows number of published rows the reader started with
+     * @param visitor receives the row
+     */
+    void visit(final int row, final int rows, final MetarArchive.RowVisitor visitor) {
+        if (row + 1 < rows) {
+            visitRow(row, visitor);
+            return;
+        }
+        lastRow.lock();
+        try {
+            visitRow(row, visitor);
+        } finally {
+            lastRow.unlock();
+        }
+    }
+
+    /**
+     * Passes a row to a visitor.
+     *
+     * @param row row index
+     * @param visitor receives the row
+     */
+    private void visitRow(final int row, final MetarArchive.RowVisitor visitor) {
+        visitor.visit(epochSecond(row), temperature(row), dewpoint(row), pressure(row), cover(row), base(row),
+                category(categoryCode(row)));
+    }
+
+    /**
+     * Takes a reference, keeping the segment mapped until it is released.
+     */
+    void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Releases a reference, unmapping the file when it was the last one.
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * Finds the first row observed at or after a time.
+     *
+     * @param epochSecond time
+     * @param rows number of published rows to search
+     * @return row index, or rows when every row is earlier
+     */
+    int firstAtOrAfter(final long epochSecond, final int rows) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (epochSecond(mid) < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Observation time of a row.
+     *
+     * @param row row index
+     * @return epoch seconds
+     */
+    long epochSecond(final int row) {
+        return baseEpochSecond + (long) buffer.getChar(minuteColumn + row * Character.BYTES) * SECONDS_PER_MINUTE;
+    }
+
+    /**
+     * Temperature of a row.
+     *
+     * @param row row index
+     * @return tenths of a degree Celsius or ABSENT
+     */
+    short temperature(final int row) {
+        return buffer.getShort(temperatureColumn + row * Short.BYTES);
+    }
+
+    /**
+     * Dewpoint of a row.
+     *
+     * @param row row index
+     * @return tenths of a degree Celsius or ABSENT
+     */
+    short dewpoint(final int row) {
+        return buffer.getShort(dewpointColumn + row * Short.BYTES);
+    }
+
+    /**
+     * Pressure of a row.
+     *
+     * @param row row index
+     * @return tenths of a millibar or ABSENT
+     */
+    short pressure(final int row) {
+        return buffer.getShort(pressureColumn + row * Short.BYTES);
+    }
+
+    /**
+     * Cover code of a row.
+     *
+     * @param row row index
+     * @return cover code or null
+     */
+    String cover(final int row) {
+        return covers[buffer.get(coverColumn + row)];
+    }
+
+    /**
+     * Cloud base of a row.
+     *
+     * @param row row index
+     * @return hundreds of feet or NO_BASE
+     */
+    char base(final int row) {
+        return buffer.getChar(baseColumn + row * Character.BYTES);
+    }
+
+    /**
+     * Flight category dictionary code of a row.
+     *
+     * @param row row index
+     * @return code, 0 when absent
+     */
+    int categoryCode(final int row) {
+        return buffer.get(categoryColumn + row);
+    }
+
+    /**
+     * Flight category of a dictionary code.
+     *
+     * @param code dictionary code
+     * @return flight category or null
+     */
+    String category(final int code) {
+        return categories[code];
+    }
+
+    /**
+     * Flushes written rows to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Unmaps a buffer now rather than when it is garbage collected, so that evicted segments stop counting against
+     * the process's mapping limit. Falls back to the garbage collector when the JDK does not allow it.
+     *
+     * @param mapped mapped buffer, not used afterwards
+     */
+    private static void unmap(final MappedByteBuffer mapped) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // unmapped when garbage collected
+            return;
+        }
+    }
+
+    /**
+     * Looks up or adds a dictionary entry.
+     *
+     * @param value value
+     * @param offset dictionary offset in the header
+     * @param decoded decoded dictionary
+     * @return code, or 0 when the value is null, too long or the dictionary is full
+     */
+    private byte code(final String value, final int offset, final String[] decoded) {
+        if (value == null || value.length() > CODE_LENGTH) {
+            return 0;
+        }
+        for (int i = 1; i < decoded.length; i++) {
+            if (decoded[i] == null) {
+                final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+                for (int j = 0; j < CODE_LENGTH; j++) {
+                    byte b = 0;
+                    if (j < bytes.length) {
+                        b = bytes[j];
+                    }
+                    buffer.put(offset + (i - 1) * CODE_LENGTH + j, b);
+                }
+                decoded[i] = value;
+                return (byte) i;
+            }
+            if (decoded[i].equals(value)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a dictionary from the header.
+     *
+     * @param offset dictionary offset in the header
+     * @param decoded receives the entries
+     */
+    private void readDictionary(final int offset, final String[] decoded) {
+        final byte[] bytes = new byte[CODE_LENGTH];
+        for (int i = 1; i < decoded.length; i++) {
+            int length = 0;
+            while (length < CODE_LENGTH) {
+                final byte b = buffer.get(offset + (i - 1) * CODE_LENGTH + length);
+                if (b == 0) {
+                    break;
+                }
+                bytes[length] = b;
+                length++;
+            }
+            if (length == 0) {
+                return;
+            }
+            decoded[i] = new String(bytes, 0, length, StandardCharsets.US_ASCII).intern();
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.util.SSLUtilities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP client for AviationWeather.gov feeds.
+ *
+ * Remembers the ETag and Last-Modified validators of every URL it fetches and sends them back as If-None-Match and
+ * If-Modified-Since, so a feed that has not changed costs a 304 with no body. The validators of a response are only
+ * staged when it is parsed; the caller commits them once the parsed body has been persisted, so a cycle that fails
+ * after the fetch is retried in full rather than answered with a 304.
+ */
+@Slf4j
+public class AviationWeatherClient {
+
+    /**
+     * Synchronous rest template.
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * SSLUtilities.
+     */
+    private final SSLUtilities sslUtilities;
+
+    /**
+     * Validators of the last successful response, keyed by URL.
+     */
+    private final Map<String, Validators> validatorsByUrl = new ConcurrentHashMap<>();
+
+    /**
+     * Validators of parsed responses not yet committed by the caller, keyed by URL.
+     */
+    private final Map<String, Validators> pendingByUrl = new ConcurrentHashMap<>();
+
+    /**
+     * Initializes an instance of <code>AviationWeatherClient</code>.
+     *
+     * @param template RestTemplate
+     * @param utils SSLUtilities
+     */
+    public AviationWeatherClient(final RestTemplate template, final SSLUtilities utils) {
+        restTemplate = template;
+        sslUtilities = utils;
+    }
+
+    /**
+     * Conditionally fetches a feed and parses its body as it streams in. The validators of the response take effect
+     * for the next fetch only once committed with {@link #commit(Collection)}.
+     *
+     * @param url feed URL
+     * @param parser body parser
+     * @param <T> parsed type
+     * @return parsed body, or empty if the feed has not changed since the previous fetch
+     * @throws RestClientException when the feed cannot be retrieved or parsed
+     */
+    public <T> Optional<T> fetch(final String url, final BodyParser<T> parser) throws RestClientException {
+        // Ignoring SSL certificate checking
+        sslUtilities.trustAllHostnames();
+        sslUtilities.trustAllHttpsCertificates();
+        final Validators previous = validatorsByUrl.get(url);
+        return Optional.ofNullable(restTemplate.execute(url, HttpMethod.GET,
+                request -> {
+                    final HttpHeaders headers = request.getHeaders();
+                    headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+                    if (previous != null) {
+                        previous.apply(headers);
+                    }
+                },
+                response -> {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED
+                            || !response.getStatusCode().is2xxSuccessful()) {
+                        return null;
+                    }
+                    final T parsed = parser.parse(response.getBody());
+                    pendingByUrl.put(url, Validators.of(response.getHeaders()));
+                    return parsed;
+                }));
+    }
+
+    /**
+     * Commits the validators staged by the last fetch of each URL, once the caller has persisted what it parsed.
+     * URLs that were not modified, failed, or have already been committed are ignored.
+     *
+     * @param urls feed URLs
+     */
+    public void commit(final Collection<String> urls) {
+        for (final String url : urls) {
+            final Validators validators = pendingByUrl.remove(url);
+            if (validators == Validators.NONE) {
+                validatorsByUrl.remove(url);
+            } else if (validators != null) {
+                validatorsByUrl.put(url, validators);
+            }
+        }
+    }
+
+    /**
+     * Conditionally fetches several feeds concurrently, each on its own virtual thread. A feed that cannot be
+     * retrieved or parsed is logged and left out of the result; the others are unaffected.
+     *
+     * @param urls feed URLs
+     * @param maxConcurrent upper bound on requests in flight
+     * @param parser body parser, called concurrently
+     * @param <T> parsed type
+     * @return parsed body, or empty if not modified, keyed by URL in request order
+     * @throws InterruptedException when interrupted while waiting for the feeds
+     */
+    public <T> Map<String, Optional<T>> fetchAll(final List<String> urls, final int maxConcurrent,
+                                                 final BodyParser<T> parser) throws InterruptedException {
+        final Semaphore permits = new Semaphore(Math.max(1, maxConcurrent));
+        final List<Future<Optional<T>>> futures = new ArrayList<>(urls.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final String url : urls) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return fetch(url, parser);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        final Map<String, Optional<T>> results = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.put(urls.get(i), futures.get(i).get());
+            } catch (ExecutionException ee) {
+                final String msg = String.format("Unable to retrieve [%s]: %s", urls.get(i),
+                        ee.getCause().getMessage());
+                log.error(msg, ee.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Parses a response body.
+     *
+     * @param <T> parsed type
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+
+        /**
+         * Parses a response body.
+         *
+         * @param body response body
+         * @return parsed value
+         * @throws IOException on read or parse failure
+         */
+        T parse(InputStream body) throws IOException;
+    }
+
+    /**
+     * Cache validators returned by the server.
+     */
+    private static final class Validators {
+
+        /**
+         * Staged in place of validators when the server sent none.
+         */
+        static final Validators NONE = new Validators(null, -1);
+
+        /**
+         * ETag.
+         */
+        private final String eTag;
+
+        /**
+         * Last-Modified, in epoch milliseconds, or -1.
+         */
+        private final long lastModified;
+
+        /**
+         * Initializes an instance of <code>Validators</code>.
+         *
+         * @param tag ETag
+         * @param modified Last-Modified
+         */
+        private Validators(final String tag, final long modified) {
+            eTag = tag;
+            lastModified = modified;
+        }
+
+        /**
+         * Reads the validators from response headers.
+         *
+         * @param headers response headers
+         * @return Validators, or NONE if the server sent none
+         */
+        static Validators of(final HttpHeaders headers) {
+            final String tag = headers.getETag();
+            final long modified = headers.getLastModified();
+            if (tag == null && modified < 0) {
+                return NONE;
+            }
+            return new Validators(tag, modified);
+        }
+
+        /**
+         * Adds the conditional request headers.
+         *
+         * @param headers request headers
+         */
+        void apply(final HttpHeaders headers) {
+            if (eTag != null) {
+                headers.setIfNoneMatch(eTag);
+            }
+            if (lastModified >= 0) {
+                headers.setIfModifiedSince(lastModified);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.starfireaviation.weather.config.WeatherConstants;
+import com.starfireaviation.weather.model.Cloud;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scratch space for the numbered cloud layer properties of a single feature, shared by the feed parsers.
+ */
+final class CloudLayers {
+
+    /**
+     * Maximum number of cloud layers reported by the feed (cldCvg1 through cldCvg9).
+     */
+    private static final int MAX_CLOUD_LAYERS = 10;
+
+    /**
+     * One Hundred.
+     */
+    private static final int ONE_HUNDRED = 100;
+
+    /**
+     * Cloud cover codes by layer number.
+     */
+    private final String[] covers = new String[MAX_CLOUD_LAYERS];
+
+    /**
+     * Cloud bases, in hundreds of feet, by layer number.
+     */
+    private final double[] bases = new double[MAX_CLOUD_LAYERS];
+
+    /**
+     * Number of cover codes read.
+     */
+    private int count;
+
+    /**
+     * Number of cover codes read.
+     *
+     * @return count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Clears all layers.
+     */
+    void reset() {
+        Arrays.fill(covers, null);
+        Arrays.fill(bases, Double.NaN);
+        count = 0;
+    }
+
+    /**
+     * Records a cldCvgN or cldBasN property; any other property is ignored.
+     *
+     * @param field property name
+     * @param parser JsonParser positioned on the value
+     * @throws IOException on read failure
+     */
+    void accept(final String field, final JsonParser parser) throws IOException {
+        final int layer = layerNumber(field);
+        if (layer < 0) {
+            return;
+        }
+        if (field.startsWith(WeatherConstants.CLOUD_COVER)) {
+            covers[layer] = parser.getText();
+            count++;
+        } else if (field.startsWith(WeatherConstants.CLOUD_BASE)) {
+            bases[layer] = parser.getValueAsDouble();
+        }
+    }
+
+    /**
+     * Builds the cloud layers in layer order.
+     *
+     * @return list of Cloud
+     */
+    List<Cloud> toClouds() {
+        final List<Cloud> clouds = new ArrayList<>(count);
+        for (int i = 1; i < MAX_CLOUD_LAYERS; i++) {
+            if (covers[i] != null) {
+                final Cloud cloud = new Cloud();
+                cloud.setCode(covers[i]);
+                if (!Double.isNaN(bases[i])) {
+                    cloud.setBaseFeetAgl(bases[i] * ONE_HUNDRED);
+                }
+                clouds.add(cloud);
+            }
+        }
+        return clouds;
+    }
+
+    /**
+     * Extracts the layer number from a cldCvgN/cldBasN property name.
+     *
+     * @param field property name
+     * @return layer number, or -1 if the property is not a cloud layer
+     */
+    private static int layerNumber(final String field) {
+        final int length = WeatherConstants.CLOUD_COVER.length();
+        if (field.length() != length + 1) {
+            return -1;
+        }
+        final char digit = field.charAt(length);
+        if (digit < '1' || digit > '9') {
+            return -1;
+        }
+        return digit - '0';
+    }
+
+}
@@ -0,0 +1,632 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.Barometer;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.Cloud;
+import com.starfireaviation.weather.model.Dewpoint;
+import com.starfireaviation.weather.model.Elevation;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Temperature;
+import com.starfireaviation.weather.model.Visibility;
+import com.starfireaviation.weather.model.Wind;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flat, primitive representation of a METAR held by the in-memory cache.
+ *
+ * A {@link METAR} is a graph of small boxed objects; a cached station costs one CompactMETAR, its strings and one
+ * int array of packed cloud layers. Missing numbers are {@link #MISSING} (or NaN for coordinates and visibility),
+ * the observation time is kept in epoch seconds and short codes such as cloud cover and flight category are one-byte
+ * ids into a shared code table. Instances are immutable; {@link #toMETAR()} builds the Jackson-facing model and is
+ * only called where a METAR leaves the service.
+ *
+ * Only the attributes filled in by the feed parser, the raw decoder and the station registry are carried over.
+ */
+@Getter
+public final class CompactMETAR {
+
+    /**
+     * Missing value of an int attribute.
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * Missing observation time.
+     */
+    public static final long MISSING_TIME = Long.MIN_VALUE;
+
+    /**
+     * Bits to shift the code id of a packed cloud layer.
+     */
+    private static final int CLOUD_CODE_SHIFT = 24;
+
+    /**
+     * Mask for the base of a packed cloud layer, in feet.
+     */
+    private static final int CLOUD_BASE_MASK = 0xffffff;
+
+    /**
+     * Largest code id.
+     */
+    private static final int MAX_CODE = 0xff;
+
+    /**
+     * Tenths per unit.
+     */
+    private static final double TENTHS = 10.0;
+
+    /**
+     * Hundredths per unit.
+     */
+    private static final double HUNDREDTHS = 100.0;
+
+    /**
+     * Code ids by code.
+     */
+    private static final Map<String, Integer> CODE_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * Codes by id; id 0 is no code.
+     */
+    private static volatile String[] codes = {null};
+
+    /**
+     * ICAO code.
+     */
+    private String icao;
+
+    /**
+     * Station name.
+     */
+    private String name;
+
+    /**
+     * Raw observation text.
+     */
+    private String rawText;
+
+    /**
+     * Report type code id.
+     */
+    @Getter(AccessLevel.NONE)
+    private byte reportTypeCode;
+
+    /**
+     * Station elevation, shared with the station registry.
+     */
+    private Elevation elevation;
+
+    /**
+     * Observation time, in epoch seconds.
+     */
+    private long observed = MISSING_TIME;
+
+    /**
+     * Observation time as reported, kept only when it is not an ISO instant.
+     */
+    @Getter(AccessLevel.NONE)
+    private String observedText;
+
+    /**
+     * Latitude, or NaN.
+     */
+    private double latitude = Double.NaN;
+
+    /**
+     * Longitude, or NaN.
+     */
+    private double longitude = Double.NaN;
+
+    /**
+     * Temperature, in degrees Celsius.
+     */
+    private int temperatureC = MISSING;
+
+    /**
+     * Dewpoint, in degrees Celsius.
+     */
+    private int dewpointC = MISSING;
+
+    /**
+     * Wind direction, in degrees; missing when variable.
+     */
+    private int windDegrees = MISSING;
+
+    /**
+     * Wind speed, in knots; missing when there is no wind group.
+     */
+    private int windSpeedKt = MISSING;
+
+    /**
+     * Wind gust, in knots.
+     */
+    private int windGustKt = MISSING;
+
+    /**
+     * Ceiling, in feet.
+     */
+    private int ceilingFeet = MISSING;
+
+    /**
+     * Ceiling cover code id.
+     */
+    @Getter(AccessLevel.NONE)
+    private byte ceilingCode;
+
+    /**
+     * Visibility, in statute miles, or NaN.
+     */
+    private float visibilityMiles = Float.NaN;
+
+    /**
+     * Visibility in statute miles as reported, e.g. 10+ or 1 1/2; interned.
+     */
+    private String visibilityText;
+
+    /**
+     * Visibility, in meters.
+     */
+    private int visibilityMeters = MISSING;
+
+    /**
+     * Pressure, in tenths of a hectopascal.
+     */
+    private int pressureTenthsHpa = MISSING;
+
+    /**
+     * Altimeter, in hundredths of an inch of mercury.
+     */
+    private int altimeterHundredthsHg = MISSING;
+
+    /**
+     * Flight category code id.
+     */
+    @Getter(AccessLevel.NONE)
+    private byte flightCategoryCode;
+
+    /**
+     * Cloud layers, each packed as code id and base in feet; null when the METAR had no cloud list.
+     */
+    @Getter(AccessLevel.NONE)
+    private int[] clouds;
+
+    /**
+     * Use {@link #of(METAR)}.
+     */
+    private CompactMETAR() {
+    }
+
+    /**
+     * Builds the compact form of a METAR.
+     *
+     * @param metar METAR
+     * @return CompactMETAR
+     */
+    public static CompactMETAR of(final METAR metar) {
+        final CompactMETAR compact = new CompactMETAR();
+        compact.icao = metar.getIcao();
+        compact.name = metar.getName();
+        compact.rawText = metar.getRawText();
+        compact.reportTypeCode = codeId(metar.getReportType());
+        compact.elevation = metar.getElevation();
+        compact.setObserved(metar.getObserved());
+        if (metar.getLatitude() != null && metar.getLongitude() != null) {
+            compact.latitude = metar.getLatitude();
+            compact.longitude = metar.getLongitude();
+        }
+        if (metar.getTemperature() != null) {
+            compact.temperatureC = toInt(metar.getTemperature().getCelsius());
+        }
+        if (metar.getDewpoint() != null) {
+            compact.dewpointC = toInt(metar.getDewpoint().getCelsius());
+        }
+        final Wind wind = metar.getWind();
+        if (wind != null) {
+            compact.windDegrees = toInt(wind.getDegrees());
+            compact.windSpeedKt = toInt(wind.getSpeedKt());
+            compact.windGustKt = toInt(wind.getGustKt());
+        }
+        final Ceiling ceiling = metar.getCeiling();
+        if (ceiling != null) {
+            compact.ceilingFeet = toInt(ceiling.getFeet(), 1.0);
+            compact.ceilingCode = codeId(ceiling.getCode());
+        }
+        final Visibility visibility = metar.getVisibility();
+        if (visibility != null) {
+            compact.setVisibility(visibility);
+        }
+        final Barometer barometer = metar.getBarometer();
+        if (barometer != null) {
+            compact.pressureTenthsHpa = toInt(barometer.getMb(), TENTHS);
+            compact.altimeterHundredthsHg = toInt(barometer.getHg(), HUNDREDTHS);
+        }
+        compact.flightCategoryCode = codeId(metar.getFlightCategory());
+        if (metar.getClouds() != null) {
+            compact.clouds = new int[metar.getClouds().size()];
+            for (int i = 0; i < compact.clouds.length; i++) {
+                final Cloud cloud = metar.getClouds().get(i);
+                int base = CLOUD_BASE_MASK;
+                if (cloud.getBaseFeetAgl() != null) {
+                    base = (int) Math.round(cloud.getBaseFeetAgl()) & CLOUD_BASE_MASK;
+                }
+                compact.clouds[i] = (codeId(cloud.getCode()) & MAX_CODE) << CLOUD_CODE_SHIFT | base;
+            }
+        }
+        return compact;
+    }
+
+    /**
+     * Builds the Jackson-facing METAR. Every call returns a new object graph.
+     *
+     * @return METAR
+     */
+    public METAR toMETAR() {
+        final METAR metar = new METAR();
+        metar.setIcao(icao);
+        metar.setName(name);
+        metar.setRawText(rawText);
+        metar.setReportType(code(reportTypeCode));
+        metar.setElevation(elevation);
+        metar.setObserved(getObservedText());
+        if (hasPosition()) {
+            metar.setLatitude(latitude);
+            metar.setLongitude(longitude);
+        }
+        if (temperatureC != MISSING) {
+            final Temperature temperature = new Temperature();
+            temperature.setCelsius((long) temperatureC);
+            metar.setTemperature(temperature);
+        }
+        if (dewpointC != MISSING) {
+            final Dewpoint dewpoint = new Dewpoint();
+            dewpoint.setCelsius((long) dewpointC);
+            metar.setDewpoint(dewpoint);
+        }
+        if (windDegrees != MISSING || windSpeedKt != MISSING || windGustKt != MISSING) {
+            final Wind wind = new Wind();
+            wind.setDegrees(toInteger(windDegrees));
+            wind.setSpeedKt(toInteger(windSpeedKt));
+            wind.setGustKt(toInteger(windGustKt));
+            metar.setWind(wind);
+        }
+        if (ceilingFeet != MISSING || ceilingCode != 0) {
+            final Ceiling ceiling = new Ceiling();
+            ceiling.setFeet(toDouble(ceilingFeet, 1.0));
+            ceiling.setCode(code(ceilingCode));
+            metar.setCeiling(ceiling);
+        }
+        if (visibilityText != null || visibilityMeters != MISSING) {
+            final Visibility visibility = new Visibility();
+            visibility.setMiles(visibilityText);
+            if (visibilityMeters != MISSING) {
+                visibility.setMeters(Integer.toString(visibilityMeters));
+            }
+            metar.setVisibility(visibility);
+        }
+        if (pressureTenthsHpa != MISSING || altimeterHundredthsHg != MISSING) {
+            final Barometer barometer = new Barometer();
+            barometer.setMb(toDouble(pressureTenthsHpa, TENTHS));
+            barometer.setHg(toDouble(altimeterHundredthsHg, HUNDREDTHS));
+            metar.setBarometer(barometer);
+        }
+        metar.setFlightCategory(code(flightCategoryCode));
+        if (clouds != null) {
+            final List<Cloud> layers = new ArrayList<>(clouds.length);
+            for (int i = 0; i < clouds.length; i++) {
+                final Cloud cloud = new Cloud();
+                cloud.setCode(getCloudCover(i));
+                final int base = getCloudBaseFeet(i);
+                if (base != MISSING) {
+                    cloud.setBaseFeetAgl((double) base);
+                }
+                layers.add(cloud);
+            }
+            metar.setClouds(layers);
+        }
+        return metar;
+    }
+
+    /**
+     * Checks if a METAR reports the same observation as this one.
+     *
+     * @param metar METAR
+     * @return true if the raw text and observation time are equal
+     */
+    public boolean isSameObservation(final METAR metar) {
+        return Objects.equals(rawText, metar.getRawText()) && Objects.equals(getObservedText(), metar.getObserved());
+    }
+
+    /**
+     * Checks if the station position is known.
+     *
+     * @return true if latitude and longitude are set
+     */
+    public boolean hasPosition() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    /**
+     * Observation time as reported.
+     *
+     * @return observation time, or null
+     */
+    public String getObservedText() {
+        if (observedText != null || observed == MISSING_TIME) {
+            return observedText;
+        }
+        return Instant.ofEpochSecond(observed).toString();
+    }
+
+    /**
+     * Flight category.
+     *
+     * @return flight category, or null
+     */
+    public String getFlightCategory() {
+        return code(flightCategoryCode);
+    }
+
+    /**
+     * Report type.
+     *
+     * @return METAR, SPECI or null
+     */
+    public String getReportType() {
+        return code(reportTypeCode);
+    }
+
+    /**
+     * Checks if this is an unscheduled special observation.
+     *
+     * @return true for a SPECI
+     */
+    public boolean isSpeci() {
+        return METAR.SPECI.equals(getReportType());
+    }
+
+    /**
+     * Ceiling cover code.
+     *
+     * @return cover code, or null
+     */
+    public String getCeilingCode() {
+        return code(ceilingCode);
+    }
+
+    /**
+     * Number of cloud layers.
+     *
+     * @return layer count
+     */
+    public int getCloudCount() {
+        if (clouds == null) {
+            return 0;
+        }
+        return clouds.length;
+    }
+
+    /**
+     * Cover code of a cloud layer.
+     *
+     * @param layer layer index
+     * @return cover code, or null
+     */
+    public String getCloudCover(final int layer) {
+        return codes[clouds[layer] >>> CLOUD_CODE_SHIFT];
+    }
+
+    /**
+     * Base of a cloud layer.
+     *
+     * @param layer layer index
+     * @return base in feet, or {@link #MISSING}
+     */
+    public int getCloudBaseFeet(final int layer) {
+        final int base = clouds[layer] & CLOUD_BASE_MASK;
+        if (base == CLOUD_BASE_MASK) {
+            return MISSING;
+        }
+        return base;
+    }
+
+    /**
+     * Sets the observation time from its reported text.
+     *
+     * @param text observation time, may be null
+     */
+    private void setObserved(final String text) {
+        if (text == null) {
+            return;
+        }
+        try {
+            final Instant instant = Instant.parse(text);
+            observed = instant.getEpochSecond();
+            if (instant.getNano() != 0 || !instant.toString().equals(text)) {
+                observedText = text;
+            }
+        } catch (DateTimeParseException e) {
+            observedText = text;
+        }
+    }
+
+    /**
+     * Sets the visibility.
+     *
+     * @param visibility Visibility
+     */
+    private void setVisibility(final Visibility visibility) {
+        if (visibility.getMiles() != null) {
+            visibilityText = visibility.getMiles().intern();
+            visibilityMiles = parseMiles(visibilityText);
+        }
+        if (visibility.getMeters() != null) {
+            try {
+                visibilityMeters = Integer.parseInt(visibility.getMeters());
+            } catch (NumberFormatException e) {
+                visibilityMeters = MISSING;
+            }
+        }
+    }
+
+    /**
+     * Parses a reported statute mile visibility, e.g. 10, 10+, 1.5, 1 1/2 or M1/4.
+     *
+     * @param text reported visibility
+     * @return visibility in statute miles, or NaN
+     */
+    static float parseMiles(final String text) {
+        String value = text.trim();
+        if (value.startsWith("M") || value.startsWith("P")) {
+            value = value.substring(1);
+        }
+        if (value.endsWith("+")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            final int space = value.indexOf(' ');
+            float whole = 0;
+            if (space > 0) {
+                whole = Float.parseFloat(value.substring(0, space));
+                value = value.substring(space + 1);
+            }
+            final int slash = value.indexOf('/');
+            if (slash > 0) {
+                return whole + Float.parseFloat(value.substring(0, slash))
+                        / Float.parseFloat(value.substring(slash + 1));
+            }
+            return whole + Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * Looks up or assigns the id of a code.
+     *
+     * @param code code, may be null
+     * @return code id, or 0 when the code is null or the code table is full
+     */
+    private static byte codeId(final String code) {
+        if (code == null) {
+            return 0;
+        }
+        final Integer id = CODE_IDS.get(code);
+        if (id != null) {
+            return id.byteValue();
+        }
+        return addCode(code);
+    }
+
+    /**
+     * Assigns the next id to a code.
+     *
+     * @param code code
+     * @return code id, or 0 when the code table is full
+     */
+    private static synchronized byte addCode(final String code) {
+        final Integer existing = CODE_IDS.get(code);
+        if (existing != null) {
+            return existing.byteValue();
+        }
+        final int id = codes.length;
+        if (id > MAX_CODE) {
+            return 0;
+        }
+        final String[] next = Arrays.copyOf(codes, id + 1);
+        next[id] = code.intern();
+        codes = next;
+        CODE_IDS.put(next[id], id);
+        return (byte) id;
+    }
+
+    /**
+     * Looks up a code.
+     *
+     * @param id code id
+     * @return code, or null
+     */
+    private static String code(final byte id) {
+        return codes[id & MAX_CODE];
+    }
+
+    /**
+     * Unboxes an optional number.
+     *
+     * @param value number, may be null
+     * @return value or {@link #MISSING}
+     */
+    private static int toInt(final Number value) {
+        if (value == null) {
+            return MISSING;
+        }
+        return value.intValue();
+    }
+
+    /**
+     * Scales and rounds an optional decimal.
+     *
+     * @param value decimal, may be null
+     * @param scale units per whole
+     * @return scaled value or {@link #MISSING}
+     */
+    private static int toInt(final Double value, final double scale) {
+        if (value == null) {
+            return MISSING;
+        }
+        return (int) Math.round(value * scale);
+    }
+
+    /**
+     * Boxes an optional int.
+     *
+     * @param value value or {@link #MISSING}
+     * @return Integer, or null
+     */
+    private static Integer toInteger(final int value) {
+        if (value == MISSING) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Unscales an optional scaled value.
+     *
+     * @param value scaled value or {@link #MISSING}
+     * @param scale units per whole
+     * @return Double, or null
+     */
+    private static Double toDouble(final int value, final double scale) {
+        if (value == MISSING) {
+            return null;
+        }
+        return value / scale;
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.starfireaviation.weather.model.Barometer;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.Cloud;
+import com.starfireaviation.weather.model.Dewpoint;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Temperature;
+import com.starfireaviation.weather.model.Visibility;
+import com.starfireaviation.weather.model.Wind;
+
+import java.io.IOException;
+
+/**
+ * Unit conversions derived from the reported values while a METAR is serialized.
+ *
+ * Nothing here is stored: the models only hold what was reported, and the converted values are computed from it and
+ * written straight to the generator when a projection includes {@link MetarProjection#UNITS}.
+ */
+final class DerivedUnits {
+
+    /**
+     * Miles per hour in a knot.
+     */
+    private static final double MPH_PER_KNOT = 1.150779;
+
+    /**
+     * Meters per second in a knot.
+     */
+    private static final double MPS_PER_KNOT = 0.514444;
+
+    /**
+     * Meters in a foot.
+     */
+    private static final double METERS_PER_FOOT = 0.3048;
+
+    /**
+     * Meters in a statute mile.
+     */
+    private static final double METERS_PER_MILE = 1609.344;
+
+    /**
+     * Millibars in an inch of mercury.
+     */
+    private static final double MB_PER_INHG = 33.8639;
+
+    /**
+     * Millibars in a kilopascal.
+     */
+    private static final double MB_PER_KPA = 10.0;
+
+    /**
+     * Fahrenheit degrees per Celsius degree.
+     */
+    private static final double FAHRENHEIT_PER_CELSIUS = 1.8;
+
+    /**
+     * Fahrenheit freezing point.
+     */
+    private static final int FAHRENHEIT_FREEZING = 32;
+
+    /**
+     * Magnus formula coefficient.
+     */
+    private static final double MAGNUS_B = 17.625;
+
+    /**
+     * Magnus formula constant, in degrees Celsius.
+     */
+    private static final double MAGNUS_C = 243.04;
+
+    /**
+     * Percent.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Scale for values rounded to hundredths.
+     */
+    private static final double HUNDREDTHS = 100.0;
+
+    /**
+     * Scale for values rounded to tenths.
+     */
+    private static final double TENTHS = 10.0;
+
+    /**
+     * Not instantiated.
+     */
+    private DerivedUnits() {
+    }
+
+    /**
+     * Writes the fields derived from a model into its current JSON object. Types without derived fields write
+     * nothing.
+     *
+     * @param value model object
+     * @param gen JsonGenerator
+     * @throws IOException on write failure
+     */
+    static void write(final Object value, final JsonGenerator gen) throws IOException {
+        if (value instanceof Wind) {
+            final Wind wind = (Wind) value;
+            writeRounded(gen, "speed_mph", wind.getSpeedKt(), MPH_PER_KNOT);
+            writeRounded(gen, "speed_mps", wind.getSpeedKt(), MPS_PER_KNOT);
+            writeRounded(gen, "gust_mph", wind.getGustKt(), MPH_PER_KNOT);
+            writeRounded(gen, "gust_mps", wind.getGustKt(), MPS_PER_KNOT);
+        } else if (value instanceof Ceiling) {
+            final Ceiling ceiling = (Ceiling) value;
+            writeRounded(gen, "meters", ceiling.getFeet(), METERS_PER_FOOT);
+            writeRounded(gen, "meters_agl", ceiling.getFeetAgl(), METERS_PER_FOOT);
+            writeRounded(gen, "base_meters_agl", ceiling.getBaseFeetAgl(), METERS_PER_FOOT);
+        } else if (value instanceof Cloud) {
+            writeRounded(gen, "base_meters_agl", ((Cloud) value).getBaseFeetAgl(), METERS_PER_FOOT);
+        } else if (value instanceof Visibility) {
+            writeVisibility((Visibility) value, gen);
+        } else if (value instanceof Barometer) {
+            writeBarometer((Barometer) value, gen);
+        } else if (value instanceof Temperature) {
+            writeFahrenheit(gen, ((Temperature) value).getCelsius());
+        } else if (value instanceof Dewpoint) {
+            writeFahrenheit(gen, ((Dewpoint) value).getCelsius());
+        }
+    }
+
+    /**
+     * Derives the relative humidity from the temperature and dewpoint with the Magnus formula.
+     *
+     * @param metar METAR
+     * @return whole percent, or null when either value is missing
+     */
+    static String humidityPercent(final METAR metar) {
+        if (metar.getTemperature() == null || metar.getTemperature().getCelsius() == null
+                || metar.getDewpoint() == null || metar.getDewpoint().getCelsius() == null) {
+            return null;
+        }
+        final double temperature = metar.getTemperature().getCelsius();
+        final double dewpoint = metar.getDewpoint().getCelsius();
+        final double ratio = Math.exp(MAGNUS_B * dewpoint / (MAGNUS_C + dewpoint))
+                / Math.exp(MAGNUS_B * temperature / (MAGNUS_C + temperature));
+        return Long.toString(Math.round(Math.min(PERCENT, PERCENT * ratio)));
+    }
+
+    /**
+     * Writes the visibility in meters when it was reported in miles only.
+     *
+     * @param visibility Visibility
+     * @param gen JsonGenerator
+     * @throws IOException on write failure
+     */
+    private static void writeVisibility(final Visibility visibility, final JsonGenerator gen) throws IOException {
+        if (visibility.getMeters() != null || visibility.getMiles() == null) {
+            return;
+        }
+        final float miles = CompactMETAR.parseMiles(visibility.getMiles());
+        if (!Float.isNaN(miles)) {
+            gen.writeStringField("meters", Long.toString(Math.round(miles * METERS_PER_MILE)));
+        }
+    }
+
+    /**
+     * Writes the pressure in kilopascals, and in whichever of millibars and inches of mercury was not reported.
+     *
+     * @param barometer Barometer
+     * @param gen JsonGenerator
+     * @throws IOException on write failure
+     */
+    private static void writeBarometer(final Barometer barometer, final JsonGenerator gen) throws IOException {
+        Double mb = barometer.getMb();
+        if (mb == null && barometer.getHg() != null) {
+            mb = Math.round(barometer.getHg() * MB_PER_INHG * TENTHS) / TENTHS;
+            gen.writeNumberField("mb", mb);
+        }
+        if (mb == null) {
+            return;
+        }
+        if (barometer.getHg() == null) {
+            gen.writeNumberField("hg", Math.round(mb / MB_PER_INHG * HUNDREDTHS) / HUNDREDTHS);
+        }
+        gen.writeNumberField("kpa", Math.round(mb / MB_PER_KPA * HUNDREDTHS) / HUNDREDTHS);
+    }
+
+    /**
+     * Writes a Celsius temperature in Fahrenheit.
+     *
+     * @param gen JsonGenerator
+     * @param celsius degrees Celsius, may be null
+     * @throws IOException on write failure
+     */
+    private static void writeFahrenheit(final JsonGenerator gen, final Long celsius) throws IOException {
+        if (celsius != null) {
+            gen.writeNumberField("fahrenheit", Math.round(celsius * FAHRENHEIT_PER_CELSIUS) + FAHRENHEIT_FREEZING);
+        }
+    }
+
+    /**
+     * Writes a converted value rounded to a whole number, if the value is present.
+     *
+     * @param gen JsonGenerator
+     * @param name field name
+     * @param value value in the reported unit, may be null
+     * @param factor conversion factor
+     * @throws IOException on write failure
+     */
+    private static void writeRounded(final JsonGenerator gen, final String name, final Number value,
+                                     final double factor) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, Math.round(value.doubleValue() * factor));
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.config.WeatherProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits the configured ingest regions into feed tiles.
+ */
+@Slf4j
+public final class FeedTiles {
+
+    /**
+     * Number of values in a bounding box.
+     */
+    private static final int BBOX_VALUES = 4;
+
+    /**
+     * Index of the southern edge in a bounding box.
+     */
+    private static final int MIN_LAT = 1;
+
+    /**
+     * Index of the eastern edge in a bounding box.
+     */
+    private static final int MAX_LON = 2;
+
+    /**
+     * Index of the northern edge in a bounding box.
+     */
+    private static final int MAX_LAT = 3;
+
+    /**
+     * Log message for a region whose bounding box cannot be parsed.
+     */
+    private static final String MALFORMED_MSG = "Ignoring region [%s] with malformed bbox [%s]";
+
+    /**
+     * Initializes an instance of <code>FeedTiles</code>.
+     */
+    private FeedTiles() {
+    }
+
+    /**
+     * Splits regions into tiles no larger than the given size on either side. Regions that are already small enough
+     * are kept as a single tile, so their feed URL does not change.
+     *
+     * @param regions ingest regions
+     * @param tileDegrees largest tile side, in degrees
+     * @return distinct tile bounding boxes, each formatted as minLon,minLat,maxLon,maxLat
+     */
+    public static List<String> bboxes(final List<WeatherProperties.Region> regions, final double tileDegrees) {
+        final Set<String> tiles = new LinkedHashSet<>();
+        for (final WeatherProperties.Region region : regions) {
+            final double[] bbox = parse(region);
+            if (bbox == null) {
+                continue;
+            }
+            if (bbox[MAX_LON] - bbox[0] <= tileDegrees && bbox[MAX_LAT] - bbox[MIN_LAT] <= tileDegrees) {
+                tiles.add(region.getBbox().replace(" ", ""));
+                continue;
+            }
+            final int cols = (int) Math.ceil((bbox[MAX_LON] - bbox[0]) / tileDegrees);
+            final int rows = (int) Math.ceil((bbox[MAX_LAT] - bbox[MIN_LAT]) / tileDegrees);
+            final double width = (bbox[MAX_LON] - bbox[0]) / cols;
+            final double height = (bbox[MAX_LAT] - bbox[MIN_LAT]) / rows;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    tiles.add(format(bbox[0] + col * width, bbox[MIN_LAT] + row * height,
+                            bbox[0] + (col + 1) * width, bbox[MIN_LAT] + (row + 1) * height));
+                }
+            }
+        }
+        return new ArrayList<>(tiles);
+    }
+
+    /**
+     * Parses a region bounding box.
+     *
+     * @param region Region
+     * @return minLon, minLat, maxLon, maxLat, or null if the box is malformed
+     */
+    private static double[] parse(final WeatherProperties.Region region) {
+        if (region.getBbox() == null) {
+            return null;
+        }
+        final String[] values = region.getBbox().split(",");
+        if (values.length != BBOX_VALUES) {
+            log.warn(String.format(MALFORMED_MSG, region.getName(), region.getBbox()));
+            return null;
+        }
+        final double[] bbox = new double[BBOX_VALUES];
+        try {
+            for (int i = 0; i < BBOX_VALUES; i++) {
+                bbox[i] = Double.parseDouble(values[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            log.warn(String.format(MALFORMED_MSG, region.getName(), region.getBbox()));
+            return null;
+        }
+        if (bbox[MAX_LON] <= bbox[0] || bbox[MAX_LAT] <= bbox[MIN_LAT]) {
+            log.warn(String.format("Ignoring region [%s] with empty bbox [%s]", region.getName(), region.getBbox()));
+            return null;
+        }
+        return bbox;
+    }
+
+    /**
+     * Formats a tile bounding box.
+     *
+     * @param minLon western edge
+     * @param minLat southern edge
+     * @param maxLon eastern edge
+     * @param maxLat northern edge
+     * @return minLon,minLat,maxLon,maxLat
+     */
+    private static String format(final double minLon, final double minLat, final double maxLon,
+                                 final double maxLat) {
+        return String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.4f", minLon, minLat, maxLon, maxLat);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Product codec backed by a Jackson ObjectMapper; JSON or, with a binary factory such as Smile, a binary format.
+ */
+public class JacksonProductCodec implements ProductCodec {
+
+    /**
+     * JSON text format id.
+     */
+    public static final byte JSON = 1;
+
+    /**
+     * Smile binary format id.
+     */
+    public static final byte SMILE = 2;
+
+    /**
+     * Format id.
+     */
+    private final byte formatId;
+
+    /**
+     * Object mapper for the format.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Initializes an instance of <code>JacksonProductCodec</code>.
+     *
+     * @param format format id
+     * @param mapper ObjectMapper for the format
+     */
+    public JacksonProductCodec(final byte format, final ObjectMapper mapper) {
+        formatId = format;
+        objectMapper = mapper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte id() {
+        return formatId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encode(final Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T decode(final byte[] data, final int offset, final int length, final Class<T> type)
+            throws IOException {
+        return objectMapper.readValue(data, offset, length, type);
+    }
+
+}
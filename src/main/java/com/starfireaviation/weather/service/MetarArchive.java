@@ -0,0 +1,513 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.ArchiveSummary;
+import com.starfireaviation.weather.model.Cloud;
+import com.starfireaviation.weather.model.METAR;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-term METAR archive of memory-mapped, column-oriented segment files, one per station and UTC month, under a
+ * local directory.
+ *
+ * Observations are quantized on the way in: times to whole minutes relative to the segment start, temperature,
+ * dewpoint and pressure to tenths, and cover and flight category codes to per-segment dictionary codes. Scans read
+ * the mapped columns directly, so a range scan or aggregate allocates nothing per row.
+ *
+ * Every station-month is its own mapping, so mapped segments are kept in a least recently used cache of bounded size
+ * and unmapped when evicted; with tens of thousands of stations, past months would otherwise exhaust the process's
+ * mapping limit (vm.max_map_count). An evicted segment is mapped again when it is next read.
+ */
+@Slf4j
+public class MetarArchive {
+
+    /**
+     * Rows per segment; one report every three minutes for a whole month.
+     */
+    private static final int SEGMENT_CAPACITY = 16384;
+
+    /**
+     * Scale of the quantized temperature, dewpoint and pressure.
+     */
+    private static final double TENTHS = 10.0;
+
+    /**
+     * Feet per hundred, the unit of cloud bases.
+     */
+    private static final double HUNDRED_FEET = 100.0;
+
+    /**
+     * Segment file extension.
+     */
+    private static final String EXTENSION = ".wxa";
+
+    /**
+     * Archive directory.
+     */
+    private final Path directory;
+
+    /**
+     * Largest number of segments kept mapped.
+     */
+    private final int maxMappedSegments;
+
+    /**
+     * Mapped segments, keyed by file, least recently used first.
+     */
+    private final LinkedHashMap<Path, ArchiveSegment> segments = new LinkedHashMap<>();
+
+    /**
+     * Guards the segment cache.
+     */
+    private final ReentrantLock segmentsLock = new ReentrantLock();
+
+    /**
+     * Serializes appends and flushes. A lock rather than a monitor, so that a virtual thread blocked on segment I/O
+     * does not pin its carrier.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * Initializes an instance of <code>MetarArchive</code>.
+     *
+     * @param root archive directory
+     * @param maxMapped largest number of segments kept mapped
+     */
+    public MetarArchive(final Path root, final int maxMapped) {
+        directory = root;
+        maxMappedSegments = Math.max(1, maxMapped);
+    }
+
+    /**
+     * Appends observations to their station-month segments. Observations older than the newest archived observation
+     * of their station are skipped; a corrected report replaces the observation with the same time.
+     *
+     * @param metars observations
+     * @return number of observations archived
+     */
+    public int append(final Collection<METAR> metars) {
+        appendLock.lock();
+        try {
+            return appendLocked(metars);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends observations. Called with the append lock held.
+     *
+     * @param metars observations
+     * @return number of observations archived
+     */
+    private int appendLocked(final Collection<METAR> metars) {
+        int archived = 0;
+        for (final METAR metar : metars) {
+            if (metar.getIcao() == null || metar.getObserved() == null) {
+                continue;
+            }
+            try {
+                final Instant observed = Instant.parse(metar.getObserved());
+                final YearMonth month = YearMonth.from(observed.atOffset(ZoneOffset.UTC));
+                final ArchiveSegment segment = acquire(metar.getIcao(), month, true);
+                try {
+                    if (append(segment, observed.getEpochSecond(), metar)) {
+                        archived++;
+                    }
+                } finally {
+                    segment.release();
+                }
+            } catch (DateTimeParseException | IOException e) {
+                log.warn(String.format("Unable to archive METAR for %s: %s", metar.getIcao(), e.getMessage()));
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Visits the archived observations of a station within a time range, oldest first.
+     *
+     * @param icaoCode ICAO code
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @param visitor receives each observation
+     * @throws IOException when a segment cannot be mapped
+     */
+    public void scan(final String icaoCode, final Instant from, final Instant to, final RowVisitor visitor)
+            throws IOException {
+        final long start = from.getEpochSecond();
+        final long end = to.getEpochSecond();
+        final YearMonth last = YearMonth.from(to.atOffset(ZoneOffset.UTC));
+        for (YearMonth month = YearMonth.from(from.atOffset(ZoneOffset.UTC)); !month.isAfter(last);
+             month = month.plusMonths(1)) {
+            final ArchiveSegment segment = acquire(icaoCode, month, false);
+            if (segment == null) {
+                continue;
+            }
+            try {
+                final int rows = segment.count();
+                for (int row = segment.firstAtOrAfter(start, rows); row < rows; row++) {
+                    if (segment.epochSecond(row) >= end) {
+                        break;
+                    }
+                    segment.visit(row, rows, visitor);
+                }
+            } finally {
+                segment.release();
+            }
+        }
+    }
+
+    /**
+     * Aggregates the archived observations of a station within a time range.
+     *
+     * @param icaoCode ICAO code
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @return ArchiveSummary
+     * @throws IOException when a segment cannot be mapped
+     */
+    public ArchiveSummary summarize(final String icaoCode, final Instant from, final Instant to) throws IOException {
+        final Accumulator accumulator = new Accumulator();
+        scan(icaoCode, from, to, accumulator);
+        final ArchiveSummary summary = new ArchiveSummary();
+        summary.setIcao(icaoCode);
+        summary.setFrom(from.toString());
+        summary.setTo(to.toString());
+        summary.setObservations(accumulator.observations);
+        summary.setTemperature(accumulator.temperature.toSummary());
+        summary.setDewpoint(accumulator.dewpoint.toSummary());
+        summary.setPressure(accumulator.pressure.toSummary());
+        summary.setFlightCategories(accumulator.categories());
+        return summary;
+    }
+
+    /**
+     * Flushes every mapped segment to disk.
+     */
+    public void force() {
+        appendLock.lock();
+        segmentsLock.lock();
+        try {
+            segments.values().forEach(ArchiveSegment::force);
+        } finally {
+            segmentsLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Number of segments currently mapped by the cache.
+     *
+     * @return mapped segment count
+     */
+    int mappedSegments() {
+        segmentsLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    /**
+     * Quantizes and appends an observation.
+     *
+     * @param segment segment
+     * @param epochSecond observation time
+     * @param metar observation
+     * @return true if stored
+     */
+    private static boolean append(final ArchiveSegment segment, final long epochSecond, final METAR metar) {
+        short temperature = ArchiveSegment.ABSENT;
+        if (metar.getTemperature() != null && metar.getTemperature().getCelsius() != null) {
+            temperature = quantize(metar.getTemperature().getCelsius());
+        }
+        short dewpoint = ArchiveSegment.ABSENT;
+        if (metar.getDewpoint() != null && metar.getDewpoint().getCelsius() != null) {
+            dewpoint = quantize(metar.getDewpoint().getCelsius());
+        }
+        short pressure = ArchiveSegment.ABSENT;
+        if (metar.getBarometer() != null && metar.getBarometer().getMb() != null) {
+            pressure = quantize(metar.getBarometer().getMb());
+        }
+        String cover = null;
+        char base = ArchiveSegment.NO_BASE;
+        if (metar.getCeiling() != null) {
+            cover = metar.getCeiling().getCode();
+            base = hundreds(metar.getCeiling().getFeet());
+        } else if (metar.getClouds() != null && !metar.getClouds().isEmpty()) {
+            final Cloud highest = metar.getClouds().get(metar.getClouds().size() - 1);
+            cover = highest.getCode();
+            base = hundreds(highest.getBaseFeetAgl());
+        }
+        return segment.append(epochSecond, temperature, dewpoint, pressure, cover, base, metar.getFlightCategory());
+    }
+
+    /**
+     * Quantizes a value to tenths.
+     *
+     * @param value value
+     * @return tenths, or ABSENT when out of range
+     */
+    private static short quantize(final double value) {
+        final long tenths = Math.round(value * TENTHS);
+        if (tenths <= Short.MIN_VALUE || tenths > Short.MAX_VALUE) {
+            return ArchiveSegment.ABSENT;
+        }
+        return (short) tenths;
+    }
+
+    /**
+     * Quantizes a height to hundreds of feet.
+     *
+     * @param feet height
+     * @return hundreds of feet, or NO_BASE
+     */
+    private static char hundreds(final Double feet) {
+        if (feet == null || feet < 0 || feet / HUNDRED_FEET >= Character.MAX_VALUE) {
+            return ArchiveSegment.NO_BASE;
+        }
+        return (char) Math.round(feet / HUNDRED_FEET);
+    }
+
+    /**
+     * Gets a mapped segment, mapping it if it is not cached and evicting the least recently used segments beyond the
+     * cache size. The caller holds a reference to the segment and must release it.
+     *
+     * @param icaoCode ICAO code
+     * @param month UTC month
+     * @param create whether to create the segment when the station has no archive for the month
+     * @return ArchiveSegment, or null when the station has no archive for the month and create is false
+     * @throws IOException when the segment cannot be mapped
+     */
+    private ArchiveSegment acquire(final String icaoCode, final YearMonth month, final boolean create)
+            throws IOException {
+        final Path file = file(icaoCode, month);
+        segmentsLock.lock();
+        try {
+            ArchiveSegment segment = segments.remove(file);
+            if (segment == null) {
+                if (create) {
+                    segment = ArchiveSegment.create(file, SEGMENT_CAPACITY,
+                            month.atDay(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond());
+                } else {
+                    segment = ArchiveSegment.open(file);
+                }
+                if (segment == null) {
+                    return null;
+                }
+            }
+            segments.put(file, segment);
+            final Iterator<ArchiveSegment> eldest = segments.values().iterator();
+            while (segments.size() > maxMappedSegments) {
+                final ArchiveSegment evicted = eldest.next();
+                eldest.remove();
+                evicted.release();
+            }
+            segment.retain();
+            return segment;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    /**
+     * Resolves a segment file.
+     *
+     * @param icaoCode ICAO code
+     * @param month UTC month
+     * @return path
+     * @throws IOException when the station identifier is not alphanumeric
+     */
+    private Path file(final String icaoCode, final YearMonth month) throws IOException {
+        for (int i = 0; i < icaoCode.length(); i++) {
+            if (!Character.isLetterOrDigit(icaoCode.charAt(i))) {
+                throw new IOException(String.format("Invalid station [%s]", icaoCode));
+            }
+        }
+        return directory.resolve(icaoCode.toUpperCase(Locale.ROOT)).resolve(month + EXTENSION);
+    }
+
+    /**
+     * Receives archived observations. Quantized values are passed as stored.
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+
+        /**
+         * Receives an observation.
+         *
+         * @param epochSecond observation time
+         * @param temperature tenths of a degree Celsius, or Short.MIN_VALUE when not reported
+         * @param dewpoint tenths of a degree Celsius, or Short.MIN_VALUE when not reported
+         * @param pressure tenths of a millibar, or Short.MIN_VALUE when not reported
+         * @param cover ceiling or highest cloud cover code, or null
+         * @param base cloud base in hundreds of feet, or Character.MAX_VALUE when not reported
+         * @param category flight category, or null
+         */
+        void visit(long epochSecond, short temperature, short dewpoint, short pressure, String cover, char base,
+                   String category);
+    }
+
+    /**
+     * Running minimum, maximum and sum of a quantized value.
+     */
+    private static final class Stats {
+
+        /**
+         * Number of reported values.
+         */
+        private int count;
+
+        /**
+         * Minimum, in tenths.
+         */
+        private int min = Integer.MAX_VALUE;
+
+        /**
+         * Maximum, in tenths.
+         */
+        private int max = Integer.MIN_VALUE;
+
+        /**
+         * Sum, in tenths.
+         */
+        private long sum;
+
+        /**
+         * Adds a value.
+         *
+         * @param tenths quantized value
+         */
+        void add(final short tenths) {
+            if (tenths == ArchiveSegment.ABSENT) {
+                return;
+            }
+            count++;
+            min = Math.min(min, tenths);
+            max = Math.max(max, tenths);
+            sum += tenths;
+        }
+
+        /**
+         * Builds the summary.
+         *
+         * @return ValueSummary, or null when no value was reported
+         */
+        ArchiveSummary.ValueSummary toSummary() {
+            if (count == 0) {
+                return null;
+            }
+            return new ArchiveSummary.ValueSummary(count, min / TENTHS, max / TENTHS,
+                    Math.round(sum / (double) count) / TENTHS);
+        }
+    }
+
+    /**
+     * Aggregates a scan.
+     */
+    private static final class Accumulator implements RowVisitor {
+
+        /**
+         * Largest number of distinct flight categories counted.
+         */
+        private static final int MAX_CATEGORIES = 16;
+
+        /**
+         * Temperature.
+         */
+        private final Stats temperature = new Stats();
+
+        /**
+         * Dewpoint.
+         */
+        private final Stats dewpoint = new Stats();
+
+        /**
+         * Pressure.
+         */
+        private final Stats pressure = new Stats();
+
+        /**
+         * Flight categories seen, in order of first appearance.
+         */
+        private final String[] categoryNames = new String[MAX_CATEGORIES];
+
+        /**
+         * Observations per flight category.
+         */
+        private final int[] categoryCounts = new int[MAX_CATEGORIES];
+
+        /**
+         * Number of observations.
+         */
+        private int observations;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void visit(final long epochSecond, final short temp, final short dew, final short mb,
+                          final String cover, final char base, final String category) {
+            observations++;
+            temperature.add(temp);
+            dewpoint.add(dew);
+            pressure.add(mb);
+            if (category == null) {
+                return;
+            }
+            for (int i = 0; i < MAX_CATEGORIES; i++) {
+                if (categoryNames[i] == null) {
+                    categoryNames[i] = category;
+                }
+                if (categoryNames[i].equals(category)) {
+                    categoryCounts[i]++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Builds the per-category counts.
+         *
+         * @return observations per flight category
+         */
+        Map<String, Integer> categories() {
+            final Map<String, Integer> categories = new LinkedHashMap<>();
+            for (int i = 0; i < MAX_CATEGORIES && categoryNames[i] != null; i++) {
+                categories.put(categoryNames[i], categoryCounts[i]);
+            }
+            return categories;
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.MetarEvent;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Compares consecutive observations of a station and reports what changed as typed {@link MetarEvent}s.
+ *
+ * A missing ceiling counts as unlimited; a missing visibility is unknown and never crosses a threshold.
+ */
+public class MetarChangeDetector {
+
+    /**
+     * Ceiling thresholds, in feet.
+     */
+    private final int[] ceilingThresholds;
+
+    /**
+     * Visibility thresholds, in statute miles.
+     */
+    private final double[] visibilityThresholds;
+
+    /**
+     * Initializes an instance of <code>MetarChangeDetector</code>.
+     *
+     * @param ceilings ceiling thresholds, in feet
+     * @param visibilities visibility thresholds, in statute miles
+     */
+    public MetarChangeDetector(final List<Integer> ceilings, final List<Double> visibilities) {
+        ceilingThresholds = ceilings.stream().mapToInt(Integer::intValue).sorted().toArray();
+        visibilityThresholds = visibilities.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+    }
+
+    /**
+     * Reports the changes between two observations of a station.
+     *
+     * @param previous previous observation
+     * @param current new observation
+     * @param events receives the changes
+     */
+    public void detect(final CompactMETAR previous, final CompactMETAR current, final Consumer<MetarEvent> events) {
+        if (previous.getObserved() == current.getObserved()
+                && Objects.equals(previous.getRawText(), current.getRawText())) {
+            return;
+        }
+        final String observed = current.getObservedText();
+        if (current.isSpeci()) {
+            events.accept(new MetarEvent(MetarEvent.Type.SPECI, current.getIcao(), observed, null,
+                    current.getRawText(), null));
+        }
+        final String fromCategory = previous.getFlightCategory();
+        final String toCategory = current.getFlightCategory();
+        if (fromCategory != null && toCategory != null && !fromCategory.equals(toCategory)) {
+            events.accept(new MetarEvent(MetarEvent.Type.FLIGHT_CATEGORY_CHANGED, current.getIcao(), observed,
+                    fromCategory, toCategory, null));
+        }
+        final int fromCeiling = ceiling(previous);
+        final int toCeiling = ceiling(current);
+        for (final int threshold : ceilingThresholds) {
+            if (fromCeiling < threshold != toCeiling < threshold) {
+                events.accept(new MetarEvent(MetarEvent.Type.CEILING_THRESHOLD_CROSSED, current.getIcao(), observed,
+                        ceilingText(fromCeiling), ceilingText(toCeiling), (double) threshold));
+            }
+        }
+        final float fromVisibility = previous.getVisibilityMiles();
+        final float toVisibility = current.getVisibilityMiles();
+        if (Float.isNaN(fromVisibility) || Float.isNaN(toVisibility)) {
+            return;
+        }
+        for (final double threshold : visibilityThresholds) {
+            if (fromVisibility < threshold != toVisibility < threshold) {
+                events.accept(new MetarEvent(MetarEvent.Type.VISIBILITY_THRESHOLD_CROSSED, current.getIcao(),
+                        observed, previous.getVisibilityText(), current.getVisibilityText(), threshold));
+            }
+        }
+    }
+
+    /**
+     * Ceiling of an observation, unlimited when there is none.
+     *
+     * @param metar observation
+     * @return ceiling in feet
+     */
+    private static int ceiling(final CompactMETAR metar) {
+        if (metar.getCeilingFeet() == CompactMETAR.MISSING) {
+            return Integer.MAX_VALUE;
+        }
+        return metar.getCeilingFeet();
+    }
+
+    /**
+     * Formats a ceiling.
+     *
+     * @param feet ceiling in feet
+     * @return text, or null when unlimited
+     */
+    private static String ceilingText(final int feet) {
+        if (feet == Integer.MAX_VALUE) {
+            return null;
+        }
+        return Integer.toString(feet);
+    }
+
+}
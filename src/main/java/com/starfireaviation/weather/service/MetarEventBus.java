@@ -0,0 +1,224 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.MetarEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus of METAR change events.
+ *
+ * Registered as a {@link MetarStore} listener, it diffs every published observation against the one it replaced and
+ * hands the resulting events to each consumer through that consumer's own {@link SpscRing}. The ingest thread only
+ * offers to the rings and unparks the consumer threads, so a slow consumer never slows ingest down: when its ring is
+ * full, further events are dropped for it and counted. The store publishes one cycle at a time, which makes the
+ * publishing thread the single producer of every ring.
+ */
+@Slf4j
+public class MetarEventBus implements MetarStore.Listener {
+
+    /**
+     * Longest idle park of a consumer thread; bounds the wake-up delay if an unpark is missed.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Change detector.
+     */
+    private final MetarChangeDetector detector;
+
+    /**
+     * Ring capacity of each consumer.
+     */
+    private final int queueCapacity;
+
+    /**
+     * Registered consumers.
+     */
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of events emitted.
+     */
+    private final AtomicLong emitted = new AtomicLong();
+
+    /**
+     * Initializes an instance of <code>MetarEventBus</code>.
+     *
+     * @param changeDetector MetarChangeDetector
+     * @param capacity ring capacity of each consumer
+     */
+    public MetarEventBus(final MetarChangeDetector changeDetector, final int capacity) {
+        detector = changeDetector;
+        queueCapacity = capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void published(final List<CompactMETAR> previous, final List<CompactMETAR> published) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < published.size(); i++) {
+            if (previous.get(i) != null) {
+                detector.detect(previous.get(i), published.get(i), this::dispatch);
+            }
+        }
+    }
+
+    /**
+     * Registers a consumer. Events are delivered on a dedicated thread, in order.
+     *
+     * @param name consumer name, used for its thread
+     * @param handler receives events
+     * @return Subscription
+     */
+    public Subscription subscribe(final String name, final Consumer<MetarEvent> handler) {
+        final Subscription subscription = new Subscription(name, new SpscRing<>(queueCapacity), handler);
+        subscriptions.add(subscription);
+        subscription.thread = Thread.ofVirtual().name("metar-events-" + name).start(subscription::run);
+        return subscription;
+    }
+
+    /**
+     * Number of events emitted since startup.
+     *
+     * @return event count
+     */
+    public long getEmitted() {
+        return emitted.get();
+    }
+
+    /**
+     * Stops every consumer.
+     */
+    public void shutdown() {
+        subscriptions.forEach(Subscription::close);
+    }
+
+    /**
+     * Offers an event to every consumer.
+     *
+     * @param event MetarEvent
+     */
+    private void dispatch(final MetarEvent event) {
+        emitted.incrementAndGet();
+        for (final Subscription subscription : subscriptions) {
+            if (subscription.ring.offer(event)) {
+                LockSupport.unpark(subscription.thread);
+            } else {
+                subscription.dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Consumer of the bus.
+     */
+    public final class Subscription {
+
+        /**
+         * Consumer name.
+         */
+        private final String name;
+
+        /**
+         * Pending events.
+         */
+        private final SpscRing<MetarEvent> ring;
+
+        /**
+         * Event handler.
+         */
+        private final Consumer<MetarEvent> handler;
+
+        /**
+         * Events dropped because the ring was full.
+         */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /**
+         * Delivery thread.
+         */
+        private volatile Thread thread;
+
+        /**
+         * Set when closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Initializes an instance of <code>Subscription</code>.
+         *
+         * @param consumerName consumer name
+         * @param events ring
+         * @param eventHandler event handler
+         */
+        Subscription(final String consumerName, final SpscRing<MetarEvent> events,
+                     final Consumer<MetarEvent> eventHandler) {
+            name = consumerName;
+            ring = events;
+            handler = eventHandler;
+        }
+
+        /**
+         * Number of events dropped for this consumer.
+         *
+         * @return dropped event count
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Unregisters the consumer and stops its thread.
+         */
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * Delivers events until closed.
+         */
+        private void run() {
+            while (!closed) {
+                final MetarEvent event = ring.poll();
+                if (event == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException e) {
+                    log.warn(String.format("METAR event consumer %s failed: %s", name, e.getMessage()));
+                }
+            }
+        }
+    }
+
+}
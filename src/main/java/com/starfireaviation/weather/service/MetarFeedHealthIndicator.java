@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+
+/**
+ * Health of the METAR feed: down when no ingest cycle has completed within the staleness limit, so that a service
+ * answering with old observations is reported as such.
+ */
+public class MetarFeedHealthIndicator implements HealthIndicator {
+
+    /**
+     * WeatherMetrics.
+     */
+    private final WeatherMetrics weatherMetrics;
+
+    /**
+     * Current observations.
+     */
+    private final MetarStore metarStore;
+
+    /**
+     * Longest accepted time since the last completed ingest cycle, in seconds.
+     */
+    private final double staleAfterSeconds;
+
+    /**
+     * Initializes an instance of <code>MetarFeedHealthIndicator</code>.
+     *
+     * @param metrics WeatherMetrics
+     * @param store MetarStore
+     * @param staleAfter longest accepted time since the last completed ingest cycle
+     */
+    public MetarFeedHealthIndicator(final WeatherMetrics metrics, final MetarStore store,
+                                    final Duration staleAfter) {
+        weatherMetrics = metrics;
+        metarStore = store;
+        staleAfterSeconds = staleAfter.getSeconds();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Health health() {
+        final double age = weatherMetrics.getIngestAgeSeconds();
+        Health.Builder builder = Health.up();
+        if (age > staleAfterSeconds) {
+            builder = Health.down();
+        }
+        return builder
+                .withDetail("ingestAgeSeconds", Math.round(age))
+                .withDetail("staleAfterSeconds", Math.round(staleAfterSeconds))
+                .withDetail("stations", metarStore.size())
+                .build();
+    }
+
+}
@@ -0,0 +1,326 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.starfireaviation.weather.config.WeatherConstants;
+import com.starfireaviation.weather.model.Barometer;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.Dewpoint;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Temperature;
+import com.starfireaviation.weather.model.Visibility;
+import com.starfireaviation.weather.model.Wind;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for the AviationWeather.gov MetarJSON GeoJSON feed.
+ *
+ * Features are read one at a time straight from the response stream and handed to the caller as {@link METAR}
+ * objects, so neither the response body nor a DOM of it is ever held in memory.
+ */
+public class MetarFeedParser {
+
+    /**
+     * Features.
+     */
+    private static final String FEATURES = "features";
+
+    /**
+     * Properties.
+     */
+    private static final String PROPERTIES = "properties";
+
+    /**
+     * Geometry.
+     */
+    private static final String GEOMETRY = "geometry";
+
+    /**
+     * Coordinates.
+     */
+    private static final String COORDINATES = "coordinates";
+
+    /**
+     * Feet in a hundred feet; the feed reports the ceiling in hundreds of feet, as it does cloud bases.
+     */
+    private static final int FEET_PER_HUNDRED = 100;
+
+    /**
+     * JSON parser factory.
+     */
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Initializes an instance of <code>MetarFeedParser</code>.
+     *
+     * @param factory JsonFactory
+     */
+    public MetarFeedParser(final JsonFactory factory) {
+        jsonFactory = factory;
+    }
+
+    /**
+     * Parses a MetarJSON response.
+     *
+     * @param inputStream response body
+     * @param consumer receives each parsed METAR
+     * @throws IOException when the stream cannot be read or is not valid JSON
+     */
+    public void parse(final InputStream inputStream, final Consumer<METAR> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if (FEATURES.equals(field) && value == JsonToken.START_ARRAY) {
+                    final CloudLayers layers = new CloudLayers();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        final METAR metar = parseFeature(parser, layers);
+                        if (metar != null) {
+                            consumer.accept(metar);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a single GeoJSON feature. The parser is positioned on the feature's START_OBJECT.
+     *
+     * @param parser JsonParser
+     * @param layers scratch space for cloud layers
+     * @return METAR, or null if the feature has no id or no station identifier
+     * @throws IOException on read failure
+     */
+    private METAR parseFeature(final JsonParser parser, final CloudLayers layers) throws IOException {
+        boolean hasId = false;
+        METAR metar = null;
+        double[] point = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (WeatherConstants.ID.equals(field)) {
+                hasId = value != JsonToken.VALUE_NULL;
+            } else if (PROPERTIES.equals(field) && value == JsonToken.START_OBJECT) {
+                metar = parseProperties(parser, layers);
+            } else if (GEOMETRY.equals(field) && value == JsonToken.START_OBJECT) {
+                point = parsePoint(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!hasId || metar == null || metar.getIcao() == null) {
+            return null;
+        }
+        if (point != null) {
+            metar.setLongitude(point[0]);
+            metar.setLatitude(point[1]);
+        }
+        return metar;
+    }
+
+    /**
+     * Parses a GeoJSON Point geometry. The parser is positioned on the geometry START_OBJECT.
+     *
+     * @param parser JsonParser
+     * @return longitude and latitude, or null if the geometry has no coordinate pair
+     * @throws IOException on read failure
+     */
+    static double[] parsePoint(final JsonParser parser) throws IOException {
+        double[] point = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (COORDINATES.equals(field) && value == JsonToken.START_ARRAY) {
+                final double[] coordinates = new double[2];
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken().isNumeric() && count < coordinates.length) {
+                        coordinates[count] = parser.getDoubleValue();
+                        count++;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (count == coordinates.length) {
+                    point = coordinates;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return point;
+    }
+
+    /**
+     * Parses the properties of a feature. The parser is positioned on the properties START_OBJECT.
+     *
+     * @param parser JsonParser
+     * @param layers scratch space for cloud layers
+     * @return METAR
+     * @throws IOException on read failure
+     */
+    private METAR parseProperties(final JsonParser parser, final CloudLayers layers) throws IOException {
+        final METAR metar = new METAR();
+        layers.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (!value.isScalarValue()) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case WeatherConstants.ID:
+                    metar.setIcao(parser.getText());
+                    break;
+                case WeatherConstants.OBSERVED_TIME:
+                    metar.setObserved(parser.getText());
+                    break;
+                case WeatherConstants.TEMPERATURE:
+                    final Temperature temperature = new Temperature();
+                    temperature.setCelsius(Math.round(parser.getValueAsDouble()));
+                    metar.setTemperature(temperature);
+                    break;
+                case WeatherConstants.DEWPOINT:
+                    final Dewpoint dewpoint = new Dewpoint();
+                    dewpoint.setCelsius(Math.round(parser.getValueAsDouble()));
+                    metar.setDewpoint(dewpoint);
+                    break;
+                case WeatherConstants.WIND_SPEED:
+                    wind(metar).setSpeedKt(parser.getValueAsInt());
+                    break;
+                case WeatherConstants.WIND_GUST:
+                    wind(metar).setGustKt(parser.getValueAsInt());
+                    break;
+                case WeatherConstants.WIND_DIRECTION:
+                    if (value == JsonToken.VALUE_NUMBER_INT || isNumeric(parser.getText())) {
+                        wind(metar).setDegrees(parser.getValueAsInt());
+                    }
+                    break;
+                case WeatherConstants.CEILING:
+                    ceiling(metar).setFeet(parser.getValueAsDouble() * FEET_PER_HUNDRED);
+                    break;
+                case WeatherConstants.COVER:
+                    ceiling(metar).setCode(parser.getText());
+                    break;
+                case WeatherConstants.VISIBILITY:
+                    final Visibility visibility = new Visibility();
+                    visibility.setMiles(parser.getText());
+                    metar.setVisibility(visibility);
+                    break;
+                case WeatherConstants.FLIGHT_CATEGORY:
+                    metar.setFlightCategory(parser.getText());
+                    break;
+                case WeatherConstants.ALTIMETER:
+                    final Barometer barometer = new Barometer();
+                    barometer.setMb(parser.getValueAsDouble());
+                    metar.setBarometer(barometer);
+                    break;
+                case WeatherConstants.RAW_OBSERVATION:
+                    metar.setRawText(parser.getText());
+                    break;
+                case WeatherConstants.REPORT_TYPE:
+                    metar.setReportType(parser.getText());
+                    break;
+                default:
+                    layers.accept(field, parser);
+            }
+        }
+        finish(metar, layers);
+        return metar;
+    }
+
+    /**
+     * Applies the cross-field rules that can only be evaluated once all properties have been read.
+     *
+     * @param metar METAR
+     * @param layers cloud layers read for this feature
+     */
+    private static void finish(final METAR metar, final CloudLayers layers) {
+        // The feed reports "cover" even when there is no ceiling; only keep a ceiling that has a height.
+        if (metar.getCeiling() != null && metar.getCeiling().getFeet() == null) {
+            metar.setCeiling(null);
+        }
+        // Wind is only meaningful with a speed.
+        if (metar.getWind() != null && metar.getWind().getSpeedKt() == null) {
+            metar.setWind(null);
+        }
+        if (layers.count() > 0) {
+            metar.setClouds(layers.toClouds());
+        }
+    }
+
+    /**
+     * Gets or creates the Wind of a METAR.
+     *
+     * @param metar METAR
+     * @return Wind
+     */
+    private static Wind wind(final METAR metar) {
+        if (metar.getWind() == null) {
+            metar.setWind(new Wind());
+        }
+        return metar.getWind();
+    }
+
+    /**
+     * Gets or creates the Ceiling of a METAR.
+     *
+     * @param metar METAR
+     * @return Ceiling
+     */
+    private static Ceiling ceiling(final METAR metar) {
+        if (metar.getCeiling() == null) {
+            metar.setCeiling(new Ceiling());
+        }
+        return metar.getCeiling();
+    }
+
+    /**
+     * Checks if a text value holds a number.
+     *
+     * @param text value
+     * @return true if numeric
+     */
+    static boolean isNumeric(final String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.ArchiveSummary;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.MetarObservation;
+import com.starfireaviation.weather.model.MetarObservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Append-only METAR history: full observations in the METAR_OBSERVATION table for the retention period, and
+ * quantized observations in the long-term {@link MetarArchive}.
+ *
+ * Observations are queued and written by a single background thread, so recording history never delays the ingest
+ * cycle or the current-observation rows in WEATHER_PRODUCT. Reads go through the (station, observed_at) index.
+ */
+@Slf4j
+public class MetarHistoryService {
+
+    /**
+     * Seconds to wait for queued writes on shutdown.
+     */
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * JSON Object Serializer/Deserializer.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * MetarObservationRepository.
+     */
+    private final MetarObservationRepository metarObservationRepository;
+
+    /**
+     * TransactionTemplate.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * How long observations are kept.
+     */
+    private final Duration retention;
+
+    /**
+     * Long-term archive.
+     */
+    private final MetarArchive metarArchive;
+
+    /**
+     * Single writer thread.
+     */
+    private final ExecutorService writer;
+
+    /**
+     * Initializes an instance of <code>MetarHistoryService</code>.
+     *
+     * @param mapper ObjectMapper
+     * @param repository MetarObservationRepository
+     * @param transactions TransactionTemplate
+     * @param keep how long observations are kept
+     * @param archive long-term archive
+     * @param writerThreads creates the writer thread
+     */
+    public MetarHistoryService(final ObjectMapper mapper,
+                               final MetarObservationRepository repository,
+                               final TransactionTemplate transactions,
+                               final Duration keep,
+                               final MetarArchive archive,
+                               final ThreadFactory writerThreads) {
+        writer = Executors.newSingleThreadExecutor(writerThreads);
+        objectMapper = mapper;
+        metarObservationRepository = repository;
+        transactionTemplate = transactions;
+        retention = keep;
+        metarArchive = archive;
+    }
+
+    /**
+     * Queues observations to be appended to the history. Returns immediately.
+     *
+     * @param metars new observations
+     */
+    public void record(final Collection<METAR> metars) {
+        if (metars.isEmpty()) {
+            return;
+        }
+        final List<METAR> batch = new ArrayList<>(metars);
+        try {
+            writer.execute(() -> append(batch));
+        } catch (RejectedExecutionException ree) {
+            log.warn(String.format("History writer stopped; %d observations not recorded", batch.size()));
+        }
+    }
+
+    /**
+     * Retrieves the observations of a station within a time range, oldest first. When a report was corrected, only
+     * the latest version of it is returned.
+     *
+     * @param icaoCode ICAO code
+     * @param from start of the range, inclusive
+     * @param to end of the range, inclusive
+     * @return list of METAR
+     */
+    public List<METAR> getHistory(final String icaoCode, final Instant from, final Instant to) {
+        final Map<Date, METAR> byTime = new LinkedHashMap<>();
+        for (final MetarObservation observation : metarObservationRepository
+                .findByStationAndObservedAtBetweenOrderByObservedAtAscIdAsc(icaoCode, Date.from(from), Date.from(to))) {
+            try {
+                byTime.put(observation.getObservedAt(), objectMapper.readValue(observation.getValue(), METAR.class));
+            } catch (IOException e) {
+                log.warn(String.format("Unable to deserialize METAR history for %s: %s", icaoCode, e.getMessage()));
+            }
+        }
+        return new ArrayList<>(byTime.values());
+    }
+
+    /**
+     * Aggregates the archived observations of a station within a time range.
+     *
+     * @param icaoCode ICAO code
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @return ArchiveSummary
+     * @throws IOException when the archive cannot be read
+     */
+    public ArchiveSummary summarize(final String icaoCode, final Instant from, final Instant to) throws IOException {
+        return metarArchive.summarize(icaoCode, from, to);
+    }
+
+    /**
+     * Deletes observations older than the retention period.
+     */
+    public void purge() {
+        final Date cutoff = Date.from(Instant.now().minus(retention));
+        final Integer deleted = transactionTemplate.execute(
+                status -> metarObservationRepository.deleteObservedBefore(cutoff));
+        log.info(String.format("Purged %d METAR observations older than %s", deleted, cutoff.toInstant()));
+    }
+
+    /**
+     * Waits for the observations queued so far to be written.
+     *
+     * @param timeout maximum time to wait
+     * @return true if the queued observations were written within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitWrites(final Duration timeout) throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the writer after the queued observations have been written.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for METAR history writes");
+            }
+            metarArchive.force();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends a batch of observations in a single transaction.
+     *
+     * @param metars observations
+     */
+    private void append(final List<METAR> metars) {
+        final List<MetarObservation> observations = new ArrayList<>(metars.size());
+        for (final METAR metar : metars) {
+            if (metar.getObserved() == null) {
+                continue;
+            }
+            try {
+                final MetarObservation observation = new MetarObservation();
+                observation.setStation(metar.getIcao());
+                observation.setObservedAt(Date.from(Instant.parse(metar.getObserved())));
+                observation.setValue(objectMapper.writeValueAsString(metar));
+                observations.add(observation);
+            } catch (DateTimeParseException | JsonProcessingException e) {
+                log.warn(String.format("Unable to record METAR history for %s: %s", metar.getIcao(),
+                        e.getMessage()));
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> metarObservationRepository.saveAll(observations));
+        } catch (RuntimeException re) {
+            log.error(String.format("Unable to record %d METAR observations: %s", observations.size(),
+                    re.getMessage()), re);
+        }
+        metarArchive.append(metars);
+    }
+
+}
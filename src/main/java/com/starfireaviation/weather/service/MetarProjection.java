@@ -0,0 +1,585 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.NearbyMETAR;
+import org.apache.commons.collections.CollectionUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled selection of METAR attributes.
+ *
+ * The requested attribute names are resolved once into a bitmask; serializing a METAR through the projection writes
+ * the selected attributes straight from the cached object, without copying it. The ICAO code is always written.
+ * Values converted to other units are not part of any attribute: they are derived while writing, and only when
+ * {@link #UNITS} is selected. The relative humidity is derived too, and written whenever {@link #HUMIDITY_PERCENT} is
+ * selected; it is left out of {@link #ALL_ATTRIBUTES}, so a client asks for it by name or with units alone.
+ */
+public final class MetarProjection {
+
+    /**
+     * Name bit.
+     */
+    public static final int NAME = 1;
+
+    /**
+     * Observed bit.
+     */
+    public static final int OBSERVED = NAME << 1;
+
+    /**
+     * Raw text bit.
+     */
+    public static final int RAW_TEXT = OBSERVED << 1;
+
+    /**
+     * Barometer bit.
+     */
+    public static final int BAROMETER = RAW_TEXT << 1;
+
+    /**
+     * Ceiling bit.
+     */
+    public static final int CEILING = BAROMETER << 1;
+
+    /**
+     * Clouds bit.
+     */
+    public static final int CLOUDS = CEILING << 1;
+
+    /**
+     * Dewpoint bit.
+     */
+    public static final int DEWPOINT = CLOUDS << 1;
+
+    /**
+     * Elevation bit.
+     */
+    public static final int ELEVATION = DEWPOINT << 1;
+
+    /**
+     * Flight category bit.
+     */
+    public static final int FLIGHT_CATEGORY = ELEVATION << 1;
+
+    /**
+     * Humidity percent bit. Derived from temperature and dewpoint, and not part of {@link #ALL_ATTRIBUTES}.
+     */
+    public static final int HUMIDITY_PERCENT = FLIGHT_CATEGORY << 1;
+
+    /**
+     * Temperature bit.
+     */
+    public static final int TEMPERATURE = HUMIDITY_PERCENT << 1;
+
+    /**
+     * Visibility bit.
+     */
+    public static final int VISIBILITY = TEMPERATURE << 1;
+
+    /**
+     * Wind bit.
+     */
+    public static final int WIND = VISIBILITY << 1;
+
+    /**
+     * Location bit, covering latitude and longitude.
+     */
+    public static final int LOCATION = WIND << 1;
+
+    /**
+     * Report type bit.
+     */
+    public static final int REPORT_TYPE = LOCATION << 1;
+
+    /**
+     * Derived units bit. Adds converted values to the selected objects.
+     */
+    public static final int UNITS = REPORT_TYPE << 1;
+
+    /**
+     * Every reported attribute, without the relative humidity or derived units.
+     */
+    public static final int ALL_ATTRIBUTES = (UNITS - 1) & ~HUMIDITY_PERCENT;
+
+    /**
+     * Projection of every attribute.
+     */
+    public static final MetarProjection ALL = new MetarProjection(ALL_ATTRIBUTES);
+
+    /**
+     * Compiled projections, keyed by mask. At most one entry per attribute combination.
+     */
+    private static final Map<Integer, MetarProjection> COMPILED = new ConcurrentHashMap<>();
+
+    /**
+     * Selected attributes.
+     */
+    private final int mask;
+
+    /**
+     * Initializes an instance of <code>MetarProjection</code>.
+     *
+     * @param attributes attribute mask
+     */
+    private MetarProjection(final int attributes) {
+        mask = attributes;
+    }
+
+    /**
+     * Compiles a list of attribute names into a projection. An empty or null list selects every reported attribute;
+     * a list naming only {@link METAR#UNITS} selects those and the relative humidity. Unknown names are ignored.
+     *
+     * @param dataList attribute names, as defined on {@link METAR}
+     * @return MetarProjection
+     */
+    public static MetarProjection compile(final List<String> dataList) {
+        if (CollectionUtils.isEmpty(dataList)) {
+            return ALL;
+        }
+        int attributes = 0;
+        for (final String data : dataList) {
+            attributes |= bit(data);
+        }
+        if (attributes == UNITS) {
+            attributes |= ALL_ATTRIBUTES | HUMIDITY_PERCENT;
+        }
+        return of(attributes);
+    }
+
+    /**
+     * Retrieves the projection for an attribute mask.
+     *
+     * @param attributes attribute mask
+     * @return MetarProjection
+     */
+    public static MetarProjection of(final int attributes) {
+        if (attributes == ALL_ATTRIBUTES) {
+            return ALL;
+        }
+        return COMPILED.computeIfAbsent(attributes, MetarProjection::new);
+    }
+
+    /**
+     * Attribute mask.
+     *
+     * @return mask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Checks if an attribute is selected.
+     *
+     * @param attribute attribute bit
+     * @return true if selected
+     */
+    public boolean includes(final int attribute) {
+        return (mask & attribute) != 0;
+    }
+
+    /**
+     * Wraps a METAR so that Jackson serializes it through this projection.
+     *
+     * @param metar METAR
+     * @return serializable view
+     */
+    public JsonSerializable view(final METAR metar) {
+        return new SingleView(this, metar);
+    }
+
+    /**
+     * Wraps a list of METARs so that Jackson serializes each of them through this projection.
+     *
+     * @param metars METARs
+     * @return serializable view
+     */
+    public JsonSerializable view(final List<METAR> metars) {
+        return new ListView(this, metars);
+    }
+
+    /**
+     * Wraps a list of nearby METARs so that Jackson serializes each of them through this projection, followed by
+     * its distance.
+     *
+     * @param metars nearby METARs
+     * @return serializable view
+     */
+    public JsonSerializable viewNearby(final List<NearbyMETAR> metars) {
+        return new NearbyView(this, metars);
+    }
+
+    /**
+     * Writes the selected attributes of a METAR as a JSON object. Null attributes are omitted, as they are for a
+     * plain METAR.
+     *
+     * @param metar METAR
+     * @param gen JsonGenerator
+     * @param provider SerializerProvider
+     * @throws IOException on write failure
+     */
+    public void write(final METAR metar, final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException {
+        gen.writeStartObject();
+        writeFields(metar, gen, provider);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the selected attributes of a METAR into the current JSON object.
+     *
+     * @param metar METAR
+     * @param gen JsonGenerator
+     * @param provider SerializerProvider
+     * @throws IOException on write failure
+     */
+    private void writeFields(final METAR metar, final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException {
+        writeString(gen, METAR.ICAO, metar.getIcao());
+        if (includes(NAME)) {
+            writeString(gen, METAR.NAME, metar.getName());
+        }
+        if (includes(OBSERVED)) {
+            writeString(gen, METAR.OBSERVED, metar.getObserved());
+        }
+        if (includes(RAW_TEXT)) {
+            writeString(gen, METAR.RAW_TEXT, metar.getRawText());
+        }
+        if (includes(REPORT_TYPE)) {
+            writeString(gen, METAR.REPORT_TYPE, metar.getReportType());
+        }
+        if (includes(BAROMETER)) {
+            writeObject(gen, provider, METAR.BAROMETER, metar.getBarometer());
+        }
+        if (includes(CEILING)) {
+            writeObject(gen, provider, METAR.CEILING, metar.getCeiling());
+        }
+        if (includes(CLOUDS)) {
+            writeObject(gen, provider, METAR.CLOUDS, metar.getClouds());
+        }
+        if (includes(DEWPOINT)) {
+            writeObject(gen, provider, METAR.DEWPOINT, metar.getDewpoint());
+        }
+        if (includes(ELEVATION)) {
+            writeObject(gen, provider, METAR.ELEVATION, metar.getElevation());
+        }
+        if (includes(FLIGHT_CATEGORY)) {
+            writeString(gen, METAR.FLIGHT_CATEGORY, metar.getFlightCategory());
+        }
+        if (includes(HUMIDITY_PERCENT)) {
+            writeString(gen, METAR.HUMIDITY_PERCENT, DerivedUnits.humidityPercent(metar));
+        }
+        if (includes(TEMPERATURE)) {
+            writeObject(gen, provider, METAR.TEMPERATURE, metar.getTemperature());
+        }
+        if (includes(VISIBILITY)) {
+            writeObject(gen, provider, METAR.VISIBILITY, metar.getVisibility());
+        }
+        if (includes(WIND)) {
+            writeObject(gen, provider, METAR.WIND, metar.getWind());
+        }
+        if (includes(LOCATION)) {
+            writeNumber(gen, METAR.LATITUDE, metar.getLatitude());
+            writeNumber(gen, METAR.LONGITUDE, metar.getLongitude());
+        }
+    }
+
+    /**
+     * Resolves an attribute name to its bit.
+     *
+     * @param data attribute name
+     * @return attribute bit, or 0 if unknown
+     */
+    private static int bit(final String data) {
+        switch (data) {
+            case METAR.NAME:
+                return NAME;
+            case METAR.OBSERVED:
+                return OBSERVED;
+            case METAR.RAW_TEXT:
+                return RAW_TEXT;
+            case METAR.REPORT_TYPE:
+                return REPORT_TYPE;
+            case METAR.BAROMETER:
+                return BAROMETER;
+            case METAR.CEILING:
+                return CEILING;
+            case METAR.CLOUDS:
+                return CLOUDS;
+            case METAR.DEWPOINT:
+                return DEWPOINT;
+            case METAR.ELEVATION:
+                return ELEVATION;
+            case METAR.FLIGHT_CATEGORY:
+                return FLIGHT_CATEGORY;
+            case METAR.HUMIDITY_PERCENT:
+                return HUMIDITY_PERCENT;
+            case METAR.TEMPERATURE:
+                return TEMPERATURE;
+            case METAR.VISIBILITY:
+                return VISIBILITY;
+            case METAR.WIND:
+                return WIND;
+            case METAR.UNITS:
+                return UNITS;
+            case METAR.LOCATION:
+            case METAR.LATITUDE:
+            case METAR.LONGITUDE:
+                return LOCATION;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Writes a string field if the value is present.
+     *
+     * @param gen JsonGenerator
+     * @param name field name
+     * @param value field value
+     * @throws IOException on write failure
+     */
+    private static void writeString(final JsonGenerator gen, final String name, final String value)
+            throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    /**
+     * Writes a number field if the value is present.
+     *
+     * @param gen JsonGenerator
+     * @param name field name
+     * @param value field value
+     * @throws IOException on write failure
+     */
+    private static void writeNumber(final JsonGenerator gen, final String name, final Double value)
+            throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    /**
+     * Writes an object field with its default serializer if the value is present, followed inside the object by
+     * its derived values when {@link #UNITS} is selected.
+     *
+     * @param gen JsonGenerator
+     * @param provider SerializerProvider
+     * @param name field name
+     * @param value field value, an object or a list of objects
+     * @throws IOException on write failure
+     */
+    private void writeObject(final JsonGenerator gen, final SerializerProvider provider, final String name,
+                             final Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!includes(UNITS)) {
+            provider.defaultSerializeField(name, value, gen);
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value instanceof List) {
+            gen.writeStartArray();
+            for (final Object item : (List<?>) value) {
+                writeWithUnits(gen, provider, item);
+            }
+            gen.writeEndArray();
+        } else {
+            writeWithUnits(gen, provider, value);
+        }
+    }
+
+    /**
+     * Writes an object with its default serializer, unwrapped into a JSON object that its derived values are
+     * appended to.
+     *
+     * @param gen JsonGenerator
+     * @param provider SerializerProvider
+     * @param value object
+     * @throws IOException on write failure
+     */
+    private static void writeWithUnits(final JsonGenerator gen, final SerializerProvider provider,
+                                       final Object value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(value);
+        provider.findValueSerializer(value.getClass()).unwrappingSerializer(NameTransformer.NOP)
+                .serialize(value, gen, provider);
+        DerivedUnits.write(value, gen);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Serializable view of a single METAR.
+     */
+    private static final class SingleView implements JsonSerializable {
+
+        /**
+         * Projection.
+         */
+        private final MetarProjection projection;
+
+        /**
+         * METAR.
+         */
+        private final METAR metar;
+
+        /**
+         * Initializes an instance of <code>SingleView</code>.
+         *
+         * @param selection MetarProjection
+         * @param value METAR
+         */
+        SingleView(final MetarProjection selection, final METAR value) {
+            projection = selection;
+            metar = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+            projection.write(metar, gen, provider);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serializeWithType(final JsonGenerator gen, final SerializerProvider provider,
+                                      final TypeSerializer typeSer) throws IOException {
+            serialize(gen, provider);
+        }
+    }
+
+    /**
+     * Serializable view of a list of nearby METARs.
+     */
+    private static final class NearbyView implements JsonSerializable {
+
+        /**
+         * Projection.
+         */
+        private final MetarProjection projection;
+
+        /**
+         * Nearby METARs.
+         */
+        private final List<NearbyMETAR> metars;
+
+        /**
+         * Initializes an instance of <code>NearbyView</code>.
+         *
+         * @param selection MetarProjection
+         * @param values nearby METARs
+         */
+        NearbyView(final MetarProjection selection, final List<NearbyMETAR> values) {
+            projection = selection;
+            metars = values;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (final NearbyMETAR nearby : metars) {
+                gen.writeStartObject();
+                projection.writeFields(nearby.getMetar(), gen, provider);
+                gen.writeNumberField(NearbyMETAR.DISTANCE_NM, nearby.getDistanceNm());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serializeWithType(final JsonGenerator gen, final SerializerProvider provider,
+                                      final TypeSerializer typeSer) throws IOException {
+            serialize(gen, provider);
+        }
+    }
+
+    /**
+     * Serializable view of a list of METARs.
+     */
+    private static final class ListView implements JsonSerializable {
+
+        /**
+         * Projection.
+         */
+        private final MetarProjection projection;
+
+        /**
+         * METARs.
+         */
+        private final List<METAR> metars;
+
+        /**
+         * Initializes an instance of <code>ListView</code>.
+         *
+         * @param selection MetarProjection
+         * @param values METARs
+         */
+        ListView(final MetarProjection selection, final List<METAR> values) {
+            projection = selection;
+            metars = values;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (final METAR metar : metars) {
+                projection.write(metar, gen, provider);
+            }
+            gen.writeEndArray();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serializeWithType(final JsonGenerator gen, final SerializerProvider provider,
+                                      final TypeSerializer typeSer) throws IOException {
+            serialize(gen, provider);
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory snapshot of the current METAR for every known station.
+ *
+ * Observations are held as {@link CompactMETAR}s. The snapshot is an immutable map, plus a spatial index over it,
+ * that is replaced as a whole at the end of each ingest cycle, so readers never lock and never see a partially applied
+ * cycle. The database remains the durable copy. Listeners are told about the observations of every published cycle.
+ */
+@Slf4j
+public class MetarStore {
+
+    /**
+     * Grid cell size, in degrees.
+     */
+    private final double gridCellDegrees;
+
+    /**
+     * Current snapshot.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Listeners notified of every published cycle.
+     */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Serializes publishers. A lock rather than a monitor, so that publishing from a virtual thread does not pin its
+     * carrier while the listeners run.
+     */
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    /**
+     * Initializes an instance of <code>MetarStore</code>.
+     *
+     * @param cellDegrees spatial index cell size, in degrees
+     */
+    public MetarStore(final double cellDegrees) {
+        gridCellDegrees = cellDegrees;
+        snapshot = new Snapshot(Collections.emptyMap(), StationGrid.build(cellDegrees, Collections.emptyList()));
+    }
+
+    /**
+     * Retrieves the current METAR for a station.
+     *
+     * @param icaoCode ICAO code
+     * @return CompactMETAR or null if the station has no observation
+     */
+    public CompactMETAR get(final String icaoCode) {
+        return snapshot.metars.get(icaoCode);
+    }
+
+    /**
+     * Retrieves the current snapshot.
+     *
+     * @return unmodifiable map of ICAO code to CompactMETAR
+     */
+    public Map<String, CompactMETAR> snapshot() {
+        return snapshot.metars;
+    }
+
+    /**
+     * Retrieves the spatial index of the current snapshot.
+     *
+     * @return StationGrid
+     */
+    public StationGrid grid() {
+        return snapshot.grid;
+    }
+
+    /**
+     * Number of stations in the current snapshot.
+     *
+     * @return station count
+     */
+    public int size() {
+        return snapshot.metars.size();
+    }
+
+    /**
+     * Publishes the results of an ingest cycle. Stations not present in the update keep their previous observation.
+     *
+     * @param updates METARs keyed by ICAO code
+     */
+    public void publish(final Map<String, METAR> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            replace(updates);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the snapshot and notifies the listeners. Called with the publish lock held.
+     *
+     * @param updates METARs keyed by ICAO code
+     */
+    private void replace(final Map<String, METAR> updates) {
+        final Map<String, CompactMETAR> next = new HashMap<>(snapshot.metars);
+        final List<CompactMETAR> previous = new ArrayList<>(updates.size());
+        final List<CompactMETAR> published = new ArrayList<>(updates.size());
+        updates.forEach((icaoCode, metar) -> {
+            final CompactMETAR compact = CompactMETAR.of(metar);
+            previous.add(next.put(icaoCode, compact));
+            published.add(compact);
+        });
+        snapshot = new Snapshot(Collections.unmodifiableMap(next), StationGrid.build(gridCellDegrees, next.values()));
+        final List<CompactMETAR> previousView = Collections.unmodifiableList(previous);
+        final List<CompactMETAR> publishedView = Collections.unmodifiableList(published);
+        for (final Listener listener : listeners) {
+            try {
+                listener.published(previousView, publishedView);
+            } catch (RuntimeException e) {
+                log.warn(String.format("METAR listener failed: %s", e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Registers a listener for published observations. Listeners run on the publishing thread, one cycle at a time,
+     * after the snapshot is replaced, and must not block.
+     *
+     * @param listener receives the observations of each published cycle
+     */
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Receives the observations of each published cycle.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called after a cycle is published.
+         *
+         * @param previous observation each published one replaced, at the same index; null for a new station
+         * @param published published observations
+         */
+        void published(List<CompactMETAR> previous, List<CompactMETAR> published);
+    }
+
+    /**
+     * METARs and their spatial index, published together.
+     */
+    private static final class Snapshot {
+
+        /**
+         * METARs keyed by ICAO code.
+         */
+        private final Map<String, CompactMETAR> metars;
+
+        /**
+         * Spatial index over metars.
+         */
+        private final StationGrid grid;
+
+        /**
+         * Initializes an instance of <code>Snapshot</code>.
+         *
+         * @param values METARs
+         * @param index spatial index
+         */
+        Snapshot(final Map<String, CompactMETAR> values, final StationGrid index) {
+            metars = values;
+            grid = index;
+        }
+    }
+
+}
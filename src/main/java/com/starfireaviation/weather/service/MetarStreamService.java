@@ -0,0 +1,527 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes changed METARs to Server-Sent Events subscribers.
+ *
+ * Each subscriber selects a list of stations or a bounding box. When the {@link MetarStore} publishes a cycle, every
+ * observation is rendered into an SSE frame once, through the {@link RenderedMetarCache}, and the same bytes are
+ * offered to the bounded queue of every matching subscriber. Offering never blocks: a subscriber whose queue is full
+ * is disconnected, and it receives its current observations again when it reconnects. Each subscriber's queue is
+ * drained by its own virtual thread, which also sends a keep-alive comment when idle.
+ *
+ * The writes themselves run on platform threads. ResponseBodyEmitter.send is synchronized, and a virtual thread
+ * blocked on a slow client's socket inside it would pin its carrier; the draining thread instead waits for the pooled
+ * write, which unmounts it. Each subscriber has at most one write in flight and the pool grows with the subscribers,
+ * so a stalled client only holds its own writer. A write that does not finish within the write timeout is cancelled
+ * and its subscriber disconnected.
+ */
+@Slf4j
+public class MetarStreamService {
+
+    /**
+     * Number of values in a bounding box.
+     */
+    private static final int BBOX_VALUES = 4;
+
+    /**
+     * Index of the western edge in a bounding box.
+     */
+    private static final int BBOX_MIN_LON = 0;
+
+    /**
+     * Index of the southern edge in a bounding box.
+     */
+    private static final int BBOX_MIN_LAT = 1;
+
+    /**
+     * Index of the eastern edge in a bounding box.
+     */
+    private static final int BBOX_MAX_LON = 2;
+
+    /**
+     * Index of the northern edge in a bounding box.
+     */
+    private static final int BBOX_MAX_LAT = 3;
+
+    /**
+     * Largest number of stations per subscription.
+     */
+    private static final int MAX_STATIONS = 500;
+
+    /**
+     * Keep-alive comment frame.
+     */
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Event stream media type used for every write.
+     */
+    private static final MediaType EVENT_STREAM = MediaType.TEXT_EVENT_STREAM;
+
+    /**
+     * Current observations.
+     */
+    private final MetarStore metarStore;
+
+    /**
+     * Rendered METAR bytes, shared with the single-station endpoint.
+     */
+    private final RenderedMetarCache renderedMetarCache;
+
+    /**
+     * WeatherProperties.
+     */
+    private final WeatherProperties weatherProperties;
+
+    /**
+     * Connected subscribers.
+     */
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Subscriber slots taken, reserved before a subscriber is registered.
+     */
+    private final AtomicInteger slots = new AtomicInteger();
+
+    /**
+     * Subscriber id sequence.
+     */
+    private final AtomicLong subscriberIds = new AtomicLong();
+
+    /**
+     * Platform threads writing frames to subscriber connections, at most one per subscriber.
+     */
+    private final ExecutorService writers;
+
+    /**
+     * Initializes an instance of <code>MetarStreamService</code>.
+     *
+     * @param store MetarStore
+     * @param renderCache RenderedMetarCache
+     * @param props WeatherProperties
+     */
+    public MetarStreamService(final MetarStore store, final RenderedMetarCache renderCache,
+                              final WeatherProperties props) {
+        metarStore = store;
+        renderedMetarCache = renderCache;
+        weatherProperties = props;
+        writers = Executors.newCachedThreadPool(Thread.ofPlatform().name("metar-stream-writer-", 0).daemon().factory());
+    }
+
+    /**
+     * Opens a stream of the observations of a list of stations or of a bounding box. The current observations are
+     * sent first, followed by every change.
+     *
+     * @param stations station identifiers, or null
+     * @param bbox minLon,minLat,maxLon,maxLat in decimal degrees, or null
+     * @return ResponseBodyEmitter writing text/event-stream frames
+     * @throws InvalidPayloadException when neither a valid station list nor a valid box is given
+     * @throws ServiceUnavailableException when the subscriber limit is reached
+     */
+    public ResponseBodyEmitter subscribe(final List<String> stations, final List<Double> bbox)
+            throws InvalidPayloadException, ServiceUnavailableException {
+        return subscribe(stations, bbox, new ResponseBodyEmitter(weatherProperties.getStreamTimeout().toMillis()));
+    }
+
+    /**
+     * Opens a stream on the given emitter.
+     *
+     * @param stations station identifiers, or null
+     * @param bbox minLon,minLat,maxLon,maxLat in decimal degrees, or null
+     * @param emitter connection
+     * @return the emitter
+     * @throws InvalidPayloadException when neither a valid station list nor a valid box is given
+     * @throws ServiceUnavailableException when the subscriber limit is reached
+     */
+    ResponseBodyEmitter subscribe(final List<String> stations, final List<Double> bbox,
+                                  final ResponseBodyEmitter emitter)
+            throws InvalidPayloadException, ServiceUnavailableException {
+        final Subscriber subscriber = new Subscriber(subscriberIds.incrementAndGet(), stationSet(stations),
+                box(bbox), weatherProperties.getStreamQueueCapacity(), emitter);
+        if (slots.incrementAndGet() > weatherProperties.getStreamMaxSubscribers()) {
+            slots.decrementAndGet();
+            throw new ServiceUnavailableException("Too many METAR stream subscribers; retry later");
+        }
+        subscriber.emitter.onCompletion(() -> close(subscriber));
+        subscriber.emitter.onTimeout(() -> close(subscriber));
+        subscriber.emitter.onError(e -> close(subscriber));
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("metar-stream-" + subscriber.id).start(() -> drain(subscriber, current(subscriber)));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Fans the observations of a published cycle out to the matching subscribers. Registered as a
+     * {@link MetarStore} listener; never blocks.
+     *
+     * @param metars published observations
+     */
+    public void publish(final List<CompactMETAR> metars) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (final CompactMETAR metar : metars) {
+            byte[] frame = null;
+            for (final Subscriber subscriber : subscribers) {
+                if (!subscriber.matches(metar)) {
+                    continue;
+                }
+                if (frame == null) {
+                    frame = frame(metar);
+                    if (frame == null) {
+                        break;
+                    }
+                }
+                if (!subscriber.queue.offer(frame)) {
+                    log.warn(String.format("METAR stream subscriber %d fell behind; disconnecting", subscriber.id));
+                    subscriber.overflowed = true;
+                    release(subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of connected subscribers.
+     *
+     * @return subscriber count
+     */
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * Disconnects every subscriber.
+     */
+    public void shutdown() {
+        for (final Subscriber subscriber : subscribers) {
+            close(subscriber);
+            subscriber.emitter.complete();
+        }
+        writers.shutdownNow();
+    }
+
+    /**
+     * Writes a subscriber's current observations and then its queue to its connection until it is closed.
+     *
+     * @param subscriber Subscriber
+     * @param current current observations of the subscription
+     */
+    private void drain(final Subscriber subscriber, final List<CompactMETAR> current) {
+        final long heartbeatMillis = weatherProperties.getStreamHeartbeat().toMillis();
+        try {
+            final List<byte[]> initial = new ArrayList<>(current.size());
+            for (final CompactMETAR metar : current) {
+                final byte[] frame = frame(metar);
+                if (frame != null) {
+                    initial.add(frame);
+                }
+            }
+            write(subscriber, initial);
+            while (!subscriber.closed) {
+                final byte[] frame = subscriber.queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (subscriber.overflowed) {
+                    complete(subscriber);
+                    return;
+                }
+                final List<byte[]> frames = new ArrayList<>();
+                if (frame == null) {
+                    frames.add(HEARTBEAT);
+                } else {
+                    frames.add(frame);
+                    subscriber.queue.drainTo(frames);
+                }
+                write(subscriber, frames);
+            }
+        } catch (IOException | IllegalStateException | RejectedExecutionException e) {
+            close(subscriber);
+        } catch (TimeoutException te) {
+            log.warn(String.format("METAR stream subscriber %d stopped reading; disconnecting", subscriber.id));
+            close(subscriber);
+            complete(subscriber);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            close(subscriber);
+        }
+    }
+
+    /**
+     * Writes frames to a subscriber's connection on a writer thread, and waits for them to be written.
+     *
+     * @param subscriber Subscriber
+     * @param frames frames
+     * @throws IOException when the connection fails
+     * @throws InterruptedException when interrupted while waiting
+     * @throws TimeoutException when the frames were not written within the write timeout; the write is cancelled
+     */
+    private void write(final Subscriber subscriber, final List<byte[]> frames)
+            throws IOException, InterruptedException, TimeoutException {
+        if (frames.isEmpty()) {
+            return;
+        }
+        final Future<?> write = writers.submit(() -> {
+            for (final byte[] frame : frames) {
+                subscriber.emitter.send(frame, EVENT_STREAM);
+            }
+            return null;
+        });
+        try {
+            write.get(weatherProperties.getStreamWriteTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            write.cancel(true);
+            throw te;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Ends a subscriber's connection on a writer thread, so that the draining thread neither pins its carrier nor
+     * waits for a cancelled write to give up the emitter.
+     *
+     * @param subscriber Subscriber
+     */
+    private void complete(final Subscriber subscriber) {
+        try {
+            writers.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            log.debug(String.format("METAR stream subscriber %d not completed; shutting down", subscriber.id));
+        }
+    }
+
+    /**
+     * Current observations of a subscription.
+     *
+     * @param subscriber Subscriber
+     * @return observations
+     */
+    private List<CompactMETAR> current(final Subscriber subscriber) {
+        if (subscriber.box != null) {
+            return metarStore.grid().within(subscriber.box[BBOX_MIN_LAT], subscriber.box[BBOX_MIN_LON],
+                    subscriber.box[BBOX_MAX_LAT], subscriber.box[BBOX_MAX_LON]);
+        }
+        final List<CompactMETAR> current = new ArrayList<>(subscriber.stations.size());
+        for (final String station : subscriber.stations) {
+            final CompactMETAR metar = metarStore.get(station);
+            if (metar != null) {
+                current.add(metar);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Builds the SSE frame of an observation.
+     *
+     * @param metar observation
+     * @return frame bytes, or null if the observation cannot be rendered
+     */
+    private byte[] frame(final CompactMETAR metar) {
+        final byte[] body;
+        try {
+            body = renderedMetarCache.get(metar, MetarProjection.ALL).getBody();
+        } catch (IOException e) {
+            log.warn(String.format("Unable to render METAR for %s: %s", metar.getIcao(), e.getMessage()));
+            return null;
+        }
+        final byte[] head = ("event: metar\nid: " + metar.getIcao() + "-" + metar.getObserved() + "\ndata: ")
+                .getBytes(StandardCharsets.UTF_8);
+        final byte[] frame = new byte[head.length + body.length + 2];
+        System.arraycopy(head, 0, frame, 0, head.length);
+        System.arraycopy(body, 0, frame, head.length, body.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+
+    /**
+     * Disconnects a subscriber.
+     *
+     * @param subscriber Subscriber
+     */
+    private void close(final Subscriber subscriber) {
+        subscriber.closed = true;
+        release(subscriber);
+    }
+
+    /**
+     * Unregisters a subscriber and frees its slot, once.
+     *
+     * @param subscriber Subscriber
+     */
+    private void release(final Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            slots.decrementAndGet();
+        }
+    }
+
+    /**
+     * Normalizes a station list.
+     *
+     * @param stations station identifiers, or null
+     * @return upper case station identifiers, or null
+     * @throws InvalidPayloadException when the list is too long
+     */
+    private static Set<String> stationSet(final List<String> stations) throws InvalidPayloadException {
+        if (stations == null || stations.isEmpty()) {
+            return null;
+        }
+        if (stations.size() > MAX_STATIONS) {
+            throw new InvalidPayloadException(String.format("At most %d stations may be streamed", MAX_STATIONS));
+        }
+        final Set<String> set = new HashSet<>();
+        for (final String station : stations) {
+            set.add(station.trim().toUpperCase(Locale.ROOT));
+        }
+        return set;
+    }
+
+    /**
+     * Validates a bounding box.
+     *
+     * @param bbox minLon,minLat,maxLon,maxLat, or null
+     * @return bounding box, or null
+     * @throws InvalidPayloadException when the box is not valid
+     */
+    private static double[] box(final List<Double> bbox) throws InvalidPayloadException {
+        if (bbox == null) {
+            return null;
+        }
+        if (bbox.size() != BBOX_VALUES || bbox.stream().anyMatch(Objects::isNull)
+                || bbox.get(BBOX_MIN_LON) > bbox.get(BBOX_MAX_LON) || bbox.get(BBOX_MIN_LAT) > bbox.get(BBOX_MAX_LAT)) {
+            throw new InvalidPayloadException("Bounding box must be minLon,minLat,maxLon,maxLat");
+        }
+        final double[] box = new double[BBOX_VALUES];
+        for (int i = 0; i < BBOX_VALUES; i++) {
+            box[i] = bbox.get(i);
+        }
+        return box;
+    }
+
+    /**
+     * Stream subscriber.
+     */
+    private static final class Subscriber {
+
+        /**
+         * Subscriber id.
+         */
+        private final long id;
+
+        /**
+         * Subscribed stations, or null for a box subscription.
+         */
+        private final Set<String> stations;
+
+        /**
+         * Subscribed box, or null for a station subscription.
+         */
+        private final double[] box;
+
+        /**
+         * Frames waiting to be written.
+         */
+        private final BlockingQueue<byte[]> queue;
+
+        /**
+         * Connection.
+         */
+        private final ResponseBodyEmitter emitter;
+
+        /**
+         * Set when the connection has ended.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Set when the queue overflowed.
+         */
+        private volatile boolean overflowed;
+
+        /**
+         * Initializes an instance of <code>Subscriber</code>.
+         *
+         * @param subscriberId id
+         * @param stationSet stations, or null
+         * @param bbox box, or null
+         * @param capacity queue capacity
+         * @param connection emitter
+         * @throws InvalidPayloadException when neither stations nor a box is given
+         */
+        Subscriber(final long subscriberId, final Set<String> stationSet, final double[] bbox, final int capacity,
+                   final ResponseBodyEmitter connection) throws InvalidPayloadException {
+            if (stationSet == null && bbox == null) {
+                throw new InvalidPayloadException("Either stations or bbox must be provided");
+            }
+            id = subscriberId;
+            stations = stationSet;
+            box = bbox;
+            queue = new ArrayBlockingQueue<>(capacity);
+            emitter = connection;
+        }
+
+        /**
+         * Checks if an observation belongs to the subscription.
+         *
+         * @param metar observation
+         * @return true if subscribed
+         */
+        boolean matches(final CompactMETAR metar) {
+            if (stations != null) {
+                return stations.contains(metar.getIcao());
+            }
+            final double lat = metar.getLatitude();
+            final double lon = metar.getLongitude();
+            return lat >= box[BBOX_MIN_LAT] && lat <= box[BBOX_MAX_LAT]
+                    && lon >= box[BBOX_MIN_LON] && lon <= box[BBOX_MAX_LON];
+        }
+    }
+
+}
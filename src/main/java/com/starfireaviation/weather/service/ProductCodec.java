@@ -0,0 +1,56 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import java.io.IOException;
+
+/**
+ * Encodes stored weather product values. Each codec has a format id that is written as the first byte of every
+ * stored value, so values written by any registered codec stay readable after the configured codec changes.
+ */
+public interface ProductCodec {
+
+    /**
+     * Format id written ahead of every value.
+     *
+     * @return format id
+     */
+    byte id();
+
+    /**
+     * Encodes a value.
+     *
+     * @param value value
+     * @return encoded value, without the format id
+     * @throws IOException when the value cannot be encoded
+     */
+    byte[] encode(Object value) throws IOException;
+
+    /**
+     * Decodes a value.
+     *
+     * @param data buffer
+     * @param offset first byte of the encoded value
+     * @param length length of the encoded value
+     * @param type value class
+     * @param <T> value type
+     * @return value
+     * @throws IOException when the value cannot be decoded
+     */
+    <T> T decode(byte[] data, int offset, int length, Class<T> type) throws IOException;
+
+}
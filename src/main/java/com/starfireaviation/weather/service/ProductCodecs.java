@@ -0,0 +1,118 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.WeatherProduct;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads and writes {@link WeatherProduct} values through the registered codecs.
+ *
+ * New values are written by the primary codec into the binary column, prefixed with its format id. Values are read
+ * with the codec named by their prefix; rows written before the binary column existed carry JSON text in the legacy
+ * column and are read with the JSON codec.
+ */
+public class ProductCodecs {
+
+    /**
+     * Codec used for new values.
+     */
+    private final ProductCodec primary;
+
+    /**
+     * Codec used for legacy text values.
+     */
+    private final ProductCodec legacy;
+
+    /**
+     * Codecs by format id.
+     */
+    private final ProductCodec[] byId = new ProductCodec[Byte.MAX_VALUE + 1];
+
+    /**
+     * Initializes an instance of <code>ProductCodecs</code>.
+     *
+     * @param primaryCodec codec used for new values
+     * @param legacyCodec JSON codec used for legacy text values
+     * @param codecs every codec that may have written a stored value
+     */
+    public ProductCodecs(final ProductCodec primaryCodec, final ProductCodec legacyCodec,
+                         final List<ProductCodec> codecs) {
+        primary = primaryCodec;
+        legacy = legacyCodec;
+        for (final ProductCodec codec : codecs) {
+            byId[codec.id()] = codec;
+        }
+        byId[primary.id()] = primary;
+        byId[legacy.id()] = legacy;
+    }
+
+    /**
+     * Writes a value into a product with the primary codec, clearing any legacy text.
+     *
+     * @param product WeatherProduct
+     * @param value value
+     * @throws IOException when the value cannot be encoded
+     */
+    public void write(final WeatherProduct product, final Object value) throws IOException {
+        final byte[] payload = primary.encode(value);
+        final byte[] data = new byte[payload.length + 1];
+        data[0] = primary.id();
+        System.arraycopy(payload, 0, data, 1, payload.length);
+        product.setBinaryValue(data);
+        product.setValue(null);
+    }
+
+    /**
+     * Reads the value of a product.
+     *
+     * @param product WeatherProduct
+     * @param type value class
+     * @param <T> value type
+     * @return value
+     * @throws IOException when the value is missing, of an unknown format or cannot be decoded
+     */
+    public <T> T read(final WeatherProduct product, final Class<T> type) throws IOException {
+        final byte[] data = product.getBinaryValue();
+        if (data == null) {
+            if (product.getValue() == null) {
+                throw new IOException(String.format("No value stored for %s", product.getKey()));
+            }
+            final byte[] text = product.getValue().getBytes(StandardCharsets.UTF_8);
+            return legacy.decode(text, 0, text.length, type);
+        }
+        if (data.length == 0 || data[0] < 0 || byId[data[0]] == null) {
+            throw new IOException(String.format("Unknown value format for %s", product.getKey()));
+        }
+        return byId[data[0]].decode(data, 1, data.length - 1, type);
+    }
+
+    /**
+     * Checks if a product was written by a codec other than the primary one, including legacy text.
+     *
+     * @param product WeatherProduct
+     * @return true if the product should be rewritten
+     */
+    public boolean isOutdated(final WeatherProduct product) {
+        final byte[] data = product.getBinaryValue();
+        return data == null || data.length == 0 || data[0] != primary.id();
+    }
+
+}
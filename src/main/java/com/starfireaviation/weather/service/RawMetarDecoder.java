@@ -0,0 +1,903 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.Barometer;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.Cloud;
+import com.starfireaviation.weather.model.Dewpoint;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Temperature;
+import com.starfireaviation.weather.model.Visibility;
+import com.starfireaviation.weather.model.Wind;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Decoder for raw METAR and SPECI text, as found in bulletins, archives and backup feeds.
+ *
+ * Reports are tokenized in place: groups are recognised by comparing characters at offsets into the original text,
+ * numbers are accumulated digit by digit, and no regular expressions or intermediate substrings are used. The only
+ * objects created are the decoded models themselves and the strings they carry. Decoding stops at RMK; remarks are
+ * kept in the raw text only. Instances are stateless and may be shared between threads.
+ */
+public class RawMetarDecoder {
+
+    /**
+     * Feet per hundred, the unit of cloud heights.
+     */
+    private static final int HUNDRED_FEET = 100;
+
+    /**
+     * Length of a DDHHMMZ observation time group.
+     */
+    private static final int TIME_GROUP_LENGTH = 7;
+
+    /**
+     * Length of a cloud amount or a wind direction.
+     */
+    private static final int THREE = 3;
+
+    /**
+     * Length of an altimeter setting, metric visibility or ICAO code.
+     */
+    private static final int FOUR = 4;
+
+    /**
+     * Length of an ISO-8601 observation time, e.g. 2022-10-08T12:52:00Z.
+     */
+    private static final int ISO_LENGTH = 20;
+
+    /**
+     * Offset of the separator after the month in an ISO-8601 observation time.
+     */
+    private static final int MONTH_END = 7;
+
+    /**
+     * Offset of the separator after the day in an ISO-8601 observation time.
+     */
+    private static final int DAY_END = 10;
+
+    /**
+     * Offset of the separator after the hour in an ISO-8601 observation time.
+     */
+    private static final int HOUR_END = 13;
+
+    /**
+     * Offset of the separator after the minute in an ISO-8601 observation time.
+     */
+    private static final int MINUTE_END = 16;
+
+    /**
+     * Seconds per day.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * Seconds per minute.
+     */
+    private static final long SECONDS_PER_MINUTE = 60L;
+
+    /**
+     * Minutes per hour.
+     */
+    private static final int MINUTES_PER_HOUR = 60;
+
+    /**
+     * Hours per day.
+     */
+    private static final int HOURS_PER_DAY = 24;
+
+    /**
+     * Months per year.
+     */
+    private static final int MONTHS_PER_YEAR = 12;
+
+    /**
+     * Offset of the minutes in a time group.
+     */
+    private static final int MINUTE_OFFSET = 4;
+
+    /**
+     * Shortest wind group without its unit, e.g. 00000.
+     */
+    private static final int MIN_WIND_DIGITS = 5;
+
+    /**
+     * Decimal radix.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Length of a variable wind direction group, e.g. 180V240.
+     */
+    private static final int VARIABLE_WIND_LENGTH = 7;
+
+    /**
+     * Metric visibility reported as 10 km or more.
+     */
+    private static final int UNLIMITED_METERS = 9999;
+
+    /**
+     * Meters per statute mile.
+     */
+    private static final double METERS_PER_MILE = 1609.344;
+
+    /**
+     * Knots per meter per second.
+     */
+    private static final double KNOTS_PER_MPS = 1.943844;
+
+    /**
+     * Millibars per inch of mercury.
+     */
+    private static final double MB_PER_INHG = 33.8639;
+
+    /**
+     * Scale of an altimeter setting in hundredths of an inch.
+     */
+    private static final double INHG_SCALE = 100.0;
+
+    /**
+     * Scale used to round values to one decimal place.
+     */
+    private static final double TENTHS = 10.0;
+
+    /**
+     * Ceiling below which conditions are LIFR, in feet.
+     */
+    private static final int LIFR_CEILING = 500;
+
+    /**
+     * Ceiling below which conditions are IFR, in feet.
+     */
+    private static final int IFR_CEILING = 1000;
+
+    /**
+     * Ceiling at or below which conditions are MVFR, in feet.
+     */
+    private static final int MVFR_CEILING = 3000;
+
+    /**
+     * Visibility below which conditions are IFR, in statute miles.
+     */
+    private static final double IFR_VISIBILITY = 3.0;
+
+    /**
+     * Visibility at or below which conditions are MVFR, in statute miles.
+     */
+    private static final double MVFR_VISIBILITY = 5.0;
+
+    /**
+     * Largest fraction denominator accepted in a visibility group.
+     */
+    private static final int MAX_DENOMINATOR = 16;
+
+    /**
+     * Cloud amounts reported with a height.
+     */
+    private static final String[] CLOUD_AMOUNTS = {"FEW", "SCT", "BKN", "OVC"};
+
+    /**
+     * Cloud codes reported without a height.
+     */
+    private static final String[] CLEAR_CODES = {"CLR", "SKC", "NSC", "NCD"};
+
+    /**
+     * Cover code used for an indefinite ceiling (vertical visibility), as in the MetarJSON feed.
+     */
+    private static final String OBSCURED = "OVX";
+
+    /**
+     * Decodes a single report, resolving its day-of-month against the current time.
+     *
+     * @param text raw report, optionally starting with METAR or SPECI
+     * @return METAR, or null if the text has no station and observation time or is a NIL report
+     */
+    public METAR decode(final CharSequence text) {
+        return decode(text, 0, text.length(), Instant.now());
+    }
+
+    /**
+     * Decodes a single report.
+     *
+     * @param text raw report, optionally starting with METAR or SPECI
+     * @param reference time near the observation; the report's day-of-month is resolved to the latest date that is
+     *                  not more than a day after it
+     * @return METAR, or null if the text has no station and observation time or is a NIL report
+     */
+    public METAR decode(final CharSequence text, final Instant reference) {
+        return decode(text, 0, text.length(), reference);
+    }
+
+    /**
+     * Decodes every report of a bulletin. Reports end at '=' or at a line break; segments that are not reports, such
+     * as headers and archive timestamps, are skipped.
+     *
+     * @param bulletin raw bulletin
+     * @param reference time near the observations
+     * @param consumer receives each decoded report
+     * @return number of reports decoded
+     */
+    public int decodeAll(final CharSequence bulletin, final Instant reference, final Consumer<METAR> consumer) {
+        int count = 0;
+        int start = 0;
+        final int length = bulletin.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isReportEnd(bulletin.charAt(i))) {
+                if (i > start) {
+                    final METAR metar = decode(bulletin, start, i, reference);
+                    if (metar != null) {
+                        consumer.accept(metar);
+                        count++;
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the report between two offsets.
+     *
+     * @param text text holding the report
+     * @param start first character
+     * @param end one past the last character
+     * @param reference time near the observation
+     * @return METAR or null
+     */
+    METAR decode(final CharSequence text, final int start, final int end, final Instant reference) {
+        final Report report = new Report(text);
+        int tokenStart = skipSpaces(text, start, end);
+        String reportType = null;
+        if (matches(text, tokenStart, tokenEnd(text, tokenStart, end), "METAR")) {
+            reportType = "METAR";
+        } else if (matches(text, tokenStart, tokenEnd(text, tokenStart, end), METAR.SPECI)) {
+            reportType = METAR.SPECI;
+        }
+        if (reportType != null) {
+            tokenStart = skipSpaces(text, tokenEnd(text, tokenStart, end), end);
+        }
+        final int stationEnd = tokenEnd(text, tokenStart, end);
+        if (stationEnd - tokenStart != FOUR || !isAlphanumeric(text, tokenStart, stationEnd)) {
+            return null;
+        }
+        final METAR metar = new METAR();
+        metar.setIcao(copy(text, tokenStart, stationEnd));
+        metar.setReportType(reportType);
+        tokenStart = skipSpaces(text, stationEnd, end);
+        final int timeEnd = tokenEnd(text, tokenStart, end);
+        if (!decodeTime(text, tokenStart, timeEnd, reference, metar)) {
+            return null;
+        }
+        tokenStart = skipSpaces(text, timeEnd, end);
+        while (tokenStart < end) {
+            final int tokenEnd = tokenEnd(text, tokenStart, end);
+            if (matches(text, tokenStart, tokenEnd, "RMK")) {
+                break;
+            }
+            if (matches(text, tokenStart, tokenEnd, "NIL")) {
+                return null;
+            }
+            report.token(tokenStart, tokenEnd, metar);
+            tokenStart = skipSpaces(text, tokenEnd, end);
+        }
+        report.finish(metar);
+        metar.setRawText(copy(text, skipSpaces(text, start, end), trimEnd(text, start, end)));
+        return metar;
+    }
+
+    /**
+     * Decodes a DDHHMMZ observation time.
+     *
+     * @param text text
+     * @param start first character of the group
+     * @param end one past the last character of the group
+     * @param reference time near the observation
+     * @param metar receives the observation time
+     * @return true if the group is a valid time
+     */
+    private static boolean decodeTime(final CharSequence text, final int start, final int end,
+                                      final Instant reference, final METAR metar) {
+        if (end - start != TIME_GROUP_LENGTH || text.charAt(end - 1) != 'Z' || !isDigits(text, start, end - 1)) {
+            return false;
+        }
+        final int day = number(text, start, start + 2);
+        final int hour = number(text, start + 2, start + MINUTE_OFFSET);
+        final int minute = number(text, start + MINUTE_OFFSET, end - 1);
+        if (day < 1 || hour >= HOURS_PER_DAY || minute >= MINUTES_PER_HOUR) {
+            return false;
+        }
+        final long latest = reference.getEpochSecond() + SECONDS_PER_DAY;
+        final LocalDate latestDate = LocalDate.ofEpochDay(Math.floorDiv(latest, SECONDS_PER_DAY));
+        final long latestMinute = Math.floorMod(latest, SECONDS_PER_DAY) / SECONDS_PER_MINUTE;
+        int year = latestDate.getYear();
+        int month = latestDate.getMonthValue();
+        if (day > latestDate.getDayOfMonth()
+                || day == latestDate.getDayOfMonth() && hour * MINUTES_PER_HOUR + minute > latestMinute) {
+            month--;
+            if (month == 0) {
+                month = MONTHS_PER_YEAR;
+                year--;
+            }
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return false;
+        }
+        final char[] observed = new char[ISO_LENGTH];
+        digits(observed, 0, year, FOUR);
+        observed[FOUR] = '-';
+        digits(observed, FOUR + 1, month, 2);
+        observed[MONTH_END] = '-';
+        digits(observed, MONTH_END + 1, day, 2);
+        observed[DAY_END] = 'T';
+        digits(observed, DAY_END + 1, hour, 2);
+        observed[HOUR_END] = ':';
+        digits(observed, HOUR_END + 1, minute, 2);
+        observed[MINUTE_END] = ':';
+        digits(observed, MINUTE_END + 1, 0, 2);
+        observed[ISO_LENGTH - 1] = 'Z';
+        metar.setObserved(new String(observed));
+        return true;
+    }
+
+    /**
+     * Writes a zero padded decimal number.
+     *
+     * @param chars destination
+     * @param offset first position
+     * @param value non-negative value
+     * @param width number of digits
+     */
+    private static void digits(final char[] chars, final int offset, final int value, final int width) {
+        int remaining = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + remaining % RADIX);
+            remaining /= RADIX;
+        }
+    }
+
+    /**
+     * Checks if a character ends a report in a bulletin.
+     *
+     * @param c character
+     * @return true for '=', CR and LF
+     */
+    private static boolean isReportEnd(final char c) {
+        return c == '=' || c == '\n' || c == '\r';
+    }
+
+    /**
+     * Skips spaces.
+     *
+     * @param text text
+     * @param from offset
+     * @param end limit
+     * @return offset of the next non-space character, or end
+     */
+    private static int skipSpaces(final CharSequence text, final int from, final int end) {
+        int i = from;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the end of a token.
+     *
+     * @param text text
+     * @param from first character of the token
+     * @param end limit
+     * @return offset one past the last character of the token
+     */
+    private static int tokenEnd(final CharSequence text, final int from, final int end) {
+        int i = from;
+        while (i < end && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the end of the text with trailing spaces removed.
+     *
+     * @param text text
+     * @param start limit
+     * @param end one past the last character
+     * @return offset one past the last non-space character
+     */
+    private static int trimEnd(final CharSequence text, final int start, final int end) {
+        int i = end;
+        while (i > start && Character.isWhitespace(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Checks if a token equals a word.
+     *
+     * @param text text
+     * @param start first character of the token
+     * @param end one past the last character of the token
+     * @param word word
+     * @return true if equal
+     */
+    private static boolean matches(final CharSequence text, final int start, final int end, final String word) {
+        return end - start == word.length() && startsWith(text, start, end, word);
+    }
+
+    /**
+     * Checks if a token starts with a prefix.
+     *
+     * @param text text
+     * @param start first character of the token
+     * @param end one past the last character of the token
+     * @param prefix prefix
+     * @return true if the token starts with the prefix
+     */
+    private static boolean startsWith(final CharSequence text, final int start, final int end, final String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a token ends with a suffix.
+     *
+     * @param text text
+     * @param start first character of the token
+     * @param end one past the last character of the token
+     * @param suffix suffix
+     * @return true if the token ends with the suffix
+     */
+    private static boolean endsWith(final CharSequence text, final int start, final int end, final String suffix) {
+        return end - start >= suffix.length() && startsWith(text, end - suffix.length(), end, suffix);
+    }
+
+    /**
+     * Checks if a range holds only digits.
+     *
+     * @param text text
+     * @param start first character
+     * @param end one past the last character
+     * @return true if the range is not empty and holds only digits
+     */
+    private static boolean isDigits(final CharSequence text, final int start, final int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a range holds only upper case letters and digits.
+     *
+     * @param text text
+     * @param start first character
+     * @param end one past the last character
+     * @return true if alphanumeric
+     */
+    private static boolean isAlphanumeric(final CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a non-negative decimal number.
+     *
+     * @param text text
+     * @param start first digit
+     * @param end one past the last digit
+     * @return value
+     */
+    private static int number(final CharSequence text, final int start, final int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * RADIX + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Copies a range into a new string.
+     *
+     * @param text text
+     * @param start first character
+     * @param end one past the last character
+     * @return string
+     */
+    private static String copy(final CharSequence text, final int start, final int end) {
+        if (text instanceof String) {
+            return ((String) text).substring(start, end);
+        }
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = text.charAt(i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Rounds to one decimal place.
+     *
+     * @param value value
+     * @return rounded value
+     */
+    private static double tenths(final double value) {
+        return Math.round(value * TENTHS) / TENTHS;
+    }
+
+    /**
+     * Decoding state of a single report body.
+     */
+    private static final class Report {
+
+        /**
+         * Report text.
+         */
+        private final CharSequence text;
+
+        /**
+         * Whole statute miles read from a token preceding a fractional visibility, or -1.
+         */
+        private int wholeMiles = -1;
+
+        /**
+         * Visibility in statute miles, or NaN when not reported.
+         */
+        private double miles = Double.NaN;
+
+        /**
+         * Lowest broken, overcast or obscured layer, in feet, or -1 when unlimited.
+         */
+        private int ceilingFeet = -1;
+
+        /**
+         * Whether any sky condition group was read.
+         */
+        private boolean skyReported;
+
+        /**
+         * Initializes an instance of <code>Report</code>.
+         *
+         * @param report report text
+         */
+        Report(final CharSequence report) {
+            text = report;
+        }
+
+        /**
+         * Decodes a body group.
+         *
+         * @param start first character of the group
+         * @param end one past the last character of the group
+         * @param metar receives the decoded values
+         */
+        void token(final int start, final int end, final METAR metar) {
+            final int length = end - start;
+            if (length == 1 && isDigits(text, start, end)) {
+                wholeMiles = text.charAt(start) - '0';
+                return;
+            }
+            if (endsWith(text, start, end, "SM")) {
+                visibilityMiles(start, end - 2, metar);
+            } else if (endsWith(text, start, end, "KT")) {
+                wind(start, end - 2, 1.0, metar);
+            } else if (endsWith(text, start, end, "MPS")) {
+                wind(start, end - THREE, KNOTS_PER_MPS, metar);
+            } else if (matches(text, start, end, "CAVOK")) {
+                setMiles(UNLIMITED_METERS / METERS_PER_MILE, "6+", metar);
+                skyReported = true;
+            } else if (length == FOUR && isDigits(text, start, end) && metar.getVisibility() == null) {
+                visibilityMeters(number(text, start, end), metar);
+            } else if (length == FOUR + 1 && (text.charAt(start) == 'A' || text.charAt(start) == 'Q')
+                    && isDigits(text, start + 1, end)) {
+                altimeter(text.charAt(start), number(text, start + 1, end), metar);
+            } else if (length == VARIABLE_WIND_LENGTH && text.charAt(start + THREE) == 'V') {
+                return;
+            } else if (text.charAt(start) != 'R' && indexOf(start, end, '/') >= 0) {
+                temperature(start, end, metar);
+            } else {
+                sky(start, end, metar);
+            }
+            wholeMiles = -1;
+        }
+
+        /**
+         * Decodes a wind group without its unit, e.g. 34008G18 or VRB03.
+         *
+         * @param start first character
+         * @param end one past the speed
+         * @param knotsPerUnit conversion factor to knots
+         * @param metar receives the wind
+         */
+        private void wind(final int start, final int end, final double knotsPerUnit, final METAR metar) {
+            if (end - start < MIN_WIND_DIGITS) {
+                return;
+            }
+            final boolean variable = startsWith(text, start, end, "VRB");
+            if (!variable && !isDigits(text, start, start + THREE)) {
+                return;
+            }
+            final int gust = indexOf(start + THREE, end, 'G');
+            int speedStop = end;
+            if (gust > 0) {
+                speedStop = gust;
+            }
+            if (!isDigits(text, start + THREE, speedStop)) {
+                return;
+            }
+            final Wind wind = new Wind();
+            if (!variable) {
+                wind.setDegrees(number(text, start, start + THREE));
+            }
+            wind.setSpeedKt((int) Math.round(number(text, start + THREE, speedStop) * knotsPerUnit));
+            if (gust > 0 && isDigits(text, gust + 1, end)) {
+                wind.setGustKt((int) Math.round(number(text, gust + 1, end) * knotsPerUnit));
+            }
+            metar.setWind(wind);
+        }
+
+        /**
+         * Decodes a statute mile visibility without its unit, e.g. 10, P6, 1/2 or M1/4, combining it with a preceding
+         * whole number group.
+         *
+         * @param start first character
+         * @param end one past the last character before SM
+         * @param metar receives the visibility
+         */
+        private void visibilityMiles(final int start, final int end, final METAR metar) {
+            int from = start;
+            final char prefix = text.charAt(start);
+            if (prefix == 'P' || prefix == 'M') {
+                from++;
+            }
+            final int slash = indexOf(from, end, '/');
+            final double value;
+            if (slash < 0) {
+                if (!isDigits(text, from, end)) {
+                    return;
+                }
+                value = number(text, from, end);
+            } else {
+                if (!isDigits(text, from, slash) || !isDigits(text, slash + 1, end)) {
+                    return;
+                }
+                final int denominator = number(text, slash + 1, end);
+                if (denominator == 0 || denominator > MAX_DENOMINATOR) {
+                    return;
+                }
+                value = (double) number(text, from, slash) / denominator;
+            }
+            if (slash >= 0 && wholeMiles > 0) {
+                setMiles(value + wholeMiles, wholeMiles + " " + copy(text, from, end), metar);
+            } else if (prefix == 'P') {
+                setMiles(value, copy(text, from, end) + "+", metar);
+            } else {
+                setMiles(value, copy(text, from, end), metar);
+            }
+        }
+
+        /**
+         * Decodes a metric visibility.
+         *
+         * @param meters visibility in meters; 9999 means 10 km or more
+         * @param metar receives the visibility
+         */
+        private void visibilityMeters(final int meters, final METAR metar) {
+            setMiles(meters / METERS_PER_MILE, null, metar);
+            metar.getVisibility().setMeters(Integer.toString(meters));
+        }
+
+        /**
+         * Records the visibility.
+         *
+         * @param value statute miles
+         * @param reported reported statute miles, or null for metric reports
+         * @param metar receives the visibility
+         */
+        private void setMiles(final double value, final String reported, final METAR metar) {
+            miles = value;
+            final Visibility visibility = new Visibility();
+            visibility.setMiles(reported);
+            metar.setVisibility(visibility);
+        }
+
+        /**
+         * Decodes an altimeter setting.
+         *
+         * @param unit A for hundredths of an inch of mercury, Q for hectopascals
+         * @param value setting
+         * @param metar receives the barometer
+         */
+        private void altimeter(final char unit, final int value, final METAR metar) {
+            final Barometer barometer = new Barometer();
+            if (unit == 'A') {
+                barometer.setHg(value / INHG_SCALE);
+                barometer.setMb(tenths(value / INHG_SCALE * MB_PER_INHG));
+            } else {
+                barometer.setMb((double) value);
+                barometer.setHg(Math.round(value / MB_PER_INHG * INHG_SCALE) / INHG_SCALE);
+            }
+            metar.setBarometer(barometer);
+        }
+
+        /**
+         * Decodes a temperature and dewpoint group, e.g. 13/07, M02/M05 or 13/.
+         *
+         * @param start first character
+         * @param end one past the last character
+         * @param metar receives the temperature and dewpoint
+         */
+        private void temperature(final int start, final int end, final METAR metar) {
+            final int slash = indexOf(start, end, '/');
+            final Long temperature = celsius(start, slash);
+            if (temperature == null) {
+                return;
+            }
+            final Temperature temp = new Temperature();
+            temp.setCelsius(temperature);
+            metar.setTemperature(temp);
+            final Long dewpoint = celsius(slash + 1, end);
+            if (dewpoint != null) {
+                final Dewpoint dew = new Dewpoint();
+                dew.setCelsius(dewpoint);
+                metar.setDewpoint(dew);
+            }
+        }
+
+        /**
+         * Decodes a whole degree Celsius value with an optional M prefix for negative values.
+         *
+         * @param start first character
+         * @param end one past the last character
+         * @return degrees Celsius, or null if the range is not a temperature
+         */
+        private Long celsius(final int start, final int end) {
+            if (start < end && text.charAt(start) == 'M') {
+                if (!isDigits(text, start + 1, end)) {
+                    return null;
+                }
+                return (long) -number(text, start + 1, end);
+            }
+            if (!isDigits(text, start, end)) {
+                return null;
+            }
+            return (long) number(text, start, end);
+        }
+
+        /**
+         * Decodes a sky condition group, e.g. BKN025CB, VV002 or CLR. Any other group, such as present weather or
+         * runway visual range, is ignored.
+         *
+         * @param start first character
+         * @param end one past the last character
+         * @param metar receives the cloud layer
+         */
+        private void sky(final int start, final int end, final METAR metar) {
+            for (final String code : CLEAR_CODES) {
+                if (matches(text, start, end, code)) {
+                    skyReported = true;
+                    return;
+                }
+            }
+            String amount = null;
+            int heightStart = start + THREE;
+            for (final String code : CLOUD_AMOUNTS) {
+                if (startsWith(text, start, end, code)) {
+                    amount = code;
+                }
+            }
+            if (amount == null && startsWith(text, start, end, "VV")) {
+                amount = OBSCURED;
+                heightStart = start + 2;
+            }
+            if (amount == null || !isDigits(text, heightStart, Math.min(end, heightStart + THREE))
+                    || end - heightStart < THREE) {
+                return;
+            }
+            skyReported = true;
+            final int feet = number(text, heightStart, heightStart + THREE) * HUNDRED_FEET;
+            final Cloud cloud = new Cloud();
+            cloud.setCode(amount);
+            cloud.setBaseFeetAgl((double) feet);
+            if (metar.getClouds() == null) {
+                metar.setClouds(new ArrayList<>(FOUR));
+            }
+            metar.getClouds().add(cloud);
+            final boolean ceiling = OBSCURED.equals(amount) || "BKN".equals(amount) || "OVC".equals(amount);
+            if (ceiling && (ceilingFeet < 0 || feet < ceilingFeet)) {
+                ceilingFeet = feet;
+                final Ceiling value = new Ceiling();
+                value.setCode(amount);
+                value.setFeet((double) feet);
+                metar.setCeiling(value);
+            }
+        }
+
+        /**
+         * Derives the flight category once all groups have been read.
+         *
+         * @param metar METAR
+         */
+        void finish(final METAR metar) {
+            if (Double.isNaN(miles) && !skyReported) {
+                return;
+            }
+            int ceiling = Integer.MAX_VALUE;
+            if (ceilingFeet >= 0) {
+                ceiling = ceilingFeet;
+            }
+            double visibility = Double.MAX_VALUE;
+            if (!Double.isNaN(miles)) {
+                visibility = miles;
+            }
+            if (ceiling < LIFR_CEILING || visibility < 1) {
+                metar.setFlightCategory("LIFR");
+            } else if (ceiling < IFR_CEILING || visibility < IFR_VISIBILITY) {
+                metar.setFlightCategory("IFR");
+            } else if (ceiling <= MVFR_CEILING || visibility <= MVFR_VISIBILITY) {
+                metar.setFlightCategory("MVFR");
+            } else {
+                metar.setFlightCategory("VFR");
+            }
+        }
+
+        /**
+         * Finds a character within a range.
+         *
+         * @param start first character
+         * @param end one past the last character
+         * @param c character
+         * @return offset, or -1 if absent
+         */
+        private int indexOf(final int start, final int end, final char c) {
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Rendered JSON bytes of the current METAR of each station, per attribute projection.
+ *
+ * Each station's renders are tied to the {@link CompactMETAR} instance they were rendered from. An ingest cycle
+ * publishes new instances, so the first read after a station changes finds a different instance, drops the station's
+ * renders and renders again; polling a station that has not changed costs a map lookup.
+ */
+public class RenderedMetarCache {
+
+    /**
+     * Most projections cached per station; further projections are rendered on every request.
+     */
+    private static final int MAX_PROJECTIONS_PER_STATION = 8;
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * ObjectMapper used to render.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Renders keyed by ICAO code.
+     */
+    private final Map<String, StationRenders> stations = new ConcurrentHashMap<>();
+
+    /**
+     * Reads served from cached renders.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Reads that had to render.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Initializes an instance of <code>RenderedMetarCache</code>.
+     *
+     * @param mapper ObjectMapper used to render
+     */
+    public RenderedMetarCache(final ObjectMapper mapper) {
+        objectMapper = mapper;
+    }
+
+    /**
+     * Retrieves the rendered bytes of an observation through a projection, rendering them if not cached.
+     *
+     * @param metar current observation of a station
+     * @param projection MetarProjection
+     * @return RenderedMETAR
+     * @throws IOException when the METAR cannot be rendered
+     */
+    public RenderedMETAR get(final CompactMETAR metar, final MetarProjection projection) throws IOException {
+        StationRenders renders = stations.get(metar.getIcao());
+        if (renders == null || renders.source != metar) {
+            renders = new StationRenders(metar);
+            stations.put(metar.getIcao(), renders);
+        }
+        final RenderedMETAR cached = renders.byMask.get(projection.getMask());
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        final RenderedMETAR rendered = render(metar, projection);
+        if (renders.byMask.size() < MAX_PROJECTIONS_PER_STATION) {
+            renders.byMask.putIfAbsent(projection.getMask(), rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Number of stations with cached renders.
+     *
+     * @return station count
+     */
+    public int size() {
+        return stations.size();
+    }
+
+    /**
+     * Number of reads served from cached renders.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of reads that had to render.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Renders an observation through a projection.
+     *
+     * @param metar observation
+     * @param projection MetarProjection
+     * @return RenderedMETAR
+     * @throws IOException when the METAR cannot be rendered
+     */
+    private RenderedMETAR render(final CompactMETAR metar, final MetarProjection projection) throws IOException {
+        final byte[] body = objectMapper.writeValueAsBytes(projection.view(metar.toMETAR()));
+        final CRC32C crc = new CRC32C();
+        crc.update(body);
+        final String etag = String.format("\"%s-%x-%x-%x\"", metar.getIcao(), metar.getObserved(),
+                projection.getMask(), crc.getValue());
+        long lastModified = -1;
+        if (metar.getObserved() != CompactMETAR.MISSING_TIME) {
+            lastModified = metar.getObserved() * MILLIS_PER_SECOND;
+        }
+        return new RenderedMETAR(body, etag, lastModified);
+    }
+
+    /**
+     * Renders of one observation.
+     */
+    private static final class StationRenders {
+
+        /**
+         * Observation the renders were made from.
+         */
+        private final CompactMETAR source;
+
+        /**
+         * Renders keyed by projection mask.
+         */
+        private final Map<Integer, RenderedMETAR> byMask = new ConcurrentHashMap<>();
+
+        /**
+         * Initializes an instance of <code>StationRenders</code>.
+         *
+         * @param metar observation
+         */
+        StationRenders(final CompactMETAR metar) {
+            source = metar;
+        }
+    }
+
+    /**
+     * Rendered JSON of a METAR with its validators.
+     */
+    @Getter
+    public static final class RenderedMETAR {
+
+        /**
+         * JSON bytes; must not be modified.
+         */
+        private final byte[] body;
+
+        /**
+         * Strong entity tag, quoted.
+         */
+        private final String etag;
+
+        /**
+         * Observation time in epoch milliseconds, or -1 when unknown.
+         */
+        private final long lastModified;
+
+        /**
+         * Initializes an instance of <code>RenderedMETAR</code>.
+         *
+         * @param json JSON bytes
+         * @param tag strong entity tag
+         * @param modified observation time in epoch milliseconds
+         */
+        RenderedMETAR(final byte[] json, final String tag, final long modified) {
+            body = json;
+            etag = tag;
+            lastModified = modified;
+        }
+    }
+
+}
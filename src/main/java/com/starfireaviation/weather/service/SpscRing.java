@@ -0,0 +1,118 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free bounded single-producer single-consumer ring buffer.
+ *
+ * One thread at a time may offer and one thread at a time may poll; neither ever blocks. The producer publishes a
+ * slot by advancing the tail with a release store after writing it, and the consumer frees a slot by advancing the
+ * head after clearing it, so each side only reads the other side's counter.
+ *
+ * @param <E> element type
+ */
+final class SpscRing<E> {
+
+    /**
+     * Slots; the length is a power of two.
+     */
+    private final Object[] buffer;
+
+    /**
+     * Index mask.
+     */
+    private final int mask;
+
+    /**
+     * Sequence of the next slot to read; written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Sequence of the next slot to write; written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Initializes an instance of <code>SpscRing</code>.
+     *
+     * @param capacity smallest number of slots; rounded up to a power of two
+     */
+    SpscRing(final int capacity) {
+        if (capacity < 1 || capacity > (1 << (Integer.SIZE - 2))) {
+            throw new IllegalArgumentException(String.format("Invalid ring capacity %d", capacity));
+        }
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[Math.max(size, 1)];
+        mask = buffer.length - 1;
+    }
+
+    /**
+     * Adds an element. Producer only.
+     *
+     * @param element element
+     * @return false if the ring is full
+     */
+    boolean offer(final E element) {
+        final long t = tail.get();
+        if (t - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) t & mask] = element;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element. Consumer only.
+     *
+     * @return element, or null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        final long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        final int index = (int) h & mask;
+        final E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /**
+     * Number of slots.
+     *
+     * @return capacity
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Number of elements waiting; approximate while both sides are active.
+     *
+     * @return size
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+}
@@ -0,0 +1,335 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.NearbyMETAR;
+import com.starfireaviation.weather.util.GeoUtilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable uniform-grid spatial index over METAR station positions.
+ *
+ * Stations are bucketed into square cells of a fixed size in degrees, so a bounding-box or radius query only visits
+ * the cells that overlap the query area instead of every cached station, and a nearest-neighbour query only visits
+ * the cells around the query point. METARs without a position are not indexed.
+ */
+public final class StationGrid {
+
+    /**
+     * Mask for the column half of a cell key.
+     */
+    private static final long COLUMN_MASK = 0xffffffffL;
+
+    /**
+     * Bits to shift the row half of a cell key.
+     */
+    private static final int ROW_SHIFT = 32;
+
+    /**
+     * Extent index of the lowest row.
+     */
+    private static final int MIN_ROW = 0;
+
+    /**
+     * Extent index of the highest row.
+     */
+    private static final int MAX_ROW = 1;
+
+    /**
+     * Extent index of the lowest column.
+     */
+    private static final int MIN_COL = 2;
+
+    /**
+     * Extent index of the highest column.
+     */
+    private static final int MAX_COL = 3;
+
+    /**
+     * Empty cell.
+     */
+    private static final CompactMETAR[] EMPTY_CELL = new CompactMETAR[0];
+
+    /**
+     * Cell size, in degrees.
+     */
+    private final double cellDegrees;
+
+    /**
+     * Cells keyed by packed row and column.
+     */
+    private final Map<Long, CompactMETAR[]> cells;
+
+    /**
+     * Row and column extent of the occupied cells: minRow, maxRow, minCol, maxCol.
+     */
+    private final int[] extent;
+
+    /**
+     * Initializes an instance of <code>StationGrid</code>.
+     *
+     * @param cellSize cell size, in degrees
+     * @param grid cells
+     * @param bounds minRow, maxRow, minCol, maxCol
+     */
+    private StationGrid(final double cellSize, final Map<Long, CompactMETAR[]> grid, final int[] bounds) {
+        cellDegrees = cellSize;
+        cells = grid;
+        extent = bounds;
+    }
+
+    /**
+     * Builds a grid.
+     *
+     * @param cellSize cell size, in degrees
+     * @param metars METARs to index
+     * @return StationGrid
+     */
+    public static StationGrid build(final double cellSize, final Collection<CompactMETAR> metars) {
+        final Map<Long, List<CompactMETAR>> buckets = new HashMap<>();
+        final int[] bounds = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (final CompactMETAR metar : metars) {
+            if (metar.hasPosition()) {
+                final int row = cell(metar.getLatitude(), cellSize);
+                final int col = cell(metar.getLongitude(), cellSize);
+                buckets.computeIfAbsent(key(row, col), k -> new ArrayList<>()).add(metar);
+                bounds[MIN_ROW] = Math.min(bounds[MIN_ROW], row);
+                bounds[MAX_ROW] = Math.max(bounds[MAX_ROW], row);
+                bounds[MIN_COL] = Math.min(bounds[MIN_COL], col);
+                bounds[MAX_COL] = Math.max(bounds[MAX_COL], col);
+            }
+        }
+        final Map<Long, CompactMETAR[]> grid = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, bucket) -> grid.put(key, bucket.toArray(EMPTY_CELL)));
+        return new StationGrid(cellSize, grid, bounds);
+    }
+
+    /**
+     * Finds every METAR inside a bounding box. Boxes that cross the antimeridian are not supported.
+     *
+     * @param minLat southern edge
+     * @param minLon western edge
+     * @param maxLat northern edge
+     * @param maxLon eastern edge
+     * @return METARs inside the box
+     */
+    public List<CompactMETAR> within(final double minLat, final double minLon, final double maxLat,
+                                     final double maxLon) {
+        final List<CompactMETAR> results = new ArrayList<>();
+        final int minRow = cell(minLat, cellDegrees);
+        final int maxRow = cell(maxLat, cellDegrees);
+        final int minCol = cell(minLon, cellDegrees);
+        final int maxCol = cell(maxLon, cellDegrees);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                final CompactMETAR[] cell = cells.get(key(row, col));
+                if (cell == null) {
+                    continue;
+                }
+                for (final CompactMETAR metar : cell) {
+                    final double lat = metar.getLatitude();
+                    final double lon = metar.getLongitude();
+                    if (lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon) {
+                        results.add(metar);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds every METAR within a distance of a point, nearest first.
+     *
+     * @param lat latitude, in decimal degrees
+     * @param lon longitude, in decimal degrees
+     * @param nm radius, in nautical miles
+     * @return METARs within the radius, ordered by distance
+     */
+    public List<CompactMETAR> within(final double lat, final double lon, final double nm) {
+        final double dLat = nm / GeoUtilities.NM_PER_DEGREE;
+        final double dLon = GeoUtilities.longitudeDegrees(nm, Math.abs(lat) + dLat);
+        final List<CompactMETAR> candidates = within(lat - dLat, lon - dLon, lat + dLat, lon + dLon);
+        final List<CompactMETAR> results = new ArrayList<>(candidates.size());
+        for (final CompactMETAR metar : candidates) {
+            if (distanceNm(metar, lat, lon) <= nm) {
+                results.add(metar);
+            }
+        }
+        results.sort(Comparator.comparingDouble(metar -> distanceNm(metar, lat, lon)));
+        return results;
+    }
+
+    /**
+     * Finds the k stations nearest to a point.
+     *
+     * Cells are visited in rings of growing Chebyshev distance around the point's cell while a bounded max-heap keeps
+     * the k best candidates. The search stops as soon as no cell in the next ring can hold a station closer than the
+     * current k-th candidate, so the cost depends on local station density rather than on the total station count.
+     *
+     * @param lat latitude, in decimal degrees
+     * @param lon longitude, in decimal degrees
+     * @param k number of stations
+     * @return up to k METARs with their distance, nearest first; only these are converted to {@link METAR}s
+     */
+    public List<NearbyMETAR> nearest(final double lat, final double lon, final int k) {
+        if (k <= 0 || cells.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final PriorityQueue<Candidate> best =
+                new PriorityQueue<>(k, Comparator.comparingDouble((Candidate c) -> c.distanceNm).reversed());
+        final int centerRow = cell(lat, cellDegrees);
+        final int centerCol = cell(lon, cellDegrees);
+        final int maxRing = Math.max(
+                Math.max(Math.abs(centerRow - extent[MIN_ROW]), Math.abs(extent[MAX_ROW] - centerRow)),
+                Math.max(Math.abs(centerCol - extent[MIN_COL]), Math.abs(extent[MAX_COL] - centerCol)));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best.size() == k && ringLowerBoundNm(lat, ring) > best.peek().distanceNm) {
+                break;
+            }
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                final boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                int step = 2 * ring;
+                if (edgeRow || ring == 0) {
+                    step = 1;
+                }
+                for (int col = centerCol - ring; col <= centerCol + ring; col += step) {
+                    offer(cells.get(key(row, col)), lat, lon, k, best);
+                }
+            }
+        }
+        final List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble((Candidate c) -> c.distanceNm));
+        final List<NearbyMETAR> results = new ArrayList<>(sorted.size());
+        sorted.forEach(candidate -> results.add(new NearbyMETAR(candidate.metar.toMETAR(), candidate.distanceNm)));
+        return results;
+    }
+
+    /**
+     * Offers every station of a cell to the bounded heap.
+     *
+     * @param cell cell, may be null
+     * @param lat query latitude
+     * @param lon query longitude
+     * @param k heap bound
+     * @param best max-heap of the best candidates so far
+     */
+    private static void offer(final CompactMETAR[] cell, final double lat, final double lon, final int k,
+                              final PriorityQueue<Candidate> best) {
+        if (cell == null) {
+            return;
+        }
+        for (final CompactMETAR metar : cell) {
+            final double distance = distanceNm(metar, lat, lon);
+            if (best.size() < k) {
+                best.add(new Candidate(metar, distance));
+            } else if (distance < best.peek().distanceNm) {
+                best.poll();
+                best.add(new Candidate(metar, distance));
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the distance from a point to any station in a ring of cells. A station in ring r is at least
+     * r - 1 whole cells away from the point along one axis.
+     *
+     * @param lat query latitude
+     * @param ring ring number
+     * @return distance in nautical miles
+     */
+    private double ringLowerBoundNm(final double lat, final int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        final double degrees = (ring - 1) * cellDegrees;
+        final double latNm = degrees * GeoUtilities.NM_PER_DEGREE;
+        final double lonNm = degrees / GeoUtilities.longitudeDegrees(1.0, Math.abs(lat) + ring * cellDegrees);
+        return Math.min(latNm, lonNm);
+    }
+
+    /**
+     * Distance from a METAR's station to a point.
+     *
+     * @param metar METAR with a position
+     * @param lat latitude
+     * @param lon longitude
+     * @return distance in nautical miles
+     */
+    static double distanceNm(final CompactMETAR metar, final double lat, final double lon) {
+        return GeoUtilities.distanceNm(lat, lon, metar.getLatitude(), metar.getLongitude());
+    }
+
+    /**
+     * Cell index of a coordinate.
+     *
+     * @param degrees latitude or longitude
+     * @param cellSize cell size, in degrees
+     * @return cell index
+     */
+    private static int cell(final double degrees, final double cellSize) {
+        return (int) Math.floor(degrees / cellSize);
+    }
+
+    /**
+     * Packs a row and column into a cell key.
+     *
+     * @param row row
+     * @param col column
+     * @return key
+     */
+    private static long key(final int row, final int col) {
+        return ((long) row << ROW_SHIFT) | (col & COLUMN_MASK);
+    }
+
+    /**
+     * Station found by a nearest-neighbour search.
+     */
+    private static final class Candidate {
+
+        /**
+         * Observation.
+         */
+        private final CompactMETAR metar;
+
+        /**
+         * Distance from the query point, in nautical miles.
+         */
+        private final double distanceNm;
+
+        /**
+         * Initializes an instance of <code>Candidate</code>.
+         *
+         * @param observation observation
+         * @param distance distance in nautical miles
+         */
+        Candidate(final CompactMETAR observation, final double distance) {
+            metar = observation;
+            distanceNm = distance;
+        }
+    }
+
+}
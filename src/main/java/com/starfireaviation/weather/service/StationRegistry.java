@@ -0,0 +1,238 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.model.Elevation;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Station;
+import com.starfireaviation.weather.model.TAF;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of known reporting stations, indexed by ICAO code.
+ *
+ * Built from the station file configured in {@link WeatherProperties} plus any ICAO codes configured in
+ * atlanta-icao-codes. The index is rebuilt as a whole on {@link #reload()} and swapped in atomically.
+ */
+@Slf4j
+public class StationRegistry {
+
+    /**
+     * Feet to meters.
+     */
+    private static final double METERS_PER_FOOT = 0.3048;
+
+    /**
+     * Elevation method recorded for elevations read from the station file.
+     */
+    private static final String ELEVATION_METHOD = "station file";
+
+    /**
+     * Number of columns in the station file: icao,name,elevation_ft,latitude,longitude.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * Elevation column.
+     */
+    private static final int ELEVATION_COLUMN = 2;
+
+    /**
+     * Latitude column.
+     */
+    private static final int LATITUDE_COLUMN = 3;
+
+    /**
+     * Longitude column.
+     */
+    private static final int LONGITUDE_COLUMN = 4;
+
+    /**
+     * WeatherProperties.
+     */
+    private final WeatherProperties weatherProperties;
+
+    /**
+     * ResourceLoader.
+     */
+    private final ResourceLoader resourceLoader;
+
+    /**
+     * Stations keyed by ICAO code.
+     */
+    private volatile Map<String, Station> stations = Collections.emptyMap();
+
+    /**
+     * Initializes an instance of <code>StationRegistry</code> and loads the stations.
+     *
+     * @param props WeatherProperties
+     * @param loader ResourceLoader
+     */
+    public StationRegistry(final WeatherProperties props, final ResourceLoader loader) {
+        weatherProperties = props;
+        resourceLoader = loader;
+        reload();
+    }
+
+    /**
+     * Rebuilds the registry from the station file and configured ICAO codes.
+     */
+    public void reload() {
+        final Map<String, Station> loaded = new HashMap<>();
+        final String location = weatherProperties.getStationFile();
+        if (location != null) {
+            final Resource resource = resourceLoader.getResource(location);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                while (line != null) {
+                    final Station station = parse(line);
+                    if (station != null) {
+                        loaded.put(station.getIcao(), station);
+                    }
+                    line = reader.readLine();
+                }
+            } catch (IOException e) {
+                log.warn(String.format("Unable to load station file %s: %s", location, e.getMessage()));
+            }
+        }
+        final String icaoCodes = weatherProperties.getAtlantaIcaoCodes();
+        if (icaoCodes != null) {
+            for (final String icaoCode : icaoCodes.split(",")) {
+                final String code = icaoCode.trim().toUpperCase(Locale.ROOT);
+                if (!code.isEmpty() && !loaded.containsKey(code)) {
+                    final Station station = new Station();
+                    station.setIcao(code);
+                    loaded.put(code, station);
+                }
+            }
+        }
+        stations = loaded;
+        log.info(String.format("Loaded %d stations", loaded.size()));
+    }
+
+    /**
+     * Checks if a station is known.
+     *
+     * @param icaoCode ICAO code
+     * @return true if known
+     */
+    public boolean contains(final String icaoCode) {
+        return stations.containsKey(icaoCode);
+    }
+
+    /**
+     * Retrieves a station.
+     *
+     * @param icaoCode ICAO code
+     * @return Station, or null if unknown
+     */
+    public Station get(final String icaoCode) {
+        return stations.get(icaoCode);
+    }
+
+    /**
+     * Retrieves every known station.
+     *
+     * @return stations
+     */
+    public Collection<Station> getStations() {
+        return Collections.unmodifiableCollection(stations.values());
+    }
+
+    /**
+     * Fills a METAR's station name and elevation from the registry, and its position when the feed did not carry
+     * one. The Elevation instance is shared by every METAR of the station.
+     *
+     * @param metar METAR
+     */
+    public void describe(final METAR metar) {
+        final Station station = stations.get(metar.getIcao());
+        if (station != null) {
+            metar.setName(station.getName());
+            metar.setElevation(station.getElevation());
+            if (metar.getLatitude() == null || metar.getLongitude() == null) {
+                metar.setLatitude(station.getLatitude());
+                metar.setLongitude(station.getLongitude());
+            }
+        }
+    }
+
+    /**
+     * Fills a TAF's station name from the registry, and its position when the feed did not carry one.
+     *
+     * @param taf TAF
+     */
+    public void describe(final TAF taf) {
+        final Station station = stations.get(taf.getIcao());
+        if (station != null) {
+            taf.setName(station.getName());
+            if (taf.getLatitude() == null || taf.getLongitude() == null) {
+                taf.setLatitude(station.getLatitude());
+                taf.setLongitude(station.getLongitude());
+            }
+        }
+    }
+
+    /**
+     * Parses a station file line.
+     *
+     * @param line icao,name,elevation_ft,latitude,longitude
+     * @return Station, or null for the header, blank or malformed lines
+     */
+    private static Station parse(final String line) {
+        final String[] columns = line.split(",", -1);
+        if (columns.length != COLUMNS || columns[0].isBlank() || "icao".equalsIgnoreCase(columns[0].trim())) {
+            return null;
+        }
+        try {
+            final Station station = new Station();
+            station.setIcao(columns[0].trim().toUpperCase(Locale.ROOT));
+            station.setName(columns[1].trim());
+            if (!columns[ELEVATION_COLUMN].isBlank()) {
+                final double feet = Double.parseDouble(columns[ELEVATION_COLUMN].trim());
+                final Elevation elevation = new Elevation();
+                elevation.setFeet(String.valueOf(Math.round(feet)));
+                elevation.setMeters(String.valueOf(Math.round(feet * METERS_PER_FOOT)));
+                elevation.setMethod(ELEVATION_METHOD);
+                station.setElevation(elevation);
+            }
+            if (!columns[LATITUDE_COLUMN].isBlank() && !columns[LONGITUDE_COLUMN].isBlank()) {
+                station.setLatitude(Double.parseDouble(columns[LATITUDE_COLUMN].trim()));
+                station.setLongitude(Double.parseDouble(columns[LONGITUDE_COLUMN].trim()));
+            }
+            return station;
+        } catch (NumberFormatException e) {
+            log.warn(String.format("Skipping malformed station line [%s]", line));
+            return null;
+        }
+    }
+
+}
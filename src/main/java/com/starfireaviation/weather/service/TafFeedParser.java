@@ -0,0 +1,293 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.starfireaviation.weather.config.WeatherConstants;
+import com.starfireaviation.weather.model.ForecastPeriod;
+import com.starfireaviation.weather.model.TAF;
+import com.starfireaviation.weather.model.Visibility;
+import com.starfireaviation.weather.model.Wind;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for the AviationWeather.gov TafJSON GeoJSON feed.
+ *
+ * The feed carries one feature per forecast period, repeating the forecast-level properties on each. Consecutive
+ * features of the same station and issue time are folded into a single {@link TAF}, which is handed to the caller as
+ * soon as the next forecast starts, so the response is never held in memory.
+ */
+public class TafFeedParser {
+
+    /**
+     * Features.
+     */
+    private static final String FEATURES = "features";
+
+    /**
+     * Properties.
+     */
+    private static final String PROPERTIES = "properties";
+
+    /**
+     * Geometry.
+     */
+    private static final String GEOMETRY = "geometry";
+
+    /**
+     * JSON parser factory.
+     */
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Initializes an instance of <code>TafFeedParser</code>.
+     *
+     * @param factory JsonFactory
+     */
+    public TafFeedParser(final JsonFactory factory) {
+        jsonFactory = factory;
+    }
+
+    /**
+     * Parses a TafJSON response.
+     *
+     * @param inputStream response body
+     * @param consumer receives each parsed TAF with all of its periods
+     * @throws IOException when the stream cannot be read or is not valid JSON
+     */
+    public void parse(final InputStream inputStream, final Consumer<TAF> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if (FEATURES.equals(field) && value == JsonToken.START_ARRAY) {
+                    parseFeatures(parser, consumer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the features array, folding consecutive periods of the same forecast. The parser is positioned on the
+     * array START_ARRAY.
+     *
+     * @param parser JsonParser
+     * @param consumer receives each parsed TAF
+     * @throws IOException on read failure
+     */
+    private static void parseFeatures(final JsonParser parser, final Consumer<TAF> consumer) throws IOException {
+        final CloudLayers layers = new CloudLayers();
+        TAF current = null;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final Feature feature = parseFeature(parser, layers);
+            if (feature == null) {
+                continue;
+            }
+            if (current == null || !current.getIcao().equals(feature.taf.getIcao())
+                    || !Objects.equals(current.getIssued(), feature.taf.getIssued())) {
+                if (current != null) {
+                    consumer.accept(current);
+                }
+                current = feature.taf;
+                current.setPeriods(new ArrayList<>());
+            }
+            if (feature.period.getFrom() != null) {
+                current.getPeriods().add(feature.period);
+            }
+        }
+        if (current != null) {
+            consumer.accept(current);
+        }
+    }
+
+    /**
+     * Parses a single GeoJSON feature. The parser is positioned on the feature's START_OBJECT.
+     *
+     * @param parser JsonParser
+     * @param layers scratch space for cloud layers
+     * @return Feature, or null if the feature has no id or no station identifier
+     * @throws IOException on read failure
+     */
+    private static Feature parseFeature(final JsonParser parser, final CloudLayers layers) throws IOException {
+        boolean hasId = false;
+        Feature feature = null;
+        double[] point = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (WeatherConstants.ID.equals(field)) {
+                hasId = value != JsonToken.VALUE_NULL;
+            } else if (PROPERTIES.equals(field) && value == JsonToken.START_OBJECT) {
+                feature = parseProperties(parser, layers);
+            } else if (GEOMETRY.equals(field) && value == JsonToken.START_OBJECT) {
+                point = MetarFeedParser.parsePoint(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!hasId || feature == null || feature.taf.getIcao() == null) {
+            return null;
+        }
+        if (point != null) {
+            feature.taf.setLongitude(point[0]);
+            feature.taf.setLatitude(point[1]);
+        }
+        return feature;
+    }
+
+    /**
+     * Parses the properties of a feature. The parser is positioned on the properties START_OBJECT.
+     *
+     * @param parser JsonParser
+     * @param layers scratch space for cloud layers
+     * @return Feature
+     * @throws IOException on read failure
+     */
+    private static Feature parseProperties(final JsonParser parser, final CloudLayers layers) throws IOException {
+        final TAF taf = new TAF();
+        final ForecastPeriod period = new ForecastPeriod();
+        layers.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (!value.isScalarValue()) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case WeatherConstants.ID:
+                    taf.setIcao(parser.getText());
+                    break;
+                case WeatherConstants.ISSUE_TIME:
+                    taf.setIssued(parser.getText());
+                    break;
+                case WeatherConstants.VALID_TIME_FROM:
+                    taf.setValidFrom(parser.getText());
+                    break;
+                case WeatherConstants.VALID_TIME_TO:
+                    taf.setValidTo(parser.getText());
+                    break;
+                case WeatherConstants.RAW_TAF:
+                    taf.setRawText(parser.getText());
+                    break;
+                case WeatherConstants.FORECAST_TIME_FROM:
+                    period.setFrom(parser.getText());
+                    break;
+                case WeatherConstants.FORECAST_TIME_TO:
+                    period.setTo(parser.getText());
+                    break;
+                case WeatherConstants.FORECAST_CHANGE:
+                    if (!parser.getText().isBlank()) {
+                        period.setChange(parser.getText());
+                    }
+                    break;
+                case WeatherConstants.PROBABILITY:
+                    if (value.isNumeric() || MetarFeedParser.isNumeric(parser.getText())) {
+                        period.setProbability(parser.getValueAsInt());
+                    }
+                    break;
+                case WeatherConstants.WIND_SPEED:
+                    wind(period).setSpeedKt(parser.getValueAsInt());
+                    break;
+                case WeatherConstants.WIND_GUST:
+                    wind(period).setGustKt(parser.getValueAsInt());
+                    break;
+                case WeatherConstants.WIND_DIRECTION:
+                    if (value == JsonToken.VALUE_NUMBER_INT || MetarFeedParser.isNumeric(parser.getText())) {
+                        wind(period).setDegrees(parser.getValueAsInt());
+                    }
+                    break;
+                case WeatherConstants.VISIBILITY:
+                    final Visibility visibility = new Visibility();
+                    visibility.setMiles(parser.getText());
+                    period.setVisibility(visibility);
+                    break;
+                case WeatherConstants.WEATHER:
+                    if (!parser.getText().isBlank()) {
+                        period.setWeather(parser.getText());
+                    }
+                    break;
+                default:
+                    layers.accept(field, parser);
+            }
+        }
+        // Wind is only meaningful with a speed.
+        if (period.getWind() != null && period.getWind().getSpeedKt() == null) {
+            period.setWind(null);
+        }
+        if (layers.count() > 0) {
+            period.setClouds(layers.toClouds());
+        }
+        return new Feature(taf, period);
+    }
+
+    /**
+     * Gets or creates the Wind of a forecast period.
+     *
+     * @param period ForecastPeriod
+     * @return Wind
+     */
+    private static Wind wind(final ForecastPeriod period) {
+        if (period.getWind() == null) {
+            period.setWind(new Wind());
+        }
+        return period.getWind();
+    }
+
+    /**
+     * Forecast-level properties and the period carried by a single feature.
+     */
+    private static final class Feature {
+
+        /**
+         * Forecast-level properties.
+         */
+        private final TAF taf;
+
+        /**
+         * Period.
+         */
+        private final ForecastPeriod period;
+
+        /**
+         * Initializes an instance of <code>Feature</code>.
+         *
+         * @param forecast forecast-level properties
+         * @param forecastPeriod period
+         */
+        Feature(final TAF forecast, final ForecastPeriod forecastPeriod) {
+            taf = forecast;
+            period = forecastPeriod;
+        }
+    }
+
+}
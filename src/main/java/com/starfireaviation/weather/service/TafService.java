@@ -0,0 +1,233 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.ForecastPeriod;
+import com.starfireaviation.weather.model.TAF;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Ingests and serves Terminal Aerodrome Forecasts.
+ */
+@Slf4j
+public class TafService {
+
+    /**
+     * TAF Key.
+     */
+    public static final String TAF_KEY = "TAF_";
+
+    /**
+     * AviationWeatherClient.
+     */
+    private final AviationWeatherClient aviationWeatherClient;
+
+    /**
+     * WeatherProperties.
+     */
+    private final WeatherProperties weatherProperties;
+
+    /**
+     * WeatherProductService.
+     */
+    private final WeatherProductService weatherProductService;
+
+    /**
+     * In-memory TAF snapshot.
+     */
+    private final TafStore tafStore;
+
+    /**
+     * Streaming TafJSON parser.
+     */
+    private final TafFeedParser tafFeedParser;
+
+    /**
+     * StationRegistry.
+     */
+    private final StationRegistry stationRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param client AviationWeatherClient
+     * @param props WeatherProperties
+     * @param productService WeatherProductService
+     * @param store TafStore
+     * @param parser TafFeedParser
+     * @param registry StationRegistry
+     */
+    public TafService(final AviationWeatherClient client,
+                      final WeatherProperties props,
+                      final WeatherProductService productService,
+                      final TafStore store,
+                      final TafFeedParser parser,
+                      final StationRegistry registry) {
+        aviationWeatherClient = client;
+        weatherProperties = props;
+        weatherProductService = productService;
+        tafStore = store;
+        tafFeedParser = parser;
+        stationRegistry = registry;
+    }
+
+    /**
+     * Refreshes forecasts. Scheduled at the interval configured in {@link WeatherProperties}.
+     */
+    public void updateTAFs() {
+        if (tafStore.size() == 0) {
+            loadTAFsFromCache();
+        }
+        getTAFsFromAviationWeather();
+    }
+
+    /**
+     * Retrieves the current TAF for a given airport.
+     *
+     * @param icaoCode for the forecast
+     * @return {@link TAF}
+     * @throws ResourceNotFoundException when no forecast is found for the given ID
+     * @throws InvalidPayloadException when the station is not an accepted station
+     */
+    public TAF getTAF(final String icaoCode) throws ResourceNotFoundException, InvalidPayloadException {
+        validateStation(icaoCode);
+        final TAF taf = tafStore.get(icaoCode);
+        if (taf == null) {
+            throw new ResourceNotFoundException(String.format("TAF information not found for %s", icaoCode));
+        }
+        return taf;
+    }
+
+    /**
+     * Retrieves the prevailing forecast period for a given airport at a given time.
+     *
+     * @param icaoCode for the forecast
+     * @param at time
+     * @return {@link ForecastPeriod}
+     * @throws ResourceNotFoundException when the station has no forecast covering the time
+     * @throws InvalidPayloadException when the station is not an accepted station
+     */
+    public ForecastPeriod getForecastPeriod(final String icaoCode, final Instant at)
+            throws ResourceNotFoundException, InvalidPayloadException {
+        validateStation(icaoCode);
+        final ForecastPeriod period = tafStore.periodAt(icaoCode, at);
+        if (period == null) {
+            throw new ResourceNotFoundException(String.format("No forecast for %s at %s", icaoCode, at));
+        }
+        return period;
+    }
+
+    /**
+     * Validates a station.
+     *
+     * @param station to be validated
+     * @throws InvalidPayloadException when the station is not an accepted station
+     */
+    private void validateStation(final String station) throws InvalidPayloadException {
+        if (!stationRegistry.contains(station) && tafStore.get(station) == null) {
+            throw new InvalidPayloadException(String.format(WeatherService.INVALID_STATION_MSG, station));
+        }
+    }
+
+    /**
+     * Seeds the in-memory snapshot with the TAFs persisted by a previous run.
+     */
+    private void loadTAFsFromCache() {
+        final Map<String, TAF> tafs = weatherProductService.loadTAFs();
+        tafStore.publish(tafs);
+        log.info(String.format("Loaded %d TAFs from cache", tafs.size()));
+    }
+
+    /**
+     * Queries AviationWeather.gov for forecasts. Every configured tile is fetched concurrently; the changed forecasts
+     * of all tiles are persisted and published together.
+     */
+    private void getTAFsFromAviationWeather() {
+        final List<String> urls = new ArrayList<>();
+        for (final String bbox : FeedTiles.bboxes(weatherProperties.getRegions(), weatherProperties.getTileDegrees())) {
+            urls.add(weatherProperties.getTafFeedUrl() + "?density=all&bbox=" + bbox);
+        }
+        log.info(String.format("Querying AviationWeather.gov for TAF information in %d tiles", urls.size()));
+        final Map<String, Optional<Map<String, TAF>>> tiles;
+        try {
+            tiles = aviationWeatherClient.fetchAll(urls, weatherProperties.getMaxConcurrentFetches(), body -> {
+                final Map<String, TAF> parsed = new HashMap<>();
+                tafFeedParser.parse(body, taf -> {
+                    if (isChanged(taf)) {
+                        stationRegistry.describe(taf);
+                        parsed.put(taf.getIcao(), taf);
+                    }
+                });
+                return parsed;
+            });
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while retrieving TAFs");
+            return;
+        }
+        final int failed = urls.size() - tiles.size();
+        if (failed > 0) {
+            log.warn(String.format("Unable to retrieve TAFs for %d of %d tiles", failed, urls.size()));
+        }
+        final Map<String, TAF> tafs = new HashMap<>();
+        int notModified = 0;
+        for (final Optional<Map<String, TAF>> changed : tiles.values()) {
+            if (changed.isEmpty()) {
+                notModified++;
+            } else {
+                changed.get().forEach(tafs::putIfAbsent);
+            }
+        }
+        if (notModified > 0) {
+            log.info(String.format("TAF feed not modified since previous fetch for %d of %d tiles", notModified,
+                    urls.size()));
+        }
+        if (tafs.isEmpty()) {
+            aviationWeatherClient.commit(tiles.keySet());
+            return;
+        }
+        weatherProductService.saveTAFs(tafs);
+        tafStore.publish(tafs);
+        aviationWeatherClient.commit(tiles.keySet());
+        log.info(String.format("Updated %d TAFs", tafs.size()));
+    }
+
+    /**
+     * Checks if a freshly parsed TAF differs from the cached forecast for its station.
+     *
+     * @param taf parsed TAF
+     * @return true if the station has no cached forecast or the forecast has been reissued or amended
+     */
+    private boolean isChanged(final TAF taf) {
+        final TAF cached = tafStore.get(taf.getIcao());
+        return cached == null
+                || !Objects.equals(cached.getIssued(), taf.getIssued())
+                || !Objects.equals(cached.getRawText(), taf.getRawText());
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.ForecastPeriod;
+import com.starfireaviation.weather.model.TAF;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory snapshot of the current TAF for every known station.
+ *
+ * Like {@link MetarStore}, the snapshot is an immutable map replaced as a whole at the end of each ingest cycle. Each
+ * TAF is stored with the start times of its prevailing periods as a sorted epoch array, so the period in force at a
+ * given time is found with a binary search instead of a scan.
+ */
+public class TafStore {
+
+    /**
+     * Current snapshot, keyed by ICAO code.
+     */
+    private volatile Map<String, IndexedTaf> snapshot = Collections.emptyMap();
+
+    /**
+     * Serializes publishers.
+     */
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    /**
+     * Retrieves the current TAF for a station.
+     *
+     * @param icaoCode ICAO code
+     * @return TAF or null if the station has no forecast
+     */
+    public TAF get(final String icaoCode) {
+        final IndexedTaf indexed = snapshot.get(icaoCode);
+        if (indexed == null) {
+            return null;
+        }
+        return indexed.taf;
+    }
+
+    /**
+     * Retrieves the prevailing forecast period of a station at a given time. Temporary (TEMPO) and probable (PROB)
+     * periods are not considered; they remain available on the full TAF.
+     *
+     * @param icaoCode ICAO code
+     * @param at time
+     * @return ForecastPeriod, or null if the station has no forecast covering the time
+     */
+    public ForecastPeriod periodAt(final String icaoCode, final Instant at) {
+        final IndexedTaf indexed = snapshot.get(icaoCode);
+        if (indexed == null) {
+            return null;
+        }
+        return indexed.periodAt(at.toEpochMilli());
+    }
+
+    /**
+     * Number of stations in the current snapshot.
+     *
+     * @return station count
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Publishes the results of an ingest cycle. Stations not present in the update keep their previous forecast.
+     *
+     * @param updates TAFs keyed by ICAO code
+     */
+    public void publish(final Map<String, TAF> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            final Map<String, IndexedTaf> next = new HashMap<>(snapshot);
+            updates.forEach((icaoCode, taf) -> next.put(icaoCode, IndexedTaf.of(taf)));
+            snapshot = Collections.unmodifiableMap(next);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Parses an ISO-8601 instant.
+     *
+     * @param text value
+     * @return epoch milliseconds, or Long.MIN_VALUE when absent or malformed
+     */
+    private static long epochMillis(final String text) {
+        if (text == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * A TAF and the index of its prevailing periods.
+     */
+    private static final class IndexedTaf {
+
+        /**
+         * TAF.
+         */
+        private final TAF taf;
+
+        /**
+         * Prevailing periods, ordered by start.
+         */
+        private final ForecastPeriod[] periods;
+
+        /**
+         * Start of each prevailing period, in epoch milliseconds.
+         */
+        private final long[] starts;
+
+        /**
+         * End of the forecast validity, in epoch milliseconds, or Long.MAX_VALUE when unknown.
+         */
+        private final long validTo;
+
+        /**
+         * Initializes an instance of <code>IndexedTaf</code>.
+         *
+         * @param forecast TAF
+         * @param prevailing prevailing periods, ordered by start
+         * @param startMillis start of each period
+         * @param validToMillis end of the forecast validity
+         */
+        private IndexedTaf(final TAF forecast, final ForecastPeriod[] prevailing, final long[] startMillis,
+                           final long validToMillis) {
+            taf = forecast;
+            periods = prevailing;
+            starts = startMillis;
+            validTo = validToMillis;
+        }
+
+        /**
+         * Indexes a TAF. Periods without a parseable start are left out of the index.
+         *
+         * @param taf TAF
+         * @return IndexedTaf
+         */
+        static IndexedTaf of(final TAF taf) {
+            final List<ForecastPeriod> prevailing = new ArrayList<>();
+            if (taf.getPeriods() != null) {
+                for (final ForecastPeriod period : taf.getPeriods()) {
+                    if (period.isPrevailing() && epochMillis(period.getFrom()) != Long.MIN_VALUE) {
+                        prevailing.add(period);
+                    }
+                }
+            }
+            prevailing.sort(Comparator.comparingLong(period -> epochMillis(period.getFrom())));
+            final long[] starts = new long[prevailing.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = epochMillis(prevailing.get(i).getFrom());
+            }
+            long validTo = epochMillis(taf.getValidTo());
+            if (validTo == Long.MIN_VALUE) {
+                validTo = Long.MAX_VALUE;
+            }
+            return new IndexedTaf(taf, prevailing.toArray(new ForecastPeriod[0]), starts, validTo);
+        }
+
+        /**
+         * Finds the prevailing period at a time. A prevailing period stays in force until the next one starts.
+         *
+         * @param at epoch milliseconds
+         * @return ForecastPeriod or null
+         */
+        ForecastPeriod periodAt(final long at) {
+            if (at >= validTo) {
+                return null;
+            }
+            int low = 0;
+            int high = starts.length - 1;
+            int found = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (starts[mid] <= at) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (found < 0) {
+                return null;
+            }
+            return periods[found];
+        }
+    }
+
+}
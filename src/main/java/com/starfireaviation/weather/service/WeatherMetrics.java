@@ -0,0 +1,280 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the ingest and read paths.
+ *
+ * Every meter with a fixed tag set is registered once, up front, so that recording on the hot path is a counter
+ * increment or a timer update without any tag lookup. The per-station data age gauges are registered the first time
+ * a station is published and are only evaluated when the registry is scraped.
+ */
+public class WeatherMetrics implements MetarStore.Listener {
+
+    /**
+     * Data age gauge name.
+     */
+    private static final String METAR_AGE = "weather.metar.age";
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /**
+     * Registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Current observations.
+     */
+    private final MetarStore metarStore;
+
+    /**
+     * Feed fetch time per ingest cycle, every tile included.
+     */
+    private final Timer fetchTimer;
+
+    /**
+     * Feed parse time per tile.
+     */
+    private final Timer parseTimer;
+
+    /**
+     * Persist time per ingest cycle.
+     */
+    private final Timer persistTimer;
+
+    /**
+     * Parsed stations whose observation changed.
+     */
+    private final Counter changedStations;
+
+    /**
+     * Parsed stations whose observation did not change.
+     */
+    private final Counter unchangedStations;
+
+    /**
+     * Tiles answered with 304 Not Modified.
+     */
+    private final Counter notModifiedTiles;
+
+    /**
+     * Station lookups answered from the snapshot.
+     */
+    private final Counter cacheHits;
+
+    /**
+     * Station lookups that found no observation.
+     */
+    private final Counter cacheMisses;
+
+    /**
+     * Wall clock time of the last completed ingest cycle, in milliseconds; set at startup.
+     */
+    private volatile long lastIngest = System.currentTimeMillis();
+
+    /**
+     * Initializes an instance of <code>WeatherMetrics</code>.
+     *
+     * @param meterRegistry MeterRegistry
+     * @param store MetarStore
+     * @param renderCache RenderedMetarCache
+     */
+    public WeatherMetrics(final MeterRegistry meterRegistry, final MetarStore store,
+                          final RenderedMetarCache renderCache) {
+        registry = meterRegistry;
+        metarStore = store;
+        fetchTimer = Timer.builder("weather.ingest.fetch")
+                .description("METAR feed fetch time per ingest cycle, streamed parsing included")
+                .register(registry);
+        parseTimer = Timer.builder("weather.ingest.parse")
+                .description("METAR feed parse time per tile")
+                .register(registry);
+        persistTimer = Timer.builder("weather.ingest.persist")
+                .description("Changed METAR persist time per ingest cycle")
+                .register(registry);
+        changedStations = stationCounter("changed");
+        unchangedStations = stationCounter("unchanged");
+        notModifiedTiles = Counter.builder("weather.ingest.tiles.not.modified")
+                .description("Feed tiles answered with 304 Not Modified")
+                .register(registry);
+        cacheHits = lookupCounter("hit");
+        cacheMisses = lookupCounter("miss");
+        FunctionCounter.builder("weather.metar.renders", renderCache, RenderedMetarCache::getHits)
+                .description("Single-station reads by rendered response cache result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("weather.metar.renders", renderCache, RenderedMetarCache::getMisses)
+                .description("Single-station reads by rendered response cache result")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("weather.metar.stations", store, MetarStore::size)
+                .description("Stations with a current observation")
+                .register(registry);
+        Gauge.builder("weather.ingest.age", this, WeatherMetrics::getIngestAgeSeconds)
+                .description("Time since the last completed ingest cycle")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void published(final List<CompactMETAR> previous, final List<CompactMETAR> published) {
+        for (int i = 0; i < published.size(); i++) {
+            if (previous.get(i) == null) {
+                final String icao = published.get(i).getIcao();
+                Gauge.builder(METAR_AGE, metarStore, store -> observationAgeSeconds(store.get(icao)))
+                        .description("Time since the current observation of a station")
+                        .baseUnit("seconds")
+                        .tag("station", icao)
+                        .register(registry);
+            }
+        }
+    }
+
+    /**
+     * Records the fetch time of an ingest cycle.
+     *
+     * @param nanos elapsed time, in nanoseconds
+     */
+    public void recordFetch(final long nanos) {
+        fetchTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the parse time of a tile.
+     *
+     * @param nanos elapsed time, in nanoseconds
+     */
+    public void recordParse(final long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the persist time of an ingest cycle.
+     *
+     * @param nanos elapsed time, in nanoseconds
+     */
+    public void recordPersist(final long nanos) {
+        persistTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a parsed station.
+     *
+     * @param changed true if its observation changed
+     */
+    public void countStation(final boolean changed) {
+        if (changed) {
+            changedStations.increment();
+        } else {
+            unchangedStations.increment();
+        }
+    }
+
+    /**
+     * Counts tiles answered with 304 Not Modified.
+     *
+     * @param tiles tile count
+     */
+    public void countNotModified(final int tiles) {
+        notModifiedTiles.increment(tiles);
+    }
+
+    /**
+     * Counts a station lookup.
+     *
+     * @param hit true if the station had an observation
+     */
+    public void countLookup(final boolean hit) {
+        if (hit) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+        }
+    }
+
+    /**
+     * Marks an ingest cycle as completed: every tile was retrieved and its changes persisted and published.
+     */
+    public void ingestCompleted() {
+        lastIngest = System.currentTimeMillis();
+    }
+
+    /**
+     * Time since the last completed ingest cycle, or since startup if none has completed.
+     *
+     * @return age, in seconds
+     */
+    public double getIngestAgeSeconds() {
+        return (System.currentTimeMillis() - lastIngest) / MILLIS_PER_SECOND;
+    }
+
+    /**
+     * Time since an observation.
+     *
+     * @param metar observation, may be null
+     * @return age in seconds, or NaN when unknown
+     */
+    private static double observationAgeSeconds(final CompactMETAR metar) {
+        if (metar == null || metar.getObserved() == CompactMETAR.MISSING_TIME) {
+            return Double.NaN;
+        }
+        return System.currentTimeMillis() / MILLIS_PER_SECOND - metar.getObserved();
+    }
+
+    /**
+     * Registers a parsed station counter.
+     *
+     * @param result tag value
+     * @return Counter
+     */
+    private Counter stationCounter(final String result) {
+        return Counter.builder("weather.ingest.stations")
+                .description("Parsed stations by whether their observation changed")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Registers a lookup counter.
+     *
+     * @param result tag value
+     * @return Counter
+     */
+    private Counter lookupCounter(final String result) {
+        return Counter.builder("weather.metar.lookups")
+                .description("Station lookups by whether the station had an observation")
+                .tag("result", result)
+                .register(registry);
+    }
+
+}
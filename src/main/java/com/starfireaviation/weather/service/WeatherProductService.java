@@ -0,0 +1,197 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.TAF;
+import com.starfireaviation.weather.model.WeatherProduct;
+import com.starfireaviation.weather.model.WeatherProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Durable storage of weather products in the WEATHER_PRODUCT table.
+ */
+@Slf4j
+public class WeatherProductService {
+
+    /**
+     * Maximum number of keys per findByKeyIn query.
+     */
+    private static final int KEY_LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * Value codecs.
+     */
+    private final ProductCodecs productCodecs;
+
+    /**
+     * WeatherProductRepository.
+     */
+    private final WeatherProductRepository weatherProductRepository;
+
+    /**
+     * TransactionTemplate.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Initializes an instance of <code>WeatherProductService</code>.
+     *
+     * @param codecs ProductCodecs
+     * @param repository WeatherProductRepository
+     * @param transactions TransactionTemplate
+     */
+    public WeatherProductService(final ProductCodecs codecs,
+                                 final WeatherProductRepository repository,
+                                 final TransactionTemplate transactions) {
+        productCodecs = codecs;
+        weatherProductRepository = repository;
+        transactionTemplate = transactions;
+    }
+
+    /**
+     * Loads every persisted METAR.
+     *
+     * @return METARs keyed by ICAO code
+     */
+    public Map<String, METAR> loadMETARs() {
+        return load(WeatherService.METAR_KEY, METAR.class, METAR::getIcao);
+    }
+
+    /**
+     * Persists a batch of METARs.
+     *
+     * @param metars METARs to be persisted, keyed by ICAO code
+     */
+    public void saveMETARs(final Map<String, METAR> metars) {
+        save(WeatherService.METAR_KEY, metars);
+    }
+
+    /**
+     * Loads every persisted TAF.
+     *
+     * @return TAFs keyed by ICAO code
+     */
+    public Map<String, TAF> loadTAFs() {
+        return load(TafService.TAF_KEY, TAF.class, TAF::getIcao);
+    }
+
+    /**
+     * Persists a batch of TAFs.
+     *
+     * @param tafs TAFs to be persisted, keyed by ICAO code
+     */
+    public void saveTAFs(final Map<String, TAF> tafs) {
+        save(TafService.TAF_KEY, tafs);
+    }
+
+    /**
+     * Loads every persisted product of a kind. Rows written by a codec other than the configured one, including
+     * legacy JSON text rows, are rewritten with the configured codec, so stored values migrate as they are read.
+     *
+     * @param prefix key prefix of the product kind
+     * @param type product class
+     * @param icaoCode extracts the station of a product
+     * @param <T> product type
+     * @return products keyed by ICAO code
+     */
+    private <T> Map<String, T> load(final String prefix, final Class<T> type, final Function<T, String> icaoCode) {
+        final Map<String, T> products = new HashMap<>();
+        final List<WeatherProduct> outdated = new ArrayList<>();
+        for (final WeatherProduct weatherProduct : weatherProductRepository.findByKeyStartingWith(prefix)) {
+            try {
+                final T product = productCodecs.read(weatherProduct, type);
+                products.put(icaoCode.apply(product), product);
+                if (productCodecs.isOutdated(weatherProduct)) {
+                    productCodecs.write(weatherProduct, product);
+                    outdated.add(weatherProduct);
+                }
+            } catch (IOException e) {
+                log.warn(String.format("Unable to deserialize %s from cache: %s", type.getSimpleName(),
+                        e.getMessage()));
+            }
+        }
+        if (!outdated.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> weatherProductRepository.saveAll(outdated));
+            log.info(String.format("Re-encoded %d stored %s values", outdated.size(), type.getSimpleName()));
+        }
+        return products;
+    }
+
+    /**
+     * Persists a batch of products of a kind. Existing rows for the whole batch are fetched with one query per chunk
+     * and all inserts and updates are flushed in a single transaction, so the JDBC driver can batch them.
+     *
+     * @param prefix key prefix of the product kind
+     * @param products products to be persisted, keyed by ICAO code
+     */
+    private void save(final String prefix, final Map<String, ?> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        final List<String> keys = new ArrayList<>(products.size());
+        products.keySet().forEach(icaoCode -> keys.add(prefix + icaoCode));
+        transactionTemplate.executeWithoutResult(status -> {
+            final Map<String, WeatherProduct> existing = findByKeys(keys);
+            final Date now = new Date();
+            final List<WeatherProduct> weatherProducts = new ArrayList<>(products.size());
+            products.forEach((icaoCode, product) -> {
+                final String key = prefix + icaoCode;
+                WeatherProduct weatherProduct = existing.get(key);
+                if (weatherProduct == null) {
+                    weatherProduct = new WeatherProduct();
+                    weatherProduct.setKey(key);
+                    weatherProduct.setCreatedAt(now);
+                }
+                try {
+                    productCodecs.write(weatherProduct, product);
+                    weatherProduct.setUpdatedAt(now);
+                    weatherProducts.add(weatherProduct);
+                } catch (IOException ioe) {
+                    log.warn(String.format("Unable to serialize [%s]: %s", key, ioe.getMessage()));
+                }
+            });
+            weatherProductRepository.saveAll(weatherProducts);
+        });
+    }
+
+    /**
+     * Looks up the existing rows for a set of keys, chunking the IN list.
+     *
+     * @param keys Keys
+     * @return WeatherProducts keyed by key
+     */
+    private Map<String, WeatherProduct> findByKeys(final List<String> keys) {
+        final Map<String, WeatherProduct> existing = new HashMap<>();
+        for (int i = 0; i < keys.size(); i += KEY_LOOKUP_CHUNK_SIZE) {
+            final List<String> chunk = keys.subList(i, Math.min(i + KEY_LOOKUP_CHUNK_SIZE, keys.size()));
+            weatherProductRepository.findByKeyIn(chunk)
+                    .forEach(weatherProduct -> existing.put(weatherProduct.getKey(), weatherProduct));
+        }
+        return existing;
+    }
+
+}
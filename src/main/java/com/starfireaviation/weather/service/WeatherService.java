@@ -16,44 +16,22 @@
 
 package com.starfireaviation.weather.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.starfireaviation.weather.config.WeatherConstants;
 import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
 import com.starfireaviation.weather.exception.ResourceNotFoundException;
-import com.starfireaviation.weather.model.Barometer;
-import com.starfireaviation.weather.model.Ceiling;
-import com.starfireaviation.weather.model.Cloud;
-import com.starfireaviation.weather.model.Dewpoint;
+import com.starfireaviation.weather.model.ArchiveSummary;
 import com.starfireaviation.weather.model.METAR;
-import com.starfireaviation.weather.model.Temperature;
-import com.starfireaviation.weather.model.Visibility;
-import com.starfireaviation.weather.model.WeatherProduct;
-import com.starfireaviation.weather.model.WeatherProductRepository;
-import com.starfireaviation.weather.model.Wind;
-import com.starfireaviation.weather.util.SSLUtilities;
+import com.starfireaviation.weather.model.NearbyMETAR;
+import com.starfireaviation.weather.model.Station;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections.CollectionUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-
-import javax.annotation.PostConstruct;
+
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -68,31 +46,46 @@ public class WeatherService {
     public static final String METAR_KEY = "METAR_";
 
     /**
-     * Ten.
+     * INVALID_STATION_MSG.
      */
-    private static final int TEN = 10;
+    public static final String INVALID_STATION_MSG =
+            "Provided station [%s] is not in a configured region.  "
+                    + "Please provide an accepted station identifier";
 
     /**
-     * One Hundred.
+     * ATLANTA.
      */
-    private static final int ONE_HUNDRED = 100;
+    public static final String ATLANTA = "atlanta";
 
     /**
-     * INVALID_STATION_MSG.
+     * Largest accepted search radius, in nautical miles.
      */
-    public static final String INVALID_STATION_MSG =
-            "Provided station [%s] is not on the Atlanta sectional chart.  "
-                    + "Please provide an accepted station identifier";
+    private static final int MAX_RADIUS_NM = 500;
 
     /**
-     * ATLANTA.
+     * Largest accepted nearest-station count.
      */
-    public static final String ATLANTA = "atlanta";
+    private static final int MAX_NEAREST = 50;
+
+    /**
+     * Longest accepted archive summary period, in days.
+     */
+    private static final int MAX_SUMMARY_DAYS = 3660;
+
+    /**
+     * Largest latitude magnitude.
+     */
+    private static final double MAX_LATITUDE = 90.0;
+
+    /**
+     * Largest longitude magnitude.
+     */
+    private static final double MAX_LONGITUDE = 180.0;
 
     /**
-     * Synchronous rest template.
+     * AviationWeatherClient.
      */
-    private final RestTemplate restTemplate;
+    private final AviationWeatherClient aviationWeatherClient;
 
     /**
      * WeatherProperties.
@@ -100,131 +93,101 @@ public class WeatherService {
     private final WeatherProperties weatherProperties;
 
     /**
-     * SSLUtilities.
+     * WeatherProductService.
+     */
+    private final WeatherProductService weatherProductService;
+
+    /**
+     * In-memory METAR snapshot.
+     */
+    private final MetarStore metarStore;
+
+    /**
+     * Streaming MetarJSON parser.
+     */
+    private final MetarFeedParser metarFeedParser;
+
+    /**
+     * StationRegistry.
      */
-    private final SSLUtilities sslUtilities;
+    private final StationRegistry stationRegistry;
 
     /**
-     * JSON Object Serializer/Deserializer.
+     * METAR history.
      */
-    private final ObjectMapper objectMapper;
+    private final MetarHistoryService metarHistoryService;
 
     /**
-     * WeatherProductRepository.
+     * Ingest and read path meters.
      */
-    private final WeatherProductRepository weatherProductRepository;
+    private final WeatherMetrics weatherMetrics;
 
     /**
      * Constructor.
      *
-     * @param template RestTemplate
+     * @param client AviationWeatherClient
      * @param props WeatherProperties
-     * @param utils SSLUtilities
-     * @param mapper ObjectMapper
-     * @param repository WeatherProductRepository
+     * @param productService WeatherProductService
+     * @param store MetarStore
+     * @param parser MetarFeedParser
+     * @param registry StationRegistry
+     * @param history MetarHistoryService
+     * @param metrics WeatherMetrics
      */
-    public WeatherService(final RestTemplate template,
+    @SuppressWarnings("checkstyle:parameternumber")
+    public WeatherService(final AviationWeatherClient client,
                           final WeatherProperties props,
-                          final SSLUtilities utils,
-                          final ObjectMapper mapper,
-                          final WeatherProductRepository repository) {
-        restTemplate = template;
+                          final WeatherProductService productService,
+                          final MetarStore store,
+                          final MetarFeedParser parser,
+                          final StationRegistry registry,
+                          final MetarHistoryService history,
+                          final WeatherMetrics metrics) {
+        aviationWeatherClient = client;
         weatherProperties = props;
-        sslUtilities = utils;
-        objectMapper = mapper;
-        weatherProductRepository = repository;
+        weatherProductService = productService;
+        metarStore = store;
+        metarFeedParser = parser;
+        stationRegistry = registry;
+        metarHistoryService = history;
+        weatherMetrics = metrics;
     }
 
     /**
-     * Required implementation.
+     * Refreshes weather information. Scheduled at the interval configured in {@link WeatherProperties}.
      */
-    @PostConstruct
     public void updateWeather() {
+        if (metarStore.size() == 0) {
+            loadMETARsFromCache();
+        }
         getMETARsFromAviationWeather();
-        // https://www.aviationweather.gov/cgi-bin/json/TafJSON.php?density=all&bbox=-85.6898,30.1588,-80.8209,35.1475
     }
 
     /**
-     * Filters METAR attributes to only those specified, if any are specified.
+     * Retrieves the current METAR for a given airport.
      *
-     * @param metars List of METAR
-     * @param dataList attributes to be returned
-     * @return filtered List of METAR
+     * @param icaoCode for the METAR observation
+     * @return {@link METAR}
+     * @throws ResourceNotFoundException when no information is found for the given ID
+     * @throws InvalidPayloadException when the station is not an accepted station
      */
-    public static List<METAR> filterAttributes(final List<METAR> metars, final List<String> dataList) {
-        if (CollectionUtils.isEmpty(dataList)) {
-            return metars;
-        }
-        final List<METAR> filteredMetars = new ArrayList<>();
-        for (final METAR metar : metars) {
-            final METAR filteredMetar = new METAR();
-            for (final String data : dataList) {
-                filteredMetar.setIcao(metar.getIcao());
-                switch (data) {
-                    case METAR.OBSERVED:
-                        filteredMetar.setObserved(metar.getObserved());
-                        break;
-                    case METAR.RAW_TEXT:
-                        filteredMetar.setRawText(metar.getRawText());
-                        break;
-                    case METAR.BAROMETER:
-                        filteredMetar.setBarometer(metar.getBarometer());
-                        break;
-                    case METAR.CEILING:
-                        filteredMetar.setCeiling(metar.getCeiling());
-                        break;
-                    case METAR.CLOUDS:
-                        filteredMetar.setClouds(metar.getClouds());
-                        break;
-                    case METAR.DEWPOINT:
-                        filteredMetar.setDewpoint(metar.getDewpoint());
-                        break;
-                    case METAR.ELEVATION:
-                        filteredMetar.setElevation(metar.getElevation());
-                        break;
-                    case METAR.FLIGHT_CATEGORY:
-                        filteredMetar.setFlightCategory(metar.getFlightCategory());
-                        break;
-                    case METAR.HUMIDITY_PERCENT:
-                        filteredMetar.setHumidityPercent(metar.getHumidityPercent());
-                        break;
-                    case METAR.TEMPERATURE:
-                        filteredMetar.setTemperature(metar.getTemperature());
-                        break;
-                    case METAR.VISIBILITY:
-                        filteredMetar.setVisibility(metar.getVisibility());
-                        break;
-                    case METAR.WIND:
-                        filteredMetar.setWind(metar.getWind());
-                        break;
-                    default:
-                        filteredMetar.setName(metar.getName());
-                }
-            }
-            filteredMetars.add(filteredMetar);
-        }
-        return filteredMetars;
+    public METAR getMETAR(final String icaoCode) throws ResourceNotFoundException, InvalidPayloadException {
+        return getCachedMETAR(icaoCode).toMETAR();
     }
 
     /**
-     * Retrieves the current METAR for a given airport.
+     * Retrieves the cached form of the current METAR for a given airport.
      *
      * @param icaoCode for the METAR observation
-     * @return {@link METAR}
+     * @return {@link CompactMETAR}
      * @throws ResourceNotFoundException when no information is found for the given ID
+     * @throws InvalidPayloadException when the station is not an accepted station
      */
-    private METAR getMETAR(final String icaoCode) throws ResourceNotFoundException {
-        METAR cachedMetar = null;
-        Optional<WeatherProduct> weatherProductOpt =
-                weatherProductRepository.findByKey(METAR_KEY + icaoCode);
-        if (weatherProductOpt.isPresent()) {
-            WeatherProduct weatherProduct = weatherProductOpt.get();
-            try {
-                cachedMetar = objectMapper.readValue(weatherProduct.getValue(), METAR.class);
-            } catch (IOException e) {
-                log.warn(String.format("Unable to deserialize METAR from cache: %s", e.getMessage()));
-            }
-        }
+    public CompactMETAR getCachedMETAR(final String icaoCode)
+            throws ResourceNotFoundException, InvalidPayloadException {
+        validateStation(icaoCode);
+        final CompactMETAR cachedMetar = metarStore.get(icaoCode);
+        weatherMetrics.countLookup(cachedMetar != null);
         if (cachedMetar != null) {
             return cachedMetar;
         }
@@ -232,142 +195,301 @@ public class WeatherService {
     }
 
     /**
-     * Checks if provided station is valid.
+     * Retrieves the current METARs for a list of airports. Stations without an observation are omitted.
      *
-     * @param station to be validated
-     * @return if station is valid
+     * @param icaoCodes for the METAR observations
+     * @return list of {@link METAR}
+     * @throws InvalidPayloadException when a station is not an accepted station
      */
-    private boolean isValidStation(final String station) {
-        boolean response = false;
-        final List<String> validStationsList = Arrays.asList(weatherProperties.getAtlantaIcaoCodes().split(","));
-        if (validStationsList.contains(station)) {
-            response = true;
+    public List<METAR> getMETARs(final List<String> icaoCodes) throws InvalidPayloadException {
+        final List<METAR> metars = new ArrayList<>(icaoCodes.size());
+        for (final String icaoCode : icaoCodes) {
+            validateStation(icaoCode);
+            final CompactMETAR metar = metarStore.get(icaoCode);
+            weatherMetrics.countLookup(metar != null);
+            if (metar != null) {
+                metars.add(metar.toMETAR());
+            }
         }
-        return response;
+        return metars;
     }
 
     /**
-     * Queries AviationWeather.gov for METAR information.
+     * Retrieves the observations of a station over the past hours, oldest first.
+     *
+     * @param icaoCode for the METAR observations
+     * @param hours length of the period, in hours
+     * @return list of {@link METAR}
+     * @throws InvalidPayloadException when the station is not an accepted station or the period is not retained
      */
-    private void getMETARsFromAviationWeather() {
-        log.info("Querying AviationWeather.gov for METAR information");
-        final String url = "https://www.aviationweather.gov/cgi-bin/json/MetarJSON.php"
-                + "?density=all&bbox=-85.6898,30.1588,-80.8209,35.1475";
-        final HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        final HttpEntity<String> headersEntity = new HttpEntity<>("parameters", headers);
-        // Ignoring SSL certificate checking
-        sslUtilities.trustAllHostnames();
-        sslUtilities.trustAllHttpsCertificates();
-        try {
-            final ResponseEntity<String> data =
-                    restTemplate.exchange(url, HttpMethod.GET, headersEntity, String.class);
-            if (data.getBody() != null
-                    && data.getStatusCodeValue() >= HttpStatus.OK.value()
-                    && data.getStatusCodeValue() < HttpStatus.MULTIPLE_CHOICES.value()) {
-                JSONObject root = new JSONObject(new JSONTokener(data.getBody()));
-                JSONArray features = root.getJSONArray("features");
-                for (int i = 0; i < features.length(); i++) {
-                    JSONObject station = features.getJSONObject(i);
-                    if (station.has("id")) {
-                        JSONObject props = station.getJSONObject("properties");
-                        final METAR metar = parseMetar(props);
-                        cacheMetar(metar.getIcao(), metar);
-                    }
-                }
-            }
-        } catch (RestClientException | JSONException rce) {
-            String msg = String.format("[RestClientException] Unable to retrieve METARs: %s", rce.getMessage());
-            log.error(msg, rce);
+    public List<METAR> getMETARHistory(final String icaoCode, final int hours) throws InvalidPayloadException {
+        validateStation(icaoCode);
+        final long maxHours = weatherProperties.getHistoryRetention().toHours();
+        if (hours < 1 || hours > maxHours) {
+            throw new InvalidPayloadException(String.format("Hours must be between 1 and %d", maxHours));
         }
+        final Instant now = Instant.now();
+        return metarHistoryService.getHistory(icaoCode, now.minus(Duration.ofHours(hours)), now);
     }
 
     /**
-     * Parses METAR information from AviationWeather.gov response.
+     * Aggregates the archived observations of a station over the past days.
      *
-     * @param props JSONObject
-     * @return METAR
-     */
-    private METAR parseMetar(final JSONObject props) throws JSONException {
-        final METAR metar = new METAR();
-        metar.setIcao(props.getString(WeatherConstants.ID));
-        metar.setObserved(props.getString(WeatherConstants.OBSERVED_TIME));
-        if (props.has(WeatherConstants.TEMPERATURE)) {
-            final Temperature temperature = new Temperature();
-            temperature.setCelsius(Math.round(props.getDouble(WeatherConstants.TEMPERATURE)));
-            metar.setTemperature(temperature);
+     * @param icaoCode for the METAR observations
+     * @param days length of the period, in days
+     * @return {@link ArchiveSummary}
+     * @throws InvalidPayloadException when the station or period is not valid
+     * @throws IOException when the archive cannot be read
+     */
+    public ArchiveSummary getMETARSummary(final String icaoCode, final int days)
+            throws InvalidPayloadException, IOException {
+        validateStation(icaoCode);
+        if (days < 1 || days > MAX_SUMMARY_DAYS) {
+            throw new InvalidPayloadException(String.format("Days must be between 1 and %d", MAX_SUMMARY_DAYS));
         }
-        if (props.has(WeatherConstants.DEWPOINT)) {
-            final Dewpoint dewpoint = new Dewpoint();
-            dewpoint.setCelsius(Math.round(props.getDouble(WeatherConstants.DEWPOINT)));
-            metar.setDewpoint(dewpoint);
+        final Instant now = Instant.now();
+        return metarHistoryService.summarize(icaoCode, now.minus(Duration.ofDays(days)), now);
+    }
+
+    /**
+     * Retrieves the current METARs for every station inside a bounding box.
+     *
+     * @param minLat southern edge, in decimal degrees
+     * @param minLon western edge, in decimal degrees
+     * @param maxLat northern edge, in decimal degrees
+     * @param maxLon eastern edge, in decimal degrees
+     * @return list of {@link METAR}
+     * @throws InvalidPayloadException when the box is not a valid area
+     */
+    public List<METAR> getMETARsInBox(final double minLat, final double minLon, final double maxLat,
+                                      final double maxLon) throws InvalidPayloadException {
+        validateLatitude(minLat);
+        validateLatitude(maxLat);
+        validateLongitude(minLon);
+        validateLongitude(maxLon);
+        if (minLat > maxLat || minLon > maxLon) {
+            throw new InvalidPayloadException("Bounding box must be minLon,minLat,maxLon,maxLat");
         }
-        if (props.has(WeatherConstants.WIND_SPEED)) {
-            final Wind wind = new Wind();
-            wind.setSpeedKt(props.getInt(WeatherConstants.WIND_SPEED));
-            wind.setDegrees(props.getInt(WeatherConstants.WIND_DIRECTION));
-            metar.setWind(wind);
+        return toMETARs(metarStore.grid().within(minLat, minLon, maxLat, maxLon));
+    }
+
+    /**
+     * Retrieves the current METARs for every station within a distance of a point, nearest first.
+     *
+     * @param lat latitude, in decimal degrees
+     * @param lon longitude, in decimal degrees
+     * @param nm radius, in nautical miles
+     * @return list of {@link METAR}
+     * @throws InvalidPayloadException when the point or radius is not valid
+     */
+    public List<METAR> getMETARsWithin(final double lat, final double lon, final double nm)
+            throws InvalidPayloadException {
+        validateLatitude(lat);
+        validateLongitude(lon);
+        if (!(nm > 0) || nm > MAX_RADIUS_NM) {
+            throw new InvalidPayloadException(String.format("Radius must be between 0 and %d nm", MAX_RADIUS_NM));
         }
-        if (props.has(WeatherConstants.CEILING)) {
-            final Ceiling ceiling = new Ceiling();
-            ceiling.setFeet(props.getDouble(WeatherConstants.CEILING));
-            ceiling.setCode(props.getString(WeatherConstants.COVER));
-            metar.setCeiling(ceiling);
+        return toMETARs(metarStore.grid().within(lat, lon, nm));
+    }
+
+    /**
+     * Retrieves the current METARs of the stations nearest to a point.
+     *
+     * @param lat latitude, in decimal degrees
+     * @param lon longitude, in decimal degrees
+     * @param count number of stations
+     * @return list of {@link NearbyMETAR}, nearest first
+     * @throws InvalidPayloadException when the point or count is not valid
+     */
+    public List<NearbyMETAR> getNearestMETARs(final double lat, final double lon, final int count)
+            throws InvalidPayloadException {
+        validateLatitude(lat);
+        validateLongitude(lon);
+        if (count < 1 || count > MAX_NEAREST) {
+            throw new InvalidPayloadException(String.format("Count must be between 1 and %d", MAX_NEAREST));
         }
-        if (props.has(WeatherConstants.CLOUD_COVER + "1")) {
-            final List<Cloud> clouds = new ArrayList<>();
-            for (int j = 1; j < TEN; j++) {
-                if (props.has(WeatherConstants.CLOUD_COVER + j)) {
-                    final Cloud cloud = new Cloud();
-                    cloud.setCode(props.getString(WeatherConstants.CLOUD_COVER + j));
-                    if (props.has(WeatherConstants.CLOUD_BASE + j)) {
-                        cloud.setBaseFeetAgl(Double.parseDouble(props.getString(WeatherConstants.CLOUD_BASE + j))
-                                * ONE_HUNDRED);
-                    }
-                    clouds.add(cloud);
-                }
-            }
-            metar.setClouds(clouds);
+        return metarStore.grid().nearest(lat, lon, count);
+    }
+
+    /**
+     * Retrieves the current METARs of the stations nearest to a known station, excluding the station itself.
+     *
+     * @param station station identifier
+     * @param count number of stations
+     * @return list of {@link NearbyMETAR}, nearest first
+     * @throws InvalidPayloadException when the station has no known position or the count is not valid
+     */
+    public List<NearbyMETAR> getNearestMETARs(final String station, final int count)
+            throws InvalidPayloadException {
+        final Station known = stationRegistry.get(station);
+        if (known == null || known.getLatitude() == null || known.getLongitude() == null) {
+            throw new InvalidPayloadException(String.format(INVALID_STATION_MSG, station));
         }
-        if (props.has(WeatherConstants.VISIBILITY)) {
-            final Visibility visibility = new Visibility();
-            visibility.setMiles(props.get(WeatherConstants.VISIBILITY).toString());
-            metar.setVisibility(visibility);
+        final List<NearbyMETAR> nearest = getNearestMETARs(known.getLatitude(), known.getLongitude(), count + 1);
+        nearest.removeIf(nearby -> station.equals(nearby.getMetar().getIcao()));
+        if (nearest.size() > count) {
+            return nearest.subList(0, count);
         }
-        if (props.has(WeatherConstants.FLIGHT_CATEGORY)) {
-            metar.setFlightCategory(props.getString(WeatherConstants.FLIGHT_CATEGORY));
+        return nearest;
+    }
+
+    /**
+     * Converts cached observations to METARs.
+     *
+     * @param compacts cached observations
+     * @return list of {@link METAR}, in the same order
+     */
+    private static List<METAR> toMETARs(final List<CompactMETAR> compacts) {
+        final List<METAR> metars = new ArrayList<>(compacts.size());
+        compacts.forEach(compact -> metars.add(compact.toMETAR()));
+        return metars;
+    }
+
+    /**
+     * Validates a latitude.
+     *
+     * @param lat latitude
+     * @throws InvalidPayloadException when out of range
+     */
+    private static void validateLatitude(final double lat) throws InvalidPayloadException {
+        if (!(lat >= -MAX_LATITUDE && lat <= MAX_LATITUDE)) {
+            throw new InvalidPayloadException(String.format("Invalid latitude [%s]", lat));
         }
-        if (props.has(WeatherConstants.ALTIMETER)) {
-            final Barometer barometer = new Barometer();
-            barometer.setMb(props.getDouble(WeatherConstants.ALTIMETER));
-            metar.setBarometer(barometer);
+    }
+
+    /**
+     * Validates a longitude.
+     *
+     * @param lon longitude
+     * @throws InvalidPayloadException when out of range
+     */
+    private static void validateLongitude(final double lon) throws InvalidPayloadException {
+        if (!(lon >= -MAX_LONGITUDE && lon <= MAX_LONGITUDE)) {
+            throw new InvalidPayloadException(String.format("Invalid longitude [%s]", lon));
         }
-        metar.setRawText(props.getString(WeatherConstants.RAW_OBSERVATION));
-        return metar;
     }
 
     /**
-     * Caches METAR.
+     * Validates a station.
      *
-     * @param icaoCode ICAO Code key for cached value
-     * @param metar METAR to be cached
+     * @param station to be validated
+     * @throws InvalidPayloadException when the station is not an accepted station
      */
-    private void cacheMetar(final String icaoCode, final METAR metar) {
+    private void validateStation(final String station) throws InvalidPayloadException {
+        if (!isValidStation(station)) {
+            throw new InvalidPayloadException(String.format(INVALID_STATION_MSG, station));
+        }
+    }
+
+    /**
+     * Checks if provided station is valid.
+     *
+     * @param station to be validated
+     * @return if station is valid
+     */
+    private boolean isValidStation(final String station) {
+        return stationRegistry.contains(station) || metarStore.get(station) != null;
+    }
+
+    /**
+     * Seeds the in-memory snapshot with the METARs persisted by a previous run.
+     */
+    private void loadMETARsFromCache() {
+        final Map<String, METAR> metars = weatherProductService.loadMETARs();
+        metars.values().forEach(stationRegistry::describe);
+        metarStore.publish(metars);
+        log.info(String.format("Loaded %d METARs from cache", metars.size()));
+    }
+
+    /**
+     * Queries AviationWeather.gov for METAR information. Every configured tile is fetched concurrently; the changed
+     * observations of all tiles are persisted and published together.
+     */
+    private void getMETARsFromAviationWeather() {
+        final List<String> urls = new ArrayList<>();
+        for (final String bbox : FeedTiles.bboxes(weatherProperties.getRegions(), weatherProperties.getTileDegrees())) {
+            urls.add(weatherProperties.getMetarFeedUrl() + "?density=all&bbox=" + bbox);
+        }
+        log.info(String.format("Querying AviationWeather.gov for METAR information in %d tiles", urls.size()));
+        final Map<String, Optional<Map<String, METAR>>> tiles;
+        final long fetchStart = System.nanoTime();
         try {
-            WeatherProduct weatherProduct = new WeatherProduct();
-            weatherProduct.setKey(METAR_KEY + icaoCode);
-            weatherProduct.setCreatedAt(new Date());
-            final Optional<WeatherProduct> weatherProductOpt =
-                    weatherProductRepository.findByKey(METAR_KEY + icaoCode);
-            if (weatherProductOpt.isPresent()) {
-                weatherProduct = weatherProductOpt.get();
+            tiles = aviationWeatherClient.fetchAll(urls, weatherProperties.getMaxConcurrentFetches(), body -> {
+                final long parseStart = System.nanoTime();
+                final Map<String, METAR> parsed = new HashMap<>();
+                metarFeedParser.parse(body, metar -> {
+                    final boolean changed = isChanged(metar);
+                    weatherMetrics.countStation(changed);
+                    if (changed) {
+                        stationRegistry.describe(metar);
+                        parsed.put(metar.getIcao(), metar);
+                    }
+                });
+                weatherMetrics.recordParse(System.nanoTime() - parseStart);
+                return parsed;
+            });
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while retrieving METARs");
+            return;
+        }
+        weatherMetrics.recordFetch(System.nanoTime() - fetchStart);
+        final int failed = urls.size() - tiles.size();
+        if (failed > 0) {
+            log.warn(String.format("Unable to retrieve METARs for %d of %d tiles", failed, urls.size()));
+        }
+        if (tiles.isEmpty()) {
+            return;
+        }
+        final Map<String, METAR> metars = new HashMap<>();
+        int notModified = 0;
+        for (final Optional<Map<String, METAR>> changed : tiles.values()) {
+            if (changed.isEmpty()) {
+                notModified++;
+            } else {
+                changed.get().forEach(metars::putIfAbsent);
             }
-            weatherProduct.setValue(objectMapper.writeValueAsString(metar));
-            weatherProduct.setUpdatedAt(new Date());
-            weatherProductRepository.save(weatherProduct);
-        } catch (JsonProcessingException jpe) {
-            log.warn(String.format("Unable to serialize METAR [%s]: %s", metar, jpe.getMessage()));
         }
+        if (notModified > 0) {
+            weatherMetrics.countNotModified(notModified);
+            log.info(String.format("METAR feed not modified since previous fetch for %d of %d tiles", notModified,
+                    urls.size()));
+        }
+        if (metars.isEmpty()) {
+            aviationWeatherClient.commit(tiles.keySet());
+            completeIngest(failed);
+            return;
+        }
+        final long persistStart = System.nanoTime();
+        weatherProductService.saveMETARs(metars);
+        weatherMetrics.recordPersist(System.nanoTime() - persistStart);
+        metarStore.publish(metars);
+        metarHistoryService.record(metars.values());
+        aviationWeatherClient.commit(tiles.keySet());
+        completeIngest(failed);
+        log.info(String.format("Updated %d METARs", metars.size()));
+    }
+
+    /**
+     * Marks the ingest cycle as completed, unless some tiles could not be retrieved and their stations are stale.
+     *
+     * @param failed tiles that could not be retrieved
+     */
+    private void completeIngest(final int failed) {
+        if (failed == 0) {
+            weatherMetrics.ingestCompleted();
+        }
+    }
+
+    /**
+     * Checks if a freshly parsed METAR differs from the cached observation for its station.
+     *
+     * @param metar parsed METAR
+     * @return true if the station has no cached observation or the observation has changed
+     */
+    private boolean isChanged(final METAR metar) {
+        final CompactMETAR cached = metarStore.get(metar.getIcao());
+        return cached == null || !cached.isSameObservation(metar);
     }
 
 }
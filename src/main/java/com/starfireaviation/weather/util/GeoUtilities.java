@@ -0,0 +1,75 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.util;
+
+/**
+ * Great-circle helpers. Distances are in nautical miles.
+ */
+public final class GeoUtilities {
+
+    /**
+     * Mean earth radius, in nautical miles.
+     */
+    public static final double EARTH_RADIUS_NM = 3440.065;
+
+    /**
+     * Nautical miles per degree of latitude.
+     */
+    public static final double NM_PER_DEGREE = 60.0;
+
+    /**
+     * Latitude beyond which longitude spans are clamped, to avoid dividing by zero at the poles.
+     */
+    private static final double MAX_LATITUDE_FOR_SPAN = 89.0;
+
+    /**
+     * Initializes an instance of <code>GeoUtilities</code>.
+     */
+    private GeoUtilities() {
+    }
+
+    /**
+     * Haversine distance between two points.
+     *
+     * @param lat1 latitude of the first point, in decimal degrees
+     * @param lon1 longitude of the first point, in decimal degrees
+     * @param lat2 latitude of the second point, in decimal degrees
+     * @param lon2 longitude of the second point, in decimal degrees
+     * @return distance in nautical miles
+     */
+    public static double distanceNm(final double lat1, final double lon1, final double lat2, final double lon2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLon = Math.toRadians(lon2 - lon1);
+        final double sinLat = Math.sin(dLat / 2);
+        final double sinLon = Math.sin(dLon / 2);
+        final double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_NM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Degrees of longitude spanned by a distance at a given latitude.
+     *
+     * @param nm distance in nautical miles
+     * @param latitude latitude, in decimal degrees
+     * @return degrees of longitude
+     */
+    public static double longitudeDegrees(final double nm, final double latitude) {
+        final double cos = Math.cos(Math.toRadians(Math.min(Math.abs(latitude), MAX_LATITUDE_FOR_SPAN)));
+        return nm / (NM_PER_DEGREE * cos);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.service.CompactMETAR;
+import com.starfireaviation.weather.service.MetarProjection;
+import com.starfireaviation.weather.service.RawMetarDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of derived units. storeCompact allocates exactly what the cache keeps per station (gc.alloc.rate.norm), which
+ * holds no converted values; renderAll must stay at the cost it had before units were derived, and only
+ * renderWithUnits pays for the conversions.
+ *
+ * mvn -Pbenchmark test -Djmh.args="DerivedUnitsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DerivedUnitsBenchmark {
+
+    private static final int STATIONS = 1000;
+
+    private static final Instant REFERENCE = Instant.parse("2022-10-08T13:00:00Z");
+
+    private static final String[] REPORTS = {
+        "KATL 081252Z 34008G18KT 10SM FEW060 BKN250 13/07 A3017 RMK AO2 SLP215 T01330072",
+        "KPDK 081253Z VRB05KT 10SM CLR 12/06 A3016 RMK AO2 SLP218 T01220061",
+        "KFTY 081301Z 00000KT 1 1/2SM BR OVC008 12/11 A3016 RMK AO2",
+        "KRYY 081255Z AUTO 31012KT 280V340 3SM -RA BKN015 OVC030 M01/M03 A2992 RMK AO2",
+        "EGLL 081250Z 24005MPS 9999 SCT030 12/08 Q1013",
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<METAR> metars = new ArrayList<>();
+
+    private final MetarProjection withUnits = MetarProjection.of(
+            MetarProjection.ALL_ATTRIBUTES | MetarProjection.HUMIDITY_PERCENT | MetarProjection.UNITS);
+
+    @Setup
+    public void setUp() {
+        final RawMetarDecoder decoder = new RawMetarDecoder();
+        for (int i = 0; i < STATIONS; i++) {
+            final METAR metar = decoder.decode(REPORTS[i % REPORTS.length], REFERENCE);
+            metar.setIcao(String.format("K%03d", i));
+            metars.add(metar);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATIONS)
+    public void storeCompact(final Blackhole blackhole) {
+        for (final METAR metar : metars) {
+            blackhole.consume(CompactMETAR.of(metar));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATIONS)
+    public byte[] renderAll() throws Exception {
+        return objectMapper.writeValueAsBytes(MetarProjection.ALL.view(metars));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATIONS)
+    public byte[] renderWithUnits() throws Exception {
+        return objectMapper.writeValueAsBytes(withUnits.view(metars));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Local stand-in for the aviationweather.gov MetarJSON and TafJSON endpoints.
+ *
+ * Serves a generated feed of any size (see {@link MetarFeedGenerator}) filtered to the requested bbox, with an
+ * optional response delay. Each {@link #advance(Collection)} starts a new cycle in which a share of the stations report a new
+ * observation. Responses carry an ETag per tile and answer a matching If-None-Match with 304, as the live feed's
+ * conditional GETs do. TafJSON answers with an empty collection.
+ */
+public final class FeedStandIn implements AutoCloseable {
+
+    public static final String METAR_PATH = "/cgi-bin/json/MetarJSON.php";
+
+    public static final String TAF_PATH = "/cgi-bin/json/TafJSON.php";
+
+    private static final int MINUTES = 60;
+
+    private static final int PERCENT = 100;
+
+    private static final byte[] EMPTY = "{\"type\":\"FeatureCollection\",\"features\":[]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+
+    private final List<ObjectNode> features;
+
+    private final int changedPercent;
+
+    private final long latencyMillis;
+
+    private final Map<String, Tile> tiles = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private int cycle;
+
+    /**
+     * Starts a stand-in on an ephemeral port.
+     *
+     * @param stations number of stations in the feed
+     * @param changed share of stations, in percent, with a new observation in each cycle after the first
+     * @param latency delay before each response, in milliseconds
+     * @throws IOException when the server cannot bind
+     */
+    public FeedStandIn(final int stations, final int changed, final long latency) throws IOException {
+        features = MetarFeedGenerator.features(stations);
+        changedPercent = changed;
+        latencyMillis = latency;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(METAR_PATH, this::metars);
+        server.createContext(TAF_PATH, exchange -> respond(exchange, EMPTY, null));
+        server.start();
+    }
+
+    /**
+     * Base URL, e.g. http://localhost:50123.
+     *
+     * @return base URL
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Starts the next cycle: the configured share of stations report a new observation, and the payloads of the
+     * given tiles are rendered up front so that rendering is not part of the measured fetch.
+     *
+     * @param bboxes tile bboxes that will be requested
+     */
+    public synchronized void advance(final Collection<String> bboxes) {
+        cycle++;
+        final int minute = cycle % MINUTES;
+        for (int i = 0; i < features.size(); i++) {
+            if (i % PERCENT < changedPercent) {
+                MetarFeedGenerator.observe(features.get(i), minute);
+            }
+        }
+        tiles.clear();
+        bboxes.forEach(this::tile);
+    }
+
+    /**
+     * Number of METAR requests served.
+     *
+     * @return request count
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Number of METAR payload bytes served.
+     *
+     * @return byte count
+     */
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void metars(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        final Tile tile = tile(bbox(exchange.getRequestURI()));
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (tile.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.getResponseHeaders().set("ETag", tile.etag);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        bytesServed.addAndGet(tile.body.length);
+        respond(exchange, tile.body, tile.etag);
+    }
+
+    private Tile tile(final String bbox) {
+        return tiles.computeIfAbsent(bbox, key -> {
+            final double[] box = parseBbox(key);
+            final List<ObjectNode> selected = new ArrayList<>();
+            for (final ObjectNode feature : features) {
+                final JsonNode coordinates = feature.get("geometry").get("coordinates");
+                final double lon = coordinates.get(0).asDouble();
+                final double lat = coordinates.get(1).asDouble();
+                if (lon >= box[0] && lat >= box[1] && lon < box[2] && lat < box[3]) {
+                    selected.add(feature);
+                }
+            }
+            final byte[] body = MetarFeedGenerator.write(selected);
+            final CRC32C crc = new CRC32C();
+            crc.update(body);
+            return new Tile(body, String.format("\"%x\"", crc.getValue()));
+        });
+    }
+
+    private static void respond(final HttpExchange exchange, final byte[] body, final String etag)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String bbox(final URI uri) {
+        if (uri.getRawQuery() != null) {
+            for (final String parameter : uri.getRawQuery().split("&")) {
+                if (parameter.startsWith("bbox=")) {
+                    return URLDecoder.decode(parameter.substring("bbox=".length()), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "-180,-90,180,90";
+    }
+
+    private static double[] parseBbox(final String bbox) {
+        final String[] parts = bbox.split(",");
+        final double[] box = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            box[i] = Double.parseDouble(parts[i]);
+        }
+        return box;
+    }
+
+    private static final class Tile {
+
+        private final byte[] body;
+
+        private final String etag;
+
+        private Tile(final byte[] payload, final String tag) {
+            body = payload;
+            etag = tag;
+        }
+    }
+}
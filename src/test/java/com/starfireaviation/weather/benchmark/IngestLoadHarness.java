@@ -0,0 +1,204 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.starfireaviation.weather.WeatherApplication;
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.service.FeedTiles;
+import com.starfireaviation.weather.service.MetarHistoryService;
+import com.starfireaviation.weather.service.MetarStore;
+import com.starfireaviation.weather.service.WeatherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end ingest load: runs full {@link WeatherService#updateWeather()} cycles of the application, with its real
+ * database and archive, against a {@link FeedStandIn} serving a generated feed, and reports per cycle the wall time,
+ * the peak heap, and the JDBC statements, inserts and updates counted by Hibernate statistics. Database counts and
+ * peak heap include the history writes the cycle queued, which complete after updateWeather returns.
+ *
+ * The first cycle, run by the scheduler at startup, loads every station and is reported as cycle 0, timed from
+ * startup; the following cycles change the configured share of stations.
+ *
+ * Arguments starting with -- are passed to the application, e.g. --weather.virtual-threads=true.
+ *
+ * mvn -Pload test -Dload.args="stations=50000 cycles=5 changed=10 latency=50"
+ */
+public final class IngestLoadHarness {
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final long WARM_UP_TIMEOUT_MINUTES = 10;
+
+    private static final Duration HISTORY_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final long HISTORY_POLL_MILLIS = 100;
+
+    private IngestLoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = options(args);
+        final int stations = Integer.parseInt(options.getOrDefault("stations", "10000"));
+        final int cycles = Integer.parseInt(options.getOrDefault("cycles", "5"));
+        final int changed = Integer.parseInt(options.getOrDefault("changed", "100"));
+        final long latency = Long.parseLong(options.getOrDefault("latency", "0"));
+        final String region = options.getOrDefault("bbox", "-124,25,-67,49");
+        final Path archive = Files.createTempDirectory("weather-archive");
+
+        try (FeedStandIn standIn = new FeedStandIn(stations, changed, latency)) {
+            final List<String> properties = applicationArgs(standIn, region, archive, options);
+            properties.add("--spring.main.web-application-type=none");
+            properties.add("--spring.jpa.properties.hibernate.generate_statistics=true");
+
+            final long startNanos = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WeatherApplication.class)
+                    .run(properties.toArray(new String[0]))) {
+                final MetarStore store = context.getBean(MetarStore.class);
+                final CountDownLatch loaded = new CountDownLatch(1);
+                store.addListener((previous, published) -> {
+                    if (!published.isEmpty()) {
+                        loaded.countDown();
+                    }
+                });
+                final WeatherService weatherService = context.getBean(WeatherService.class);
+                final MetarHistoryService history = context.getBean(MetarHistoryService.class);
+                final WeatherProperties props = context.getBean(WeatherProperties.class);
+                final MeterRegistry registry = context.getBean(MeterRegistry.class);
+                final Statistics statistics = context.getBean(EntityManagerFactory.class)
+                        .unwrap(SessionFactory.class).getStatistics();
+                final List<String> bboxes = FeedTiles.bboxes(props.getRegions(), props.getTileDegrees());
+
+                if (store.size() == 0 && !loaded.await(WARM_UP_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("The first ingest cycle did not complete");
+                }
+                if (store.size() != stations) {
+                    throw new IllegalStateException(String.format("Generated %d stations, stored %d", stations,
+                            store.size()));
+                }
+                System.out.printf("stations=%d tiles=%d changed=%d%% latency=%dms%n", stations, bboxes.size(),
+                        changed, latency);
+                System.out.printf("%5s %9s %10s %10s %11s %9s %9s %9s %10s%n", "cycle", "changed", "cycle-ms",
+                        "peak-MB", "statements", "inserts", "updates", "requests", "served-MB");
+                // the first cycle queues its history just after publishing, so wait until it has been written too
+                final long deadline = System.nanoTime() + HISTORY_TIMEOUT.toNanos();
+                while (statistics.getEntityInsertCount() < 2L * store.size() && System.nanoTime() < deadline) {
+                    history.awaitWrites(HISTORY_TIMEOUT);
+                    Thread.sleep(HISTORY_POLL_MILLIS);
+                }
+                report(0, store.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), statistics,
+                        standIn.requests(), standIn.bytesServed());
+
+                for (int cycle = 1; cycle <= cycles; cycle++) {
+                    standIn.advance(bboxes);
+                    System.gc();
+                    resetPeakHeap();
+                    statistics.clear();
+                    final long requests = standIn.requests();
+                    final long served = standIn.bytesServed();
+                    final double before = changedCount(registry);
+                    final long start = System.nanoTime();
+                    if (props.isVirtualThreads()) {
+                        Thread.ofVirtual().start(weatherService::updateWeather).join();
+                    } else {
+                        weatherService.updateWeather();
+                    }
+                    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    history.awaitWrites(HISTORY_TIMEOUT);
+                    report(cycle, (long) (changedCount(registry) - before), elapsed, statistics,
+                            standIn.requests() - requests, standIn.bytesServed() - served);
+                }
+            }
+        }
+    }
+
+    private static void report(final int cycle, final long changed, final long millis, final Statistics statistics,
+                               final long requests, final long served) {
+        System.out.printf("%5d %9d %10d %10d %11d %9d %9d %9d %10.1f%n", cycle, changed, millis, peakHeapMb(),
+                statistics.getPrepareStatementCount(), statistics.getEntityInsertCount(),
+                statistics.getEntityUpdateCount(), requests, served / (double) MB);
+    }
+
+    private static double changedCount(final MeterRegistry registry) {
+        return registry.get("weather.ingest.stations").tag("result", "changed").counter().count();
+    }
+
+    private static long peakHeapMb() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak / MB;
+    }
+
+    private static void resetPeakHeap() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    static List<String> applicationArgs(final FeedStandIn standIn, final String region, final Path archive,
+                                        final Map<String, String> options) {
+        final List<String> properties = new ArrayList<>();
+        properties.add("--logging.level.root=WARN");
+        properties.add("--weather.metar-feed-url=" + standIn.baseUrl() + FeedStandIn.METAR_PATH);
+        properties.add("--weather.taf-feed-url=" + standIn.baseUrl() + FeedStandIn.TAF_PATH);
+        properties.add("--weather.metar-refresh-interval=1d");
+        properties.add("--weather.taf-refresh-interval=1d");
+        properties.add("--weather.archive-directory=" + archive.toString());
+        properties.add("--weather.regions[0].name=load");
+        properties.add("--weather.regions[0].bbox=" + region);
+        options.forEach((key, value) -> {
+            if (key.startsWith("--")) {
+                properties.add(key + "=" + value);
+            }
+        });
+        return properties;
+    }
+
+    static Map<String, String> options(final String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (final String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(0, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MetarJSON feeds of any size, built from the recorded features in metar-feed.json. Each generated station gets a
+ * unique ICAO code, its own position on a grid over the contiguous US, and the recorded report rewritten for it, so
+ * payloads keep the shape, field mix and size per station of the live feed. Recorded features without a feature id,
+ * kept in the fixture as negative cases for the parser, are not used.
+ */
+public final class MetarFeedGenerator {
+
+    private static final double MIN_LAT = 25.0;
+
+    private static final double MAX_LAT = 49.0;
+
+    private static final double MIN_LON = -124.0;
+
+    private static final double MAX_LON = -67.0;
+
+    private static final int LETTERS = 26;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final List<ObjectNode> RECORDED = load();
+
+    private MetarFeedGenerator() {
+    }
+
+    /**
+     * Builds a feed.
+     *
+     * @param stations number of stations
+     * @param minute observation minute, 0 to 59; feeds built with different minutes report changed observations
+     * @return MetarJSON bytes
+     */
+    public static byte[] generate(final int stations, final int minute) {
+        final List<ObjectNode> features = features(stations);
+        features.forEach(feature -> observe(feature, minute));
+        return write(features);
+    }
+
+    /**
+     * Builds the features of a feed, observed at minute 0.
+     *
+     * @param stations number of stations
+     * @return GeoJSON features
+     */
+    public static List<ObjectNode> features(final int stations) {
+        final List<ObjectNode> features = new ArrayList<>(stations);
+        final int side = (int) Math.ceil(Math.sqrt(stations));
+        for (int i = 0; i < stations; i++) {
+            final ObjectNode feature = RECORDED.get(i % RECORDED.size()).deepCopy();
+            final ObjectNode properties = (ObjectNode) feature.get("properties");
+            final String recorded = properties.get("id").asText();
+            final String icao = icao(i);
+            properties.put("id", icao);
+            properties.put("rawOb", properties.get("rawOb").asText().replace(recorded, icao));
+            final ArrayNode coordinates = ((ObjectNode) feature.get("geometry")).putArray("coordinates");
+            coordinates.add(MIN_LON + (MAX_LON - MIN_LON) * (i % side) / side);
+            coordinates.add(MIN_LAT + (MAX_LAT - MIN_LAT) * (i / side) / side);
+            features.add(feature);
+        }
+        features.forEach(feature -> observe(feature, 0));
+        return features;
+    }
+
+    /**
+     * Sets the observation minute of a feature, in both its observation time and its raw report.
+     *
+     * @param feature GeoJSON feature
+     * @param minute observation minute, 0 to 59
+     */
+    public static void observe(final ObjectNode feature, final int minute) {
+        final ObjectNode properties = (ObjectNode) feature.get("properties");
+        final String time = String.format("%02d", minute);
+        properties.put("obsTime", properties.get("obsTime").asText().replaceFirst(":\\d\\d:", ":" + time + ":"));
+        properties.put("rawOb",
+                properties.get("rawOb").asText().replaceFirst("(\\d{4})\\d\\dZ", "$1" + time + "Z"));
+    }
+
+    /**
+     * Writes features as a MetarJSON FeatureCollection.
+     *
+     * @param features GeoJSON features
+     * @return MetarJSON bytes
+     */
+    public static byte[] write(final List<ObjectNode> features) {
+        final ObjectNode feed = MAPPER.createObjectNode();
+        feed.put("type", "FeatureCollection");
+        feed.putArray("features").addAll(features);
+        try {
+            return MAPPER.writeValueAsBytes(feed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Synthetic ICAO code of a generated station: K followed by three letters, then digits past 17,576 stations.
+     *
+     * @param index station index
+     * @return ICAO code
+     */
+    public static String icao(final int index) {
+        final char[] code = {'K', 'A', 'A', 'A'};
+        int rest = index % (LETTERS * LETTERS * LETTERS);
+        for (int i = code.length - 1; i > 0; i--) {
+            code[i] = (char) ('A' + rest % LETTERS);
+            rest /= LETTERS;
+        }
+        final int round = index / (LETTERS * LETTERS * LETTERS);
+        if (round == 0) {
+            return new String(code);
+        }
+        return new String(code) + round;
+    }
+
+    private static List<ObjectNode> load() {
+        try (InputStream in = MetarFeedGenerator.class.getResourceAsStream("/metar-feed.json")) {
+            final List<ObjectNode> features = new ArrayList<>();
+            for (final JsonNode feature : MAPPER.readTree(in).get("features")) {
+                if (feature.hasNonNull("id")) {
+                    features.add((ObjectNode) feature);
+                }
+            }
+            return features;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.config.ServiceConfig;
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.WeatherProduct;
+import com.starfireaviation.weather.model.WeatherProductRepository;
+import com.starfireaviation.weather.service.MetarFeedParser;
+import com.starfireaviation.weather.service.MetarProjection;
+import com.starfireaviation.weather.service.MetarStore;
+import com.starfireaviation.weather.service.RenderedMetarCache;
+import com.starfireaviation.weather.service.StationRegistry;
+import com.starfireaviation.weather.service.WeatherMetrics;
+import com.starfireaviation.weather.service.WeatherProductService;
+import com.starfireaviation.weather.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the METAR service over generated feeds of 100, 1,000 and 10,000 stations (see
+ * {@link MetarFeedGenerator}):
+ *
+ * parseMetar      streaming parse of a whole feed payload
+ * filterAttributes serializing every station through a four-attribute projection
+ * getMETAR        one single-station read, through WeatherService and through the rendered response cache
+ * cacheMetar      persisting a cycle in which every station changed, through WeatherProductService.saveMETARs into
+ *                 in-memory H2 with the application's JPA settings, then publishing it to the in-memory snapshot
+ *
+ * Scores are operations per second, where an operation is one payload, response, read or publish; compare
+ * gc.alloc.rate.norm across builds for allocation regressions.
+ *
+ * mvn -Pbenchmark test -Djmh.args="MetarPathsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MetarPathsBenchmark {
+
+    private static final List<String> FILTER = List.of(METAR.RAW_TEXT, METAR.FLIGHT_CATEGORY, METAR.WIND,
+            METAR.VISIBILITY);
+
+    @Param({"100", "1000", "10000"})
+    private int stations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MetarFeedParser parser = new MetarFeedParser(new JsonFactory());
+
+    private final MetarProjection filter = MetarProjection.compile(FILTER);
+
+    private byte[] payload;
+
+    private List<METAR> metars;
+
+    private final List<Map<String, METAR>> cycles = new ArrayList<>();
+
+    private MetarStore store;
+
+    private RenderedMetarCache renderedMetarCache;
+
+    private WeatherService weatherService;
+
+    private String[] icaos;
+
+    private int next;
+
+    private ConfigurableApplicationContext persistence;
+
+    private WeatherProductService weatherProductService;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = MetarFeedGenerator.generate(stations, 0);
+        metars = parse(payload);
+        cycles.add(byIcao(metars));
+        cycles.add(byIcao(parse(MetarFeedGenerator.generate(stations, 1))));
+        for (final Map<String, METAR> cycle : cycles) {
+            if (cycle.size() != stations) {
+                throw new IllegalStateException(String.format("Generated %d stations, parsed %d", stations,
+                        cycle.size()));
+            }
+        }
+
+        final WeatherProperties props = new WeatherProperties();
+        store = new MetarStore(props.getGridCellDegrees());
+        store.publish(cycles.get(0));
+        renderedMetarCache = new RenderedMetarCache(objectMapper);
+        final WeatherMetrics metrics = new WeatherMetrics(new SimpleMeterRegistry(), store, renderedMetarCache);
+        weatherService = new WeatherService(null, props, null, store, parser,
+                new StationRegistry(props, new DefaultResourceLoader()), null, metrics);
+        icaos = cycles.get(0).keySet().toArray(new String[0]);
+
+        persistence = new SpringApplicationBuilder(Persistence.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.datasource.url=jdbc:h2:mem:metar-paths-" + stations, "--logging.level.root=WARN");
+        weatherProductService = new WeatherProductService(new ServiceConfig().productCodecs(props),
+                persistence.getBean(WeatherProductRepository.class), persistence.getBean(TransactionTemplate.class));
+        weatherProductService.saveMETARs(cycles.get(0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        persistence.close();
+    }
+
+    @Benchmark
+    public void parseMetar(final Blackhole blackhole) throws IOException {
+        parser.parse(new ByteArrayInputStream(payload), blackhole::consume);
+    }
+
+    @Benchmark
+    public byte[] filterAttributes() throws IOException {
+        return objectMapper.writeValueAsBytes(filter.view(metars));
+    }
+
+    @Benchmark
+    public METAR getMETAR() throws Exception {
+        next = (next + 1) % icaos.length;
+        return weatherService.getMETAR(icaos[next]);
+    }
+
+    @Benchmark
+    public RenderedMetarCache.RenderedMETAR getRenderedMETAR() throws Exception {
+        next = (next + 1) % icaos.length;
+        return renderedMetarCache.get(weatherService.getCachedMETAR(icaos[next]), MetarProjection.ALL);
+    }
+
+    @Benchmark
+    public int cacheMetar() {
+        next = (next + 1) % cycles.size();
+        weatherProductService.saveMETARs(cycles.get(next));
+        store.publish(cycles.get(next));
+        return store.size();
+    }
+
+    private List<METAR> parse(final byte[] feed) throws IOException {
+        final List<METAR> parsed = new ArrayList<>(stations);
+        parser.parse(new ByteArrayInputStream(feed), parsed::add);
+        return parsed;
+    }
+
+    private static Map<String, METAR> byIcao(final List<METAR> list) {
+        final Map<String, METAR> map = new HashMap<>();
+        list.forEach(metar -> map.put(metar.getIcao(), metar));
+        return map;
+    }
+
+    /**
+     * JPA only: the data source, Hibernate and the repositories, without the web layer or the scheduled ingest.
+     */
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = WeatherProduct.class)
+    @EnableJpaRepositories(basePackageClasses = WeatherProductRepository.class)
+    static class Persistence {
+    }
+}
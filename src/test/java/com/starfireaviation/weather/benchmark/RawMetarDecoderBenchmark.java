@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.service.RawMetarDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw METAR decoding throughput. Target: at least 1,000,000 reports per second per core for single reports, and no
+ * more than the decoded models and their strings allocated per report (check with -prof gc).
+ *
+ * mvn -Pbenchmark test -Djmh.args="RawMetarDecoderBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RawMetarDecoderBenchmark {
+
+    private static final int BULLETIN_REPORTS = 1000;
+
+    private static final Instant REFERENCE = Instant.parse("2022-10-08T13:00:00Z");
+
+    private static final String[] REPORTS = {
+        "KATL 081252Z 34008G18KT 10SM FEW060 BKN250 13/07 A3017 RMK AO2 SLP215 T01330072",
+        "METAR KPDK 081253Z VRB05KT 10SM CLR 12/06 A3016 RMK AO2 SLP218 T01220061",
+        "SPECI KFTY 081301Z 00000KT 1 1/2SM BR OVC008 12/11 A3016 RMK AO2",
+        "KRYY 081255Z AUTO 31012KT 280V340 3SM -RA BKN015 OVC030 M01/M03 A2992 RMK AO2",
+        "KMGE 081255Z 33006KT 1/4SM R11/1200FT FG VV002 10/10 A3015 RMK AO2",
+        "EGLL 081250Z 24005MPS 9999 SCT030 12/08 Q1013",
+    };
+
+    private final RawMetarDecoder decoder = new RawMetarDecoder();
+
+    private String bulletin;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BULLETIN_REPORTS; i++) {
+            builder.append(REPORTS[i % REPORTS.length]).append("=\n");
+        }
+        bulletin = builder.toString();
+    }
+
+    @Benchmark
+    public METAR decodeReport() {
+        next = (next + 1) % REPORTS.length;
+        return decoder.decode(REPORTS[next], REFERENCE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULLETIN_REPORTS)
+    public int decodeBulletin(final Blackhole blackhole) {
+        return decoder.decodeAll(bulletin, REFERENCE, blackhole::consume);
+    }
+}
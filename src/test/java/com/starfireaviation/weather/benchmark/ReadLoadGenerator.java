@@ -0,0 +1,380 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.WeatherApplication;
+import com.starfireaviation.weather.service.MetarHistoryService;
+import com.starfireaviation.weather.service.MetarStore;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Read path load: replays a mix of single station, multi station, projected ({@code data=}) and, optionally, history
+ * METAR queries against an instance at increasing request rates, and reports latency percentiles per query type and the highest rate the
+ * instance sustains.
+ *
+ * Requests are issued open loop from one virtual thread each, at the times the rate schedules them, and latency is
+ * measured from that scheduled time, so a stalled server shows up as latency rather than as a lower request rate. A
+ * rate step is sustained when its errors stay within 0.1% and its p99 within the slo; the ramp stops at the first step
+ * that is not. Each step appends one CSV row per query type, labelled, to the report file, so runs of different builds
+ * can be compared.
+ *
+ * Without url, an instance is started in this JVM against a {@link FeedStandIn} with the given number of stations;
+ * with url, the stations are discovered from the target instance. Arguments starting with -- are passed to the started
+ * instance, e.g. --weather.virtual-threads=true.
+ *
+ * mvn -Pload test -DskipTests -Dload.class=com.starfireaviation.weather.benchmark.ReadLoadGenerator \
+ *     -Dload.args="stations=10000 rates=500,1000,2000,4000 mix=single:70,multi:20,projected:10 label=main"
+ */
+public final class ReadLoadGenerator {
+
+    private static final double MILLIS = 1000.0;
+
+    private static final long WARM_UP_TIMEOUT_MINUTES = 10;
+
+    private static final long HISTORY_QUEUE_MILLIS = 1000;
+
+    private static final Duration HISTORY_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final long MAX_ERRORS_PER_THOUSAND = 1;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final double P99 = 99.0;
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private static final String HEADER = "label,rate,type,requests,errors,rps,p50-ms,p90-ms,p99-ms,p999-ms,max-ms";
+
+    private enum QueryType {
+        SINGLE, MULTI, PROJECTED, HISTORY
+    }
+
+    private ReadLoadGenerator() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = IngestLoadHarness.options(args);
+        final String url = options.get("url");
+        if (url != null) {
+            run(url, options);
+            return;
+        }
+        final int stations = Integer.parseInt(options.getOrDefault("stations", "10000"));
+        final String region = options.getOrDefault("bbox", "-124,25,-67,49");
+        try (FeedStandIn standIn = new FeedStandIn(stations, 0, 0)) {
+            final List<String> properties = IngestLoadHarness.applicationArgs(standIn, region,
+                    Files.createTempDirectory("weather-archive"), options);
+            properties.add("--server.port=0");
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WeatherApplication.class)
+                    .run(properties.toArray(new String[0]))) {
+                final MetarStore store = context.getBean(MetarStore.class);
+                final CountDownLatch loaded = new CountDownLatch(1);
+                store.addListener((previous, published) -> {
+                    if (!published.isEmpty()) {
+                        loaded.countDown();
+                    }
+                });
+                if (store.size() == 0 && !loaded.await(WARM_UP_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("The first ingest cycle did not complete");
+                }
+                // the first cycle queues its history just after publishing; let it be written before measuring
+                Thread.sleep(HISTORY_QUEUE_MILLIS);
+                context.getBean(MetarHistoryService.class).awaitWrites(HISTORY_TIMEOUT);
+                run("http://localhost:" + context.getEnvironment().getProperty("local.server.port"), options);
+            }
+        }
+    }
+
+    private static void run(final String url, final Map<String, String> options) throws Exception {
+        final String label = options.getOrDefault("label", Instant.now().toString());
+        final List<Integer> rates = new ArrayList<>();
+        for (final String rate : options.getOrDefault("rates", "250,500,1000,2000,4000,8000").split(",")) {
+            rates.add(Integer.parseInt(rate.trim()));
+        }
+        final Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        final Duration warmUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        final double slo = Double.parseDouble(options.getOrDefault("slo", "100"));
+        final int maxInFlight = Integer.parseInt(options.getOrDefault("max-inflight", "10000"));
+        final Path report = Path.of(options.getOrDefault("report", "target/read-load.csv"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(REQUEST_TIMEOUT)
+                    .build();
+            final Workload workload = new Workload(url, discover(client, url),
+                    options.getOrDefault("mix", "single:70,multi:20,projected:10"),
+                    Integer.parseInt(options.getOrDefault("multi", "10")),
+                    options.getOrDefault("data", "icao,observed,flight_category,wind,visibility"),
+                    Long.parseLong(options.getOrDefault("seed", "42")));
+            System.out.printf("url=%s stations=%d mix=%s duration=%ds slo=p99<=%.0fms%n", url,
+                    workload.stations.size(), workload.mix, duration.getSeconds(), slo);
+
+            step(client, workload, rates.get(0), warmUp, maxInFlight);
+            System.out.printf("%6s %-9s %9s %7s %9s %8s %8s %8s %8s %8s%n", "rate", "type", "requests", "errors",
+                    "rps", "p50-ms", "p90-ms", "p99-ms", "p999-ms", "max-ms");
+            final boolean header = Files.notExists(report);
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            int sustained = 0;
+            try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                if (header) {
+                    csv.println(HEADER);
+                }
+                for (final int rate : rates) {
+                    final Step step = step(client, workload, rate, duration, maxInFlight);
+                    final Histogram all = new Histogram(SIGNIFICANT_DIGITS);
+                    long errors = 0;
+                    for (final QueryType type : QueryType.values()) {
+                        if (step.latencies.get(type).getTotalCount() + step.errors.get(type).sum() == 0) {
+                            continue;
+                        }
+                        all.add(step.latencies.get(type));
+                        errors += step.errors.get(type).sum();
+                        print(csv, label, rate, type.name().toLowerCase(Locale.ROOT), step.latencies.get(type),
+                                step.errors.get(type).sum(), duration);
+                    }
+                    print(csv, label, rate, "all", all, errors, duration);
+                    csv.flush();
+                    final long requests = all.getTotalCount() + errors;
+                    if (errors * MILLIS > MAX_ERRORS_PER_THOUSAND * requests
+                            || all.getValueAtPercentile(P99) / MILLIS > slo) {
+                        break;
+                    }
+                    sustained = rate;
+                }
+            }
+            System.out.printf("max sustained rate: %d/s (report: %s)%n", sustained, report);
+        }
+    }
+
+    private static Step step(final HttpClient client, final Workload workload, final int rate,
+                             final Duration duration, final int maxInFlight) {
+        final Step step = new Step();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long count = duration.toNanos() / period;
+        final long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < count; i++) {
+                final long scheduled = start + i * period;
+                final long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                final Query query = workload.next();
+                if (!inFlight.tryAcquire()) {
+                    step.errors.get(query.type).increment();
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        final HttpResponse<Void> response = client.send(query.request,
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == HttpURLConnection.HTTP_OK) {
+                            step.latencies.get(query.type).recordValue(
+                                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+                        } else {
+                            step.errors.get(query.type).increment();
+                        }
+                    } catch (IOException e) {
+                        step.errors.get(query.type).increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return step;
+    }
+
+    private static List<String> discover(final HttpClient client, final String url)
+            throws IOException, InterruptedException {
+        final HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(
+                URI.create(url + "/metar/bbox?bbox=-180,-90,180,90&data=icao")).timeout(REQUEST_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        final List<String> stations = new ArrayList<>();
+        for (final JsonNode metar : new ObjectMapper().readTree(response.body())) {
+            stations.add(metar.path("icao").asText());
+        }
+        if (stations.isEmpty()) {
+            throw new IllegalStateException(String.format("No stations at %s (HTTP %d)", url,
+                    response.statusCode()));
+        }
+        return stations;
+    }
+
+    private static void print(final PrintWriter csv, final String label, final int rate, final String type,
+                              final Histogram latencies, final long errors, final Duration duration) {
+        final long requests = latencies.getTotalCount() + errors;
+        final double rps = latencies.getTotalCount() / (double) duration.getSeconds();
+        final double[] values = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            values[i] = latencies.getValueAtPercentile(PERCENTILES[i]) / MILLIS;
+        }
+        final double max = latencies.getMaxValue() / MILLIS;
+        System.out.printf("%6d %-9s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n", rate, type, requests, errors, rps,
+                values[0], values[1], values[2], values[3], max);
+        csv.printf("%s,%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n", label, rate, type, requests, errors, rps,
+                values[0], values[1], values[2], values[3], max);
+    }
+
+    private static final class Step {
+
+        private final Map<QueryType, Histogram> latencies = new EnumMap<>(QueryType.class);
+
+        private final Map<QueryType, LongAdder> errors = new EnumMap<>(QueryType.class);
+
+        private Step() {
+            for (final QueryType type : QueryType.values()) {
+                latencies.put(type, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+                errors.put(type, new LongAdder());
+            }
+        }
+    }
+
+    private static final class Query {
+
+        private final QueryType type;
+
+        private final HttpRequest request;
+
+        private Query(final QueryType type, final HttpRequest request) {
+            this.type = type;
+            this.request = request;
+        }
+    }
+
+    /**
+     * Draws queries from the mix, over stations chosen uniformly at random. Only used from the thread issuing
+     * requests.
+     */
+    private static final class Workload {
+
+        private final String url;
+
+        private final List<String> stations;
+
+        private final String mix;
+
+        private final QueryType[] types;
+
+        private final int[] cumulative;
+
+        private final int multi;
+
+        private final String data;
+
+        private final SplittableRandom random;
+
+        private Workload(final String url, final List<String> stations, final String mix, final int multi,
+                         final String data, final long seed) {
+            this.url = url;
+            this.stations = stations;
+            this.mix = mix;
+            this.multi = multi;
+            this.data = data;
+            this.random = new SplittableRandom(seed);
+            final String[] entries = mix.split(",");
+            types = new QueryType[entries.length];
+            cumulative = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                final String[] entry = entries[i].split(":");
+                types[i] = QueryType.valueOf(entry[0].trim().toUpperCase(Locale.ROOT));
+                total += Integer.parseInt(entry[1].trim());
+                cumulative[i] = total;
+            }
+        }
+
+        private Query next() {
+            final int draw = random.nextInt(cumulative[cumulative.length - 1]);
+            int index = 0;
+            while (draw >= cumulative[index]) {
+                index++;
+            }
+            final QueryType type = types[index];
+            final String path;
+            switch (type) {
+                case SINGLE:
+                    path = "/metar/" + station();
+                    break;
+                case MULTI:
+                    path = "/metar?stations=" + stations(multi);
+                    break;
+                case HISTORY:
+                    path = "/metar/" + station() + "/history?hours=1";
+                    break;
+                default:
+                    path = "/metar?stations=" + stations(multi) + "&data=" + data;
+                    break;
+            }
+            return new Query(type, HttpRequest.newBuilder(URI.create(url + path)).timeout(REQUEST_TIMEOUT).build());
+        }
+
+        private String station() {
+            return stations.get(random.nextInt(stations.size()));
+        }
+
+        private String stations(final int count) {
+            final StringBuilder builder = new StringBuilder(station());
+            for (int i = 1; i < count; i++) {
+                builder.append(',').append(station());
+            }
+            return builder.toString();
+        }
+    }
+}
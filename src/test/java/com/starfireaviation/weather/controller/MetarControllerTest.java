@@ -0,0 +1,101 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.weather.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.service.MetarStore;
+import com.starfireaviation.weather.service.RenderedMetarCache;
+import com.starfireaviation.weather.service.WeatherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MetarControllerTest {
+
+    private final MetarStore store = new MetarStore(0.5);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final WeatherService weatherService = mock(WeatherService.class);
+        when(weatherService.getCachedMETAR("KATL")).thenAnswer(invocation -> store.get("KATL"));
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new MetarController(weatherService, new RenderedMetarCache(new ObjectMapper()), null)).build();
+        publish("2022-10-08T12:52:00Z", "KATL 081252Z 34008KT 10SM FEW060 13/07 A3017");
+    }
+
+    private void publish(final String observed, final String rawText) {
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved(observed);
+        metar.setRawText(rawText);
+        store.publish(Map.of("KATL", metar));
+    }
+
+    @Test
+    void servesETagAndLastModified() throws Exception {
+        final MvcResult result = mockMvc.perform(get("/metar/katl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.icao").value("KATL"))
+                .andReturn();
+        assertNotNull(result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(Instant.parse("2022-10-08T12:52:00Z").toEpochMilli(),
+                result.getResponse().getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+        final String etag = mockMvc.perform(get("/metar/KATL")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/metar/KATL").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void servesNewETagAfterNextPublish() throws Exception {
+        final String etag = mockMvc.perform(get("/metar/KATL")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        publish("2022-10-08T13:52:00Z", "KATL 081352Z 34010KT 10SM FEW060 14/07 A3016");
+        final MvcResult result = mockMvc.perform(get("/metar/KATL").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.observed").value("2022-10-08T13:52:00Z"))
+                .andReturn();
+        assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(Instant.parse("2022-10-08T13:52:00Z").toEpochMilli(),
+                result.getResponse().getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ResourceNotFoundException;
+import com.starfireaviation.weather.model.Alert;
+import com.starfireaviation.weather.model.AlertRule;
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertRuleEngineTest {
+
+    private static final Instant REFERENCE = Instant.parse("2022-10-18T19:00:00Z");
+
+    private final RawMetarDecoder decoder = new RawMetarDecoder();
+
+    private final MetarStore store = new MetarStore(0.5);
+
+    private final AlertRuleEngine engine = new AlertRuleEngine(store, 100, 10);
+
+    AlertRuleEngineTest() {
+        store.addListener(engine);
+    }
+
+    private void publish(final String raw) {
+        final METAR metar = decoder.decode(raw, REFERENCE);
+        store.publish(Map.of(metar.getIcao(), metar));
+    }
+
+    private static AlertRule rule(final String station, final String match, final String... conditions) {
+        final AlertRule rule = new AlertRule();
+        rule.setName("test");
+        rule.setStation(station);
+        rule.setMatch(match);
+        final List<AlertRule.Condition> list = new ArrayList<>();
+        for (final String text : conditions) {
+            final String[] parts = text.split(" ");
+            final AlertRule.Condition condition = new AlertRule.Condition();
+            condition.setField(parts[0]);
+            condition.setOp(parts[1]);
+            condition.setValue(parts[2]);
+            list.add(condition);
+        }
+        rule.setConditions(list);
+        return rule;
+    }
+
+    @Test
+    void firesOnceWhenConditionsBecomeTrue() throws InvalidPayloadException {
+        publish("KATL 181752Z 27008KT 10SM BKN050 24/12 A3002");
+        engine.addRule(rule("katl", "all", "ceiling_ft < 1000", "visibility_sm <= 3"));
+        assertTrue(engine.getAlerts(null, null).isEmpty());
+
+        publish("KATL 181812Z 27012KT 2SM BR OVC008 20/18 A3000");
+        publish("KATL 181852Z 27012KT 2SM BR OVC007 20/18 A3000");
+        final List<Alert> alerts = engine.getAlerts("KATL", null);
+        assertEquals(1, alerts.size());
+        assertEquals("ceiling_ft < 1000 and visibility_sm <= 3", alerts.get(0).getReason());
+        assertEquals(1, engine.getActiveAlerts("KATL").size());
+
+        publish("KATL 181952Z 27008KT 10SM BKN050 24/12 A3002");
+        assertTrue(engine.getActiveAlerts(null).isEmpty());
+        publish("KATL 182052Z 27012KT 1SM BR OVC005 20/18 A3000");
+        assertEquals(2, engine.getAlerts(null, null).size());
+    }
+
+    @Test
+    void evaluatesNewRuleAgainstCurrentObservation() throws InvalidPayloadException, ResourceNotFoundException {
+        publish("KPDK 181753Z 00000KT 10SM CLR 24/22 A3002");
+        final AlertRule rule = engine.addRule(rule("KPDK", null, "spread_c <= 2", "flight_category >= IFR"));
+        assertNotNull(rule.getId());
+        assertEquals("spread_c <= 2", engine.getActiveAlerts(null).get(0).getReason());
+
+        engine.removeRule(rule.getId());
+        assertTrue(engine.getActiveAlerts(null).isEmpty());
+        assertTrue(engine.getRules().isEmpty());
+        assertThrows(ResourceNotFoundException.class, () -> engine.removeRule(rule.getId()));
+    }
+
+    @Test
+    void firesOnFeedObservations() throws Exception {
+        engine.addRule(rule("KFTY", null, "gust_kt > 25"));
+        engine.addRule(rule("KATL", null, "ceiling_ft >= 20000"));
+        engine.addRule(rule("KRYY", "all", "ceiling_ft < 1000", "ceiling_ft >= 500"));
+        engine.addRule(rule("KPDK", null, "gust_kt > 0"));
+        final Map<String, METAR> metars = new HashMap<>();
+        try (InputStream in = getClass().getResourceAsStream("/metar-feed.json")) {
+            new MetarFeedParser(new JsonFactory()).parse(in, metar -> metars.put(metar.getIcao(), metar));
+        }
+        store.publish(metars);
+        final List<Alert> alerts = engine.getActiveAlerts(null);
+        assertEquals(3, alerts.size());
+        assertEquals("gust_kt > 25", engine.getActiveAlerts("KFTY").get(0).getReason());
+        assertEquals(1, engine.getActiveAlerts("KATL").size());
+        assertEquals(1, engine.getActiveAlerts("KRYY").size());
+        assertTrue(engine.getActiveAlerts("KPDK").isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThrows(InvalidPayloadException.class, () -> engine.addRule(rule("KATL", null, "pressure > 1000")));
+        assertThrows(InvalidPayloadException.class, () -> engine.addRule(rule("KATL", null, "wind_kt ~ 10")));
+        assertThrows(InvalidPayloadException.class, () -> engine.addRule(rule("KATL", null, "wind_kt > fast")));
+        assertThrows(InvalidPayloadException.class,
+                () -> engine.addRule(rule("KATL", null, "flight_category == SVFR")));
+        assertThrows(InvalidPayloadException.class, () -> engine.addRule(rule("KATL", "some", "wind_kt > 10")));
+        assertThrows(InvalidPayloadException.class, () -> engine.addRule(rule(null, null, "wind_kt > 10")));
+    }
+
+}
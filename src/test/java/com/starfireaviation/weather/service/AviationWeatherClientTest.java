@@ -0,0 +1,99 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.util.SSLUtilities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class AviationWeatherClientTest {
+
+    private static final String URL = "https://aviationweather.gov/api/data/metar?bbox=-85,30,-80,35";
+
+    private MockRestServiceServer server;
+
+    private AviationWeatherClient client;
+
+    @BeforeEach
+    void setUp() {
+        final RestTemplate template = new RestTemplate();
+        server = MockRestServiceServer.bindTo(template).build();
+        client = new AviationWeatherClient(template, new SSLUtilities());
+    }
+
+    @Test
+    void uncommittedValidatorsAreNotSent() {
+        server.expect(requestTo(URL)).andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(okWithETag("\"v1\""));
+        server.expect(requestTo(URL)).andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(okWithETag("\"v2\""));
+
+        assertEquals(Optional.of("body"), client.fetch(URL, this::read));
+        // Caller failed to persist and never committed, so the next cycle must get the full body again
+        assertEquals(Optional.of("body"), client.fetch(URL, this::read));
+        server.verify();
+    }
+
+    @Test
+    void committedValidatorsAreSent() {
+        server.expect(requestTo(URL)).andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(okWithETag("\"v1\""));
+        server.expect(requestTo(URL)).andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        server.expect(requestTo(URL)).andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        client.fetch(URL, this::read);
+        client.commit(List.of(URL));
+        assertTrue(client.fetch(URL, this::read).isEmpty());
+        // A 304 stages nothing, so committing it keeps the previous validators
+        client.commit(List.of(URL));
+        assertTrue(client.fetch(URL, this::read).isEmpty());
+        server.verify();
+    }
+
+    private ResponseCreator okWithETag(final String eTag) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        return withSuccess("body", MediaType.APPLICATION_JSON).headers(headers);
+    }
+
+    private String read(final InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactMETARTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void feedMetarsConvertBackUnchanged() throws Exception {
+        final List<METAR> metars = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/metar-feed.json")) {
+            new MetarFeedParser(new JsonFactory()).parse(in, metars::add);
+        }
+        for (final METAR metar : metars) {
+            final CompactMETAR compact = CompactMETAR.of(metar);
+            assertEquals(mapper.writeValueAsString(metar), mapper.writeValueAsString(compact.toMETAR()));
+            assertTrue(compact.isSameObservation(metar));
+        }
+        final CompactMETAR katl = CompactMETAR.of(metars.get(0));
+        assertEquals(Instant.parse("2022-10-08T12:52:00Z").getEpochSecond(), katl.getObserved());
+        assertEquals(25000, katl.getCeilingFeet());
+        assertEquals("BKN", katl.getCeilingCode());
+    }
+
+    @Test
+    void decodedMetarConvertsBackUnchanged() throws Exception {
+        final METAR metar = new RawMetarDecoder().decode(
+                "KDEN 181753Z 27015G25KT 1 1/2SM -SN BKN008 OVC015 M02/M05 A2992",
+                Instant.parse("2022-10-18T18:00:00Z"));
+        final CompactMETAR compact = CompactMETAR.of(metar);
+        assertEquals(mapper.writeValueAsString(metar), mapper.writeValueAsString(compact.toMETAR()));
+        assertEquals(1.5f, compact.getVisibilityMiles());
+        assertEquals(25, compact.getWindGustKt());
+        assertEquals(2, compact.getCloudCount());
+        assertEquals("OVC", compact.getCloudCover(1));
+        assertEquals(1500, compact.getCloudBaseFeet(1));
+
+        final METAR corrected = compact.toMETAR();
+        corrected.setRawText(corrected.getRawText() + " RMK COR");
+        assertFalse(compact.isSameObservation(corrected));
+    }
+
+    @Test
+    void missingValuesUseSentinels() {
+        final METAR metar = new METAR();
+        metar.setIcao("KXYZ");
+        final CompactMETAR compact = CompactMETAR.of(metar);
+        assertEquals(CompactMETAR.MISSING, compact.getTemperatureC());
+        assertEquals(CompactMETAR.MISSING_TIME, compact.getObserved());
+        assertFalse(compact.hasPosition());
+        assertTrue(Float.isNaN(compact.getVisibilityMiles()));
+        assertEquals(0, compact.getCloudCount());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.config.WeatherProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FeedTilesTest {
+
+    @Test
+    void smallRegionIsKeptAsSingleTile() {
+        final List<String> tiles = FeedTiles.bboxes(
+                List.of(new WeatherProperties.Region("atlanta", "-85.6898,30.1588,-80.8209,35.1475")), 5.0);
+        assertEquals(List.of("-85.6898,30.1588,-80.8209,35.1475"), tiles);
+    }
+
+    @Test
+    void largeRegionIsSplitIntoEvenTiles() {
+        final List<String> tiles = FeedTiles.bboxes(
+                List.of(new WeatherProperties.Region("conus", "-125,24,-65,50")), 10.0);
+        assertEquals(6 * 3, tiles.size());
+        assertEquals("-125.0000,24.0000,-115.0000,32.6667", tiles.get(0));
+        assertEquals("-75.0000,41.3333,-65.0000,50.0000", tiles.get(tiles.size() - 1));
+    }
+
+    @Test
+    void malformedAndDuplicateRegionsAreIgnored() {
+        final List<String> tiles = FeedTiles.bboxes(List.of(
+                new WeatherProperties.Region("a", "-85,30,-80,35"),
+                new WeatherProperties.Region("b", "-85,30,-80,35"),
+                new WeatherProperties.Region("c", "-85,30,-80"),
+                new WeatherProperties.Region("d", "-80,30,-85,35")), 5.0);
+        assertEquals(List.of("-85,30,-80,35"), tiles);
+    }
+}
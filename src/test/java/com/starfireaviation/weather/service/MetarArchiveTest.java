@@ -0,0 +1,112 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.ArchiveSummary;
+import com.starfireaviation.weather.model.Barometer;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.Temperature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetarArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private static METAR metar(final String observed, final long celsius, final double mb, final String category) {
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved(observed);
+        final Temperature temperature = new Temperature();
+        temperature.setCelsius(celsius);
+        metar.setTemperature(temperature);
+        final Barometer barometer = new Barometer();
+        barometer.setMb(mb);
+        metar.setBarometer(barometer);
+        final Ceiling ceiling = new Ceiling();
+        ceiling.setCode("BKN");
+        ceiling.setFeet(2500.0);
+        metar.setCeiling(ceiling);
+        metar.setFlightCategory(category);
+        return metar;
+    }
+
+    @Test
+    void scansRangeAcrossMonthSegments() throws Exception {
+        final MetarArchive archive = new MetarArchive(directory, 16);
+        assertEquals(3, archive.append(List.of(
+                metar("2022-09-30T23:52:00Z", 20, 1013.2, "VFR"),
+                metar("2022-10-01T00:52:00Z", 19, 1013.5, "MVFR"),
+                metar("2022-10-01T01:52:00Z", 18, 1014.0, "VFR"))));
+        final List<Long> times = new ArrayList<>();
+        final List<String> covers = new ArrayList<>();
+        new MetarArchive(directory, 16).scan("KATL", Instant.parse("2022-09-30T23:00:00Z"),
+                Instant.parse("2022-10-01T01:52:00Z"), (epochSecond, temperature, dewpoint, pressure, cover, base,
+                                                          category) -> {
+                    times.add(epochSecond);
+                    covers.add(cover + (int) base);
+                    assertEquals(Short.MIN_VALUE, dewpoint);
+                });
+        assertEquals(List.of(Instant.parse("2022-09-30T23:52:00Z").getEpochSecond(),
+                Instant.parse("2022-10-01T00:52:00Z").getEpochSecond()), times);
+        assertEquals("BKN25", covers.get(0));
+    }
+
+    @Test
+    void summarizesAndReplacesCorrectedReports() throws Exception {
+        final MetarArchive archive = new MetarArchive(directory, 16);
+        archive.append(List.of(metar("2022-10-08T11:52:00Z", 10, 1010.0, "IFR")));
+        archive.append(List.of(metar("2022-10-08T12:52:00Z", 12, 1012.0, "VFR")));
+        archive.append(List.of(metar("2022-10-08T12:52:00Z", 14, 1012.0, "MVFR")));
+        assertEquals(0, archive.append(List.of(metar("2022-10-08T10:52:00Z", 0, 1000.0, "VFR"))));
+        final ArchiveSummary summary = archive.summarize("KATL", Instant.parse("2022-10-08T00:00:00Z"),
+                Instant.parse("2022-10-09T00:00:00Z"));
+        assertEquals(2, summary.getObservations());
+        assertEquals(10.0, summary.getTemperature().getMin());
+        assertEquals(14.0, summary.getTemperature().getMax());
+        assertEquals(12.0, summary.getTemperature().getMean());
+        assertEquals(1011.0, summary.getPressure().getMean());
+        assertNull(summary.getDewpoint());
+        assertEquals(1, summary.getFlightCategories().get("IFR"));
+        assertEquals(1, summary.getFlightCategories().get("MVFR"));
+        assertNull(summary.getFlightCategories().get("VFR"));
+    }
+
+    @Test
+    void evictsSegmentsBeyondCacheSizeAndRemapsThem() throws Exception {
+        final MetarArchive archive = new MetarArchive(directory, 1);
+        assertEquals(3, archive.append(List.of(
+                metar("2022-08-31T23:52:00Z", 21, 1013.0, "VFR"),
+                metar("2022-09-30T23:52:00Z", 20, 1013.2, "VFR"),
+                metar("2022-10-01T00:52:00Z", 19, 1013.5, "MVFR"))));
+        assertEquals(1, archive.mappedSegments());
+        final ArchiveSummary summary = archive.summarize("KATL", Instant.parse("2022-08-01T00:00:00Z"),
+                Instant.parse("2022-11-01T00:00:00Z"));
+        assertEquals(3, summary.getObservations());
+        assertEquals(1, archive.mappedSegments());
+    }
+}
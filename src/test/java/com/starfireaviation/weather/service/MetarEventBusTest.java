@@ -0,0 +1,146 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.MetarEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetarEventBusTest {
+
+    private static final Instant REFERENCE = Instant.parse("2022-10-18T19:00:00Z");
+
+    private final RawMetarDecoder decoder = new RawMetarDecoder();
+
+    private final MetarChangeDetector detector =
+            new MetarChangeDetector(List.of(500, 1000, 3000), List.of(1.0, 3.0, 5.0));
+
+    private CompactMETAR decode(final String raw) {
+        final METAR metar = decoder.decode(raw, REFERENCE);
+        return CompactMETAR.of(metar);
+    }
+
+    private List<MetarEvent> detect(final String previous, final String current) {
+        final List<MetarEvent> events = new ArrayList<>();
+        detector.detect(decode(previous), decode(current), events::add);
+        return events;
+    }
+
+    @Test
+    void detectsCategoryCeilingAndVisibilityChanges() {
+        final List<MetarEvent> events = detect(
+                "KATL 181752Z 27008KT 10SM BKN050 24/12 A3002",
+                "SPECI KATL 181812Z 27012KT 2SM BR OVC008 20/18 A3000");
+        assertEquals(MetarEvent.Type.SPECI, events.get(0).getType());
+        assertEquals(MetarEvent.Type.FLIGHT_CATEGORY_CHANGED, events.get(1).getType());
+        assertEquals("VFR", events.get(1).getFrom());
+        assertEquals("IFR", events.get(1).getTo());
+        assertEquals(MetarEvent.Type.CEILING_THRESHOLD_CROSSED, events.get(2).getType());
+        assertEquals(1000.0, events.get(2).getThreshold());
+        assertEquals(MetarEvent.Type.CEILING_THRESHOLD_CROSSED, events.get(3).getType());
+        assertEquals(3000.0, events.get(3).getThreshold());
+        assertEquals(MetarEvent.Type.VISIBILITY_THRESHOLD_CROSSED, events.get(4).getType());
+        assertEquals(3.0, events.get(4).getThreshold());
+        assertEquals(MetarEvent.Type.VISIBILITY_THRESHOLD_CROSSED, events.get(5).getType());
+        assertEquals(6, events.size());
+    }
+
+    @Test
+    void unchangedConditionsRaiseNoEvents() {
+        assertTrue(detect("KATL 181752Z 27008KT 10SM FEW050 24/12 A3002",
+                "KATL 181852Z 28010KT 10SM SCT050 25/12 A3001").isEmpty());
+        final List<MetarEvent> cleared = detect("KATL 181752Z 27008KT 10SM BKN020 24/12 A3002",
+                "KATL 181852Z 28010KT 10SM SCT050 25/12 A3001");
+        assertEquals(MetarEvent.Type.CEILING_THRESHOLD_CROSSED, cleared.get(1).getType());
+        assertNull(cleared.get(1).getTo());
+    }
+
+    private CompactMETAR parseFeed(final String properties) throws Exception {
+        final String feed = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"id\":\"1\","
+                + "\"properties\":{\"data\":\"METAR\",\"id\":\"KATL\"," + properties + "}}]}";
+        final List<METAR> metars = new ArrayList<>();
+        new MetarFeedParser(new JsonFactory()).parse(
+                new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), metars::add);
+        return CompactMETAR.of(metars.get(0));
+    }
+
+    @Test
+    void detectsCeilingThresholdsOnFeedObservations() throws Exception {
+        final String high = "KATL 081252Z 34008KT 10SM FEW060 BKN250 13/07 A3017";
+        final CompactMETAR previous = parseFeed("\"obsTime\":\"2022-10-08T12:52:00Z\",\"ceil\":250,"
+                + "\"cover\":\"BKN\",\"visib\":\"10+\",\"fltcat\":\"VFR\",\"rawOb\":\"" + high + "\"");
+        assertEquals(decoder.decode(high, REFERENCE).getCeiling().getFeet().intValue(), previous.getCeilingFeet());
+
+        final CompactMETAR current = parseFeed("\"obsTime\":\"2022-10-08T13:52:00Z\",\"ceil\":8,"
+                + "\"cover\":\"OVC\",\"visib\":\"10+\",\"fltcat\":\"IFR\","
+                + "\"rawOb\":\"KATL 081352Z 34008KT 10SM OVC008 13/07 A3017\"");
+        final List<MetarEvent> events = new ArrayList<>();
+        detector.detect(previous, current, events::add);
+        assertEquals(MetarEvent.Type.FLIGHT_CATEGORY_CHANGED, events.get(0).getType());
+        assertEquals(MetarEvent.Type.CEILING_THRESHOLD_CROSSED, events.get(1).getType());
+        assertEquals("25000", events.get(1).getFrom());
+        assertEquals("800", events.get(1).getTo());
+        assertEquals(1000.0, events.get(1).getThreshold());
+        assertEquals(3000.0, events.get(2).getThreshold());
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void busDeliversStoreChangesAndDropsWhenFull() throws Exception {
+        final MetarStore store = new MetarStore(0.5);
+        final MetarEventBus bus = new MetarEventBus(detector, 2);
+        store.addListener(bus);
+        final List<MetarEvent> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(1);
+        bus.subscribe("test", event -> {
+            received.add(event);
+            delivered.countDown();
+        });
+        store.publish(Map.of("KATL", decoder.decode("KATL 181752Z 27008KT 10SM BKN050 24/12 A3002",
+                REFERENCE)));
+        store.publish(Map.of("KATL", decoder.decode("KATL 181852Z 27008KT 10SM BKN020 24/12 A3002",
+                REFERENCE)));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals("MVFR", received.get(0).getTo());
+        bus.shutdown();
+
+        final SpscRing<Integer> ring = new SpscRing<>(3);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetarFeedParserTest {
+
+    private List<METAR> parse() throws Exception {
+        final List<METAR> metars = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/metar-feed.json")) {
+            new MetarFeedParser(new JsonFactory()).parse(in, metars::add);
+        }
+        return metars;
+    }
+
+    @Test
+    void parsesFeaturesWithId() throws Exception {
+        final List<METAR> metars = parse();
+        assertEquals(4, metars.size());
+        assertEquals("KATL", metars.get(0).getIcao());
+        assertEquals("KPDK", metars.get(1).getIcao());
+        assertEquals("KRYY", metars.get(2).getIcao());
+        assertEquals("KFTY", metars.get(3).getIcao());
+    }
+
+    @Test
+    void parsesProperties() throws Exception {
+        final METAR katl = parse().get(0);
+        assertEquals("2022-10-08T12:52:00Z", katl.getObserved());
+        assertEquals(13L, katl.getTemperature().getCelsius());
+        assertEquals(7L, katl.getDewpoint().getCelsius());
+        assertEquals(8, katl.getWind().getSpeedKt());
+        assertEquals(340, katl.getWind().getDegrees());
+        assertEquals(25000.0, katl.getCeiling().getFeet());
+        assertEquals("BKN", katl.getCeiling().getCode());
+        assertEquals(2, katl.getClouds().size());
+        assertEquals("FEW", katl.getClouds().get(0).getCode());
+        assertEquals(6000.0, katl.getClouds().get(0).getBaseFeetAgl());
+        assertEquals("10+", katl.getVisibility().getMiles());
+        assertEquals("VFR", katl.getFlightCategory());
+        assertEquals(1021.7, katl.getBarometer().getMb());
+        assertEquals(33.630, katl.getLatitude());
+        assertEquals(-84.442, katl.getLongitude());
+        assertEquals("KATL 081252Z 34008KT 10SM FEW060 BKN250 13/07 A3017 RMK AO2 SLP215 T01330072",
+                katl.getRawText());
+    }
+
+    @Test
+    void toleratesVariableWindAndMissingValues() throws Exception {
+        final List<METAR> metars = parse();
+        final METAR kpdk = metars.get(1);
+        assertEquals(5, kpdk.getWind().getSpeedKt());
+        assertNull(kpdk.getWind().getDegrees());
+        assertNull(kpdk.getCeiling());
+        assertEquals("10", kpdk.getVisibility().getMiles());
+        assertNull(metars.get(2).getTemperature());
+        assertEquals(800.0, metars.get(2).getCeiling().getFeet());
+        assertNull(kpdk.getWind().getGustKt());
+        assertEquals(28, metars.get(3).getWind().getGustKt());
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.Ceiling;
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetarProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<METAR> metars = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/metar-feed.json")) {
+            new MetarFeedParser(new JsonFactory()).parse(in, metars::add);
+        }
+    }
+
+    @Test
+    void allProjectionMatchesPlainSerialization() throws Exception {
+        for (final METAR metar : metars) {
+            final JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsString(metar));
+            final JsonNode actual =
+                    objectMapper.readTree(objectMapper.writeValueAsString(MetarProjection.ALL.view(metar)));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void writesOnlySelectedAttributes() throws Exception {
+        final MetarProjection projection =
+                MetarProjection.compile(Arrays.asList(METAR.WIND, METAR.FLIGHT_CATEGORY, "unknown"));
+        final JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(projection.view(metars)));
+        assertEquals(metars.size(), json.size());
+        final JsonNode katl = json.get(0);
+        assertEquals("KATL", katl.get(METAR.ICAO).asText());
+        assertEquals("VFR", katl.get(METAR.FLIGHT_CATEGORY).asText());
+        assertEquals(8, katl.get(METAR.WIND).get("speed_kt").asInt());
+        assertFalse(katl.has(METAR.RAW_TEXT));
+        assertFalse(katl.has(METAR.TEMPERATURE));
+        assertEquals(3, katl.size());
+    }
+
+    @Test
+    void derivesUnitsOnlyWhenRequested() throws Exception {
+        final JsonNode plain = objectMapper.readTree(objectMapper.writeValueAsString(
+                MetarProjection.ALL.view(metars.get(0))));
+        assertFalse(plain.get(METAR.WIND).has("speed_mph"));
+        assertFalse(plain.has(METAR.HUMIDITY_PERCENT));
+
+        final MetarProjection units = MetarProjection.compile(List.of(METAR.UNITS));
+        assertTrue(units.includes(MetarProjection.UNITS));
+        assertTrue(units.includes(MetarProjection.WIND));
+        final JsonNode katl = objectMapper.readTree(objectMapper.writeValueAsString(units.view(metars.get(0))));
+        assertEquals(8, katl.get(METAR.WIND).get("speed_kt").asInt());
+        assertEquals(9, katl.get(METAR.WIND).get("speed_mph").asInt());
+        assertEquals(4, katl.get(METAR.WIND).get("speed_mps").asInt());
+        assertEquals(1829, katl.get(METAR.CLOUDS).get(0).get("base_meters_agl").asInt());
+        assertEquals(102.17, katl.get(METAR.BAROMETER).get("kpa").asDouble());
+        assertEquals("16093", katl.get(METAR.VISIBILITY).get("meters").asText());
+        assertTrue(katl.has(METAR.HUMIDITY_PERCENT));
+        assertTrue(katl.get(METAR.TEMPERATURE).has("fahrenheit"));
+    }
+
+    @Test
+    void writesRequestedHumidityWithoutUnits() throws Exception {
+        final MetarProjection projection = MetarProjection.compile(List.of(METAR.HUMIDITY_PERCENT));
+        final JsonNode katl = objectMapper.readTree(objectMapper.writeValueAsString(projection.view(metars.get(0))));
+        assertTrue(katl.has(METAR.HUMIDITY_PERCENT));
+        assertEquals(2, katl.size());
+    }
+
+    @Test
+    void derivesCeilingMeters() throws Exception {
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        final Ceiling ceiling = new Ceiling();
+        ceiling.setFeet(1000.0);
+        ceiling.setBaseFeetAgl(1000.0);
+        metar.setCeiling(ceiling);
+        final MetarProjection projection = MetarProjection.compile(List.of(METAR.CEILING, METAR.UNITS));
+        final JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(projection.view(metar)))
+                .get(METAR.CEILING);
+        assertEquals(305, json.get("meters").asInt());
+        assertEquals(305, json.get("base_meters_agl").asInt());
+        assertFalse(json.has("meters_agl"));
+    }
+
+    @Test
+    void compiledProjectionsAreReused() {
+        final MetarProjection first = MetarProjection.compile(Arrays.asList(METAR.WIND, METAR.CLOUDS));
+        final MetarProjection second = MetarProjection.compile(Arrays.asList(METAR.CLOUDS, METAR.WIND));
+        assertSame(first, second);
+        assertTrue(first.includes(MetarProjection.CLOUDS));
+        assertFalse(first.includes(MetarProjection.CEILING));
+        assertSame(MetarProjection.ALL, MetarProjection.compile(null));
+    }
+
+}
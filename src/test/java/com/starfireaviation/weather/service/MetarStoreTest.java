@@ -0,0 +1,63 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetarStoreTest {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    @Test
+    void publishingFromVirtualThreadDoesNotPinCarrier(@TempDir final Path dir) throws Exception {
+        final MetarStore store = new MetarStore(1.0);
+        store.addListener((previous, published) -> {
+            try {
+                Thread.sleep(Duration.ofMillis(50));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved("2022-10-08T12:52:00Z");
+
+        final Path file = dir.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED).withThreshold(Duration.ofMillis(20));
+            recording.start();
+            Thread.ofVirtual().start(() -> store.publish(Map.of("KATL", metar))).join();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertEquals(1, store.size());
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> PINNED.equals(event.getEventType().getName())));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.config.WeatherProperties;
+import com.starfireaviation.weather.exception.InvalidPayloadException;
+import com.starfireaviation.weather.exception.ServiceUnavailableException;
+import com.starfireaviation.weather.model.METAR;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetarStreamServiceTest {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private MetarStreamService service(final int maxSubscribers) {
+        return service(maxSubscribers, new MetarStore(0.5));
+    }
+
+    private MetarStreamService service(final int maxSubscribers, final MetarStore store) {
+        final WeatherProperties props = new WeatherProperties();
+        props.setStreamMaxSubscribers(maxSubscribers);
+        props.setStreamWriteTimeout(Duration.ofMillis(300));
+        return new MetarStreamService(store, new RenderedMetarCache(new ObjectMapper()), props);
+    }
+
+    @Test
+    void subscriptionNeedsStationsOrValidBox() {
+        final MetarStreamService service = service(10);
+        assertThrows(InvalidPayloadException.class, () -> service.subscribe(null, null));
+        assertThrows(InvalidPayloadException.class, () -> service.subscribe(null, List.of(-80.0, 30.0, -85.0, 35.0)));
+        assertThrows(InvalidPayloadException.class, () -> service.subscribe(null, List.of(-85.0, 30.0)));
+        assertEquals(0, service.size());
+    }
+
+    @Test
+    void subscriberLimitIsEnforced() throws Exception {
+        final MetarStreamService service = service(1);
+        service.subscribe(List.of("KATL"), null);
+        assertThrows(ServiceUnavailableException.class, () -> service.subscribe(List.of("KPDK"), null));
+        assertEquals(1, service.size());
+        service.shutdown();
+        assertEquals(0, service.size());
+    }
+
+    @Test
+    void concurrentSubscribersCannotExceedLimit() throws Exception {
+        final MetarStreamService service = service(5);
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    service.subscribe(List.of("KATL"), null);
+                    accepted.incrementAndGet();
+                } catch (ServiceUnavailableException | InvalidPayloadException | InterruptedException e) {
+                    // rejected
+                }
+            }));
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(5, accepted.get());
+        assertEquals(5, service.size());
+        service.shutdown();
+    }
+
+    @Test
+    @Timeout(30)
+    void stalledClientsAreDisconnectedWithoutDelayingOthers() throws Exception {
+        final MetarStore store = new MetarStore(0.5);
+        final MetarStreamService service = service(100, store);
+        store.addListener((previous, published) -> service.publish(published));
+        final List<StalledEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final StalledEmitter emitter = new StalledEmitter(Duration.ofMinutes(5));
+            stalled.add(emitter);
+            service.subscribe(List.of("KATL"), null, emitter);
+        }
+        final StalledEmitter healthy = new StalledEmitter(Duration.ZERO);
+        service.subscribe(List.of("KATL"), null, healthy);
+
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved("2022-10-08T12:52:00Z");
+        store.publish(Map.of("KATL", metar));
+        try {
+            assertTrue(healthy.written.await(5, TimeUnit.SECONDS));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (service.size() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, service.size());
+            for (final StalledEmitter emitter : stalled) {
+                assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void stalledClientDoesNotPinCarrier(@TempDir final Path dir) throws Exception {
+        final MetarStore store = new MetarStore(0.5);
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved("2022-10-08T12:52:00Z");
+        store.publish(Map.of("KATL", metar));
+        final MetarStreamService service = service(10, store);
+        final StalledEmitter emitter = new StalledEmitter(Duration.ofMillis(100));
+
+        final Path file = dir.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED).withThreshold(Duration.ofMillis(20));
+            recording.start();
+            service.subscribe(List.of("KATL"), null, emitter);
+            assertTrue(emitter.written.await(10, TimeUnit.SECONDS));
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            service.shutdown();
+        }
+
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> PINNED.equals(event.getEventType().getName())));
+    }
+
+    /**
+     * Blocks in the synchronized send, as a write to a client that does not read would.
+     */
+    private static final class StalledEmitter extends ResponseBodyEmitter {
+
+        private final Duration stall;
+
+        private final CountDownLatch written = new CountDownLatch(1);
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        StalledEmitter(final Duration stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public synchronized void send(final Object object, final MediaType mediaType) throws IOException {
+            try {
+                Thread.sleep(stall);
+            } catch (InterruptedException e) {
+                throw new IOException("write cancelled", e);
+            }
+            written.countDown();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+}
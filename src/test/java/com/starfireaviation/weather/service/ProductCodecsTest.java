@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.WeatherProduct;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCodecsTest {
+
+    private final ProductCodec json = new JacksonProductCodec(JacksonProductCodec.JSON, new ObjectMapper());
+
+    private final ProductCodec smile = new JacksonProductCodec(JacksonProductCodec.SMILE,
+            new ObjectMapper(new SmileFactory()));
+
+    @Test
+    void binaryValueRoundTripsAndIsSmallerThanJson() throws Exception {
+        final ProductCodecs codecs = new ProductCodecs(smile, json, List.of(json, smile));
+        final METAR metar = metar();
+        final WeatherProduct product = new WeatherProduct();
+        codecs.write(product, metar);
+
+        assertNull(product.getValue());
+        assertEquals(JacksonProductCodec.SMILE, product.getBinaryValue()[0]);
+        assertTrue(product.getBinaryValue().length < json.encode(metar).length);
+        final METAR read = codecs.read(product, METAR.class);
+        assertEquals(metar.getIcao(), read.getIcao());
+        assertEquals(metar.getRawText(), read.getRawText());
+        assertFalse(codecs.isOutdated(product));
+    }
+
+    @Test
+    void legacyJsonAndOtherCodecRowsStayReadable() throws Exception {
+        final ProductCodecs codecs = new ProductCodecs(smile, json, List.of(json, smile));
+        final WeatherProduct legacy = new WeatherProduct();
+        legacy.setValue(new ObjectMapper().writeValueAsString(metar()));
+        assertEquals("KATL", codecs.read(legacy, METAR.class).getIcao());
+        assertTrue(codecs.isOutdated(legacy));
+
+        final WeatherProduct jsonRow = new WeatherProduct();
+        new ProductCodecs(json, json, List.of(json)).write(jsonRow, metar());
+        assertEquals("KATL", codecs.read(jsonRow, METAR.class).getIcao());
+        assertTrue(codecs.isOutdated(jsonRow));
+    }
+
+    private static METAR metar() {
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setRawText("KATL 181752Z 27008KT 10SM FEW050 SCT250 24/12 A3002");
+        metar.setFlightCategory("VFR");
+        return metar;
+    }
+}
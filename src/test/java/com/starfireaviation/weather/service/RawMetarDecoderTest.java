@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RawMetarDecoderTest {
+
+    private static final Instant REFERENCE = Instant.parse("2022-10-08T13:00:00Z");
+
+    private final RawMetarDecoder decoder = new RawMetarDecoder();
+
+    @Test
+    void decodesTypicalReport() {
+        final String raw = "KATL 081252Z 34008G18KT 10SM FEW060 BKN250 13/07 A3017 RMK AO2 SLP215 T01330072";
+        final METAR metar = decoder.decode(raw, REFERENCE);
+        assertEquals("KATL", metar.getIcao());
+        assertEquals("2022-10-08T12:52:00Z", metar.getObserved());
+        assertEquals(raw, metar.getRawText());
+        assertEquals(340, metar.getWind().getDegrees());
+        assertEquals(8, metar.getWind().getSpeedKt());
+        assertEquals(18, metar.getWind().getGustKt());
+        assertEquals("10", metar.getVisibility().getMiles());
+        assertEquals(2, metar.getClouds().size());
+        assertEquals(6000.0, metar.getClouds().get(0).getBaseFeetAgl());
+        assertEquals("BKN", metar.getCeiling().getCode());
+        assertEquals(25000.0, metar.getCeiling().getFeet());
+        assertEquals(13L, metar.getTemperature().getCelsius());
+        assertEquals(7L, metar.getDewpoint().getCelsius());
+        assertEquals(30.17, metar.getBarometer().getHg());
+        assertEquals(1021.7, metar.getBarometer().getMb());
+        assertEquals("VFR", metar.getFlightCategory());
+    }
+
+    @Test
+    void decodesLowConditionsAndUnusualGroups() {
+        final METAR metar = decoder.decode(
+                "SPECI KPDK 302353Z AUTO VRB03KT 180V240 1 1/2SM R21L/2400FT -RA BR VV004 M02/M05 A2992", REFERENCE);
+        assertEquals("2022-09-30T23:53:00Z", metar.getObserved());
+        assertNull(metar.getWind().getDegrees());
+        assertEquals(3, metar.getWind().getSpeedKt());
+        assertEquals("1 1/2", metar.getVisibility().getMiles());
+        assertEquals("OVX", metar.getCeiling().getCode());
+        assertEquals(400.0, metar.getCeiling().getFeet());
+        assertEquals(-2L, metar.getTemperature().getCelsius());
+        assertEquals(-5L, metar.getDewpoint().getCelsius());
+        assertEquals("LIFR", metar.getFlightCategory());
+    }
+
+    @Test
+    void decodesMetricReport() {
+        final METAR metar = decoder.decode("EGLL 081250Z 24005MPS 9999 SCT030 12/08 Q1013", REFERENCE);
+        assertEquals(10, metar.getWind().getSpeedKt());
+        assertEquals("9999", metar.getVisibility().getMeters());
+        assertEquals(1013.0, metar.getBarometer().getMb());
+        assertEquals(29.91, metar.getBarometer().getHg());
+        assertEquals("VFR", metar.getFlightCategory());
+    }
+
+    @Test
+    void decodesBulletin() {
+        final String bulletin = "2022/10/08 12:52\n"
+                + "KATL 081252Z 34008KT P6SM BKN025 13/07 A3017=\n"
+                + "KRYY 081250Z NIL=\n"
+                + "KFTY 081253Z 00000KT 2SM BR OVC008 12/11 A3016=";
+        final List<METAR> metars = new ArrayList<>();
+        assertEquals(2, decoder.decodeAll(bulletin, REFERENCE, metars::add));
+        assertEquals("6+", metars.get(0).getVisibility().getMiles());
+        assertEquals("MVFR", metars.get(0).getFlightCategory());
+        assertEquals("KFTY", metars.get(1).getIcao());
+        assertEquals(0, metars.get(1).getWind().getDegrees());
+        assertEquals("IFR", metars.get(1).getFlightCategory());
+    }
+}
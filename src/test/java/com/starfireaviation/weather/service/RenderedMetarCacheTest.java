@@ -0,0 +1,69 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.METAR;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RenderedMetarCacheTest {
+
+    private final RenderedMetarCache cache = new RenderedMetarCache(new ObjectMapper());
+
+    private static CompactMETAR metar(final String observed, final String rawText) {
+        final METAR metar = new METAR();
+        metar.setIcao("KATL");
+        metar.setObserved(observed);
+        metar.setRawText(rawText);
+        metar.setFlightCategory("VFR");
+        return CompactMETAR.of(metar);
+    }
+
+    @Test
+    void rendersOncePerObservationAndProjection() throws Exception {
+        final CompactMETAR metar = metar("2022-10-08T12:52:00Z", "KATL 081252Z 34008KT 10SM 13/07 A3015");
+        final MetarProjection icaoOnly = MetarProjection.compile(List.of("icao"));
+
+        final RenderedMetarCache.RenderedMETAR all = cache.get(metar, MetarProjection.ALL);
+        assertSame(all, cache.get(metar, MetarProjection.ALL));
+        assertEquals(Instant.parse("2022-10-08T12:52:00Z").toEpochMilli(), all.getLastModified());
+
+        final RenderedMetarCache.RenderedMETAR projected = cache.get(metar, icaoOnly);
+        assertEquals("{\"icao\":\"KATL\"}", new String(projected.getBody(), StandardCharsets.UTF_8));
+        assertNotEquals(all.getEtag(), projected.getEtag());
+    }
+
+    @Test
+    void newObservationReplacesRenders() throws Exception {
+        final RenderedMetarCache.RenderedMETAR first =
+                cache.get(metar("2022-10-08T12:52:00Z", "KATL 081252Z 34008KT"), MetarProjection.ALL);
+        final RenderedMetarCache.RenderedMETAR second =
+                cache.get(metar("2022-10-08T13:52:00Z", "KATL 081352Z 34010KT"), MetarProjection.ALL);
+        assertNotSame(first, second);
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertEquals(1, cache.size());
+    }
+}
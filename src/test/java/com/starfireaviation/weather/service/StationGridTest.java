@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.starfireaviation.weather.model.METAR;
+import com.starfireaviation.weather.model.NearbyMETAR;
+import com.starfireaviation.weather.util.GeoUtilities;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StationGridTest {
+
+    private static METAR metar(final String icao, final double lat, final double lon) {
+        final METAR metar = new METAR();
+        metar.setIcao(icao);
+        metar.setLatitude(lat);
+        metar.setLongitude(lon);
+        return metar;
+    }
+
+    private static List<METAR> randomStations() {
+        final Random random = new Random(42);
+        final List<METAR> metars = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            metars.add(metar("S" + i, 25 + random.nextDouble() * 24, -125 + random.nextDouble() * 58));
+        }
+        metars.add(metar("NOPOS", 0, 0));
+        metars.get(metars.size() - 1).setLatitude(null);
+        return metars;
+    }
+
+    private static List<CompactMETAR> compact(final List<METAR> metars) {
+        return metars.stream().map(CompactMETAR::of).collect(Collectors.toList());
+    }
+
+    @Test
+    void boxQueryMatchesLinearScan() {
+        final List<METAR> metars = randomStations();
+        final StationGrid grid = StationGrid.build(0.5, compact(metars));
+        final List<String> expected = metars.stream()
+                .filter(m -> m.getLatitude() != null)
+                .filter(m -> m.getLatitude() >= 30.1588 && m.getLatitude() <= 35.1475)
+                .filter(m -> m.getLongitude() >= -85.6898 && m.getLongitude() <= -80.8209)
+                .map(METAR::getIcao).sorted().collect(Collectors.toList());
+        final List<String> actual = grid.within(30.1588, -85.6898, 35.1475, -80.8209).stream()
+                .map(CompactMETAR::getIcao).sorted().collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void radiusQueryMatchesLinearScanNearestFirst() {
+        final List<METAR> metars = randomStations();
+        final StationGrid grid = StationGrid.build(0.5, compact(metars));
+        final List<String> expected = metars.stream()
+                .filter(m -> m.getLatitude() != null)
+                .filter(m -> GeoUtilities.distanceNm(33.64, -84.43, m.getLatitude(), m.getLongitude()) <= 150)
+                .sorted(Comparator.comparingDouble(
+                        m -> GeoUtilities.distanceNm(33.64, -84.43, m.getLatitude(), m.getLongitude())))
+                .map(METAR::getIcao).collect(Collectors.toList());
+        final List<String> actual = grid.within(33.64, -84.43, 150).stream()
+                .map(CompactMETAR::getIcao).collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void nearestMatchesLinearScan() {
+        final List<METAR> metars = randomStations();
+        final StationGrid grid = StationGrid.build(0.5, compact(metars));
+        final double[][] points = {{33.64, -84.43}, {47.5, -122.3}, {10.0, -150.0}, {25.0, -67.0}};
+        for (final double[] point : points) {
+            final List<String> expected = metars.stream()
+                    .filter(m -> m.getLatitude() != null)
+                    .sorted(Comparator.comparingDouble(
+                            m -> GeoUtilities.distanceNm(point[0], point[1], m.getLatitude(), m.getLongitude())))
+                    .limit(7)
+                    .map(METAR::getIcao).collect(Collectors.toList());
+            final List<NearbyMETAR> actual = grid.nearest(point[0], point[1], 7);
+            assertEquals(expected, actual.stream().map(n -> n.getMetar().getIcao()).collect(Collectors.toList()));
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.starfireaviation.weather.model.ForecastPeriod;
+import com.starfireaviation.weather.model.TAF;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TafFeedParserTest {
+
+    private List<TAF> parse() throws Exception {
+        final List<TAF> tafs = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/taf-feed.json")) {
+            new TafFeedParser(new JsonFactory()).parse(in, tafs::add);
+        }
+        return tafs;
+    }
+
+    @Test
+    void foldsPeriodsIntoForecasts() throws Exception {
+        final List<TAF> tafs = parse();
+        assertEquals(2, tafs.size());
+        final TAF katl = tafs.get(0);
+        assertEquals("KATL", katl.getIcao());
+        assertEquals("2022-10-08T11:20:00Z", katl.getIssued());
+        assertEquals("2022-10-09T18:00:00Z", katl.getValidTo());
+        assertEquals(4, katl.getPeriods().size());
+        assertEquals(33.630, katl.getLatitude());
+        assertEquals("KPDK", tafs.get(1).getIcao());
+        assertEquals(1, tafs.get(1).getPeriods().size());
+    }
+
+    @Test
+    void parsesPeriods() throws Exception {
+        final List<ForecastPeriod> periods = parse().get(0).getPeriods();
+        assertNull(periods.get(0).getChange());
+        assertEquals(18, periods.get(1).getWind().getGustKt());
+        assertEquals(5000.0, periods.get(1).getClouds().get(0).getBaseFeetAgl());
+        assertEquals("TEMPO", periods.get(2).getChange());
+        assertEquals("-SHRA", periods.get(2).getWeather());
+        assertNull(periods.get(3).getWind().getDegrees());
+    }
+
+    @Test
+    void findsPrevailingPeriodAtTime() throws Exception {
+        final Map<String, TAF> tafs = new HashMap<>();
+        parse().forEach(taf -> tafs.put(taf.getIcao(), taf));
+        final TafStore store = new TafStore();
+        store.publish(tafs);
+        final List<ForecastPeriod> periods = tafs.get("KATL").getPeriods();
+        assertNull(store.periodAt("KATL", Instant.parse("2022-10-08T11:59:00Z")));
+        assertEquals(periods.get(0), store.periodAt("KATL", Instant.parse("2022-10-08T12:00:00Z")));
+        assertEquals(periods.get(1), store.periodAt("KATL", Instant.parse("2022-10-08T21:00:00Z")));
+        assertEquals(periods.get(3), store.periodAt("KATL", Instant.parse("2022-10-09T17:59:00Z")));
+        assertNull(store.periodAt("KATL", Instant.parse("2022-10-09T18:00:00Z")));
+        assertNull(store.periodAt("KXXX", Instant.parse("2022-10-08T12:00:00Z")));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.weather.model.METAR;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeatherMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MetarStore store = new MetarStore(0.5);
+
+    private final WeatherMetrics metrics =
+            new WeatherMetrics(registry, store, new RenderedMetarCache(new ObjectMapper()));
+
+    @Test
+    void registersDataAgeGaugePerStation() {
+        store.addListener(metrics);
+        final METAR metar = new RawMetarDecoder().decode("KATL 181752Z 27008KT 10SM BKN050 24/12 A3002",
+                Instant.parse("2022-10-18T19:00:00Z"));
+        store.publish(Map.of("KATL", metar));
+        store.publish(Map.of("KATL", metar));
+        assertNotNull(registry.find("weather.metar.age").tag("station", "KATL").gauge());
+        assertTrue(registry.get("weather.metar.age").gauge().value() > 0);
+        assertEquals(1, registry.find("weather.metar.age").gauges().size());
+
+        metrics.countStation(true);
+        metrics.countStation(false);
+        metrics.countStation(false);
+        assertEquals(2.0, registry.get("weather.ingest.stations").tag("result", "unchanged").counter().count());
+    }
+
+    @Test
+    void feedIsDownWhenIngestIsStale() throws InterruptedException {
+        final MetarFeedHealthIndicator fresh = new MetarFeedHealthIndicator(metrics, store, Duration.ofMinutes(15));
+        assertEquals(Status.UP, fresh.health().getStatus());
+
+        final MetarFeedHealthIndicator stale = new MetarFeedHealthIndicator(metrics, store, Duration.ZERO);
+        Thread.sleep(5);
+        assertEquals(Status.DOWN, stale.health().getStatus());
+        metrics.ingestCompleted();
+        assertEquals(Status.UP, fresh.health().getStatus());
+    }
+
+}